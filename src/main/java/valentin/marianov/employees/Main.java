@@ -1,9 +1,37 @@
 package valentin.marianov.employees;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import valentin.marianov.employees.employee.BoundedPairSearch;
+import valentin.marianov.employees.employee.DatasetDiff;
+import valentin.marianov.employees.employee.Employee;
+import valentin.marianov.employees.employee.EmployeeProcessing;
+import valentin.marianov.employees.employee.ExternalPairAggregator;
+import valentin.marianov.employees.employee.HeavyPair;
+import valentin.marianov.employees.employee.PairChange;
+import valentin.marianov.employees.employee.ProjectAssignments;
+import valentin.marianov.employees.employee.TopPairsCollector;
+import valentin.marianov.employees.export.PairExporter;
+import valentin.marianov.employees.partition.PartitionCoordinator;
+import valentin.marianov.employees.partition.PartitionWorker;
+import valentin.marianov.employees.pipeline.EmployeePipeline;
+import valentin.marianov.employees.server.QueryServer;
 import valentin.marianov.employees.ui.EmployeePairUI;
+import valentin.marianov.employees.watch.DirectoryWatcher;
 
 /**
  * Initializes the User Interface (JFrame) containing a browse button in order
@@ -16,16 +44,771 @@ import valentin.marianov.employees.ui.EmployeePairUI;
  * displayed in a table with four columns, holding the ids of both employees and
  * the projects but also the time period (in days) that they have worked
  * together.
- * 
+ * <p>
+ * When started with arguments, no User Interface is shown. Instead the
+ * following modes are available:
+ * <ul>
+ * <li><b>--export</b> &lt;input files&gt; &lt;output file&gt; [--format csv|jsonl]
+ * [--sort-by-days] [--gzip] [--memory-budget &lt;bytes&gt;] - writes all pairs
+ * to a file, the input files are either a single file or a glob pattern for the
+ * file names (e.g. data/employees-*.csv), all read in parallel
+ * <li><b>--server</b> &lt;input file&gt; [--port &lt;port&gt;] - answers
+ * queries about the pairs over HTTP, see {@link QueryServer}
+ * <li><b>--watch</b> &lt;directory&gt; &lt;result file&gt; [--top &lt;k&gt;]
+ * [--debounce &lt;milliseconds&gt;] - keeps the pairs with the most days of
+ * all files in a directory up to date, see {@link DirectoryWatcher}
+ * <li><b>--partitioned</b> &lt;input files&gt; &lt;result file&gt; [--partitions
+ * &lt;n&gt;] [--top &lt;k&gt;] - computes the pairs in worker JVMs, one per
+ * partition of the projects, and writes the pairs with the most days to the
+ * result file, see {@link PartitionCoordinator}
+ * <li><b>--worker</b> &lt;partition file&gt; &lt;partial result file&gt;
+ * [--memory-budget &lt;bytes&gt;] - computes the pair totals of a single
+ * partition, see {@link PartitionWorker}
+ * <li><b>--merge-partials</b> &lt;partial result files&gt; &lt;result file&gt;
+ * [--top &lt;k&gt;] - merges partial result files computed elsewhere and writes
+ * the pairs with the most days to the result file
+ * <li><b>--heavy-pairs</b> &lt;input files&gt; &lt;result file&gt; [--capacity
+ * &lt;pairs&gt;] [--top &lt;k&gt;] [--verify] - finds the pairs with the most
+ * days approximately in a fixed amount of memory, with their error bounds and
+ * optionally their exact days
+ * <li><b>--pipeline</b> &lt;input files&gt; &lt;result file&gt; [--top &lt;k&gt;]
+ * [--queue-capacity &lt;items&gt;] [--lenient] - finds the pairs with the most
+ * days in stages running at the same time, see {@link EmployeePipeline}
+ * <li><b>--diff</b> &lt;old input files&gt; &lt;new input files&gt; &lt;result
+ * file&gt; [--old-longest &lt;id1,id2,days&gt;] - writes the pairs added,
+ * removed or changed between two versions of the data and the longest pair of
+ * both, see {@link DatasetDiff}
+ * <li><b>--bounded</b> &lt;input files&gt; &lt;result file&gt; [--top &lt;k&gt;] -
+ * finds the pairs with the most days, skipping the pairs which cannot be among
+ * them, see {@link BoundedPairSearch}
+ * </ul>
+ *
  * @author Valentin
  */
 public class Main {
 
 	private static Logger logger = Logger.getLogger("employees-logger");
 
+	private static final int DEFAULT_PORT = 8080;
+	private static final long DEFAULT_DEBOUNCE_MILLIS = 2000;
+	private static final int DEFAULT_HEAVY_PAIRS_CAPACITY = 100_000;
+
 	public static void main(String[] args) {
 		logger.setLevel(Level.ALL);
-		EmployeePairUI.initializeFrame();
+
+		if (args.length == 0) {
+			EmployeePairUI.initializeFrame();
+			return;
+		}
+
+		try {
+			runMode(args);
+		} catch (IllegalArgumentException e) {
+			// an unknown or malformed option
+			logger.severe(e.getMessage());
+			printUsage();
+		}
+	}
+
+	/**
+	 * Runs the mode named by the first argument.
+	 *
+	 * @param args - the command line arguments
+	 * @throws IllegalArgumentException in case of a malformed option value
+	 */
+	private static void runMode(String[] args) {
+
+		switch (args[0]) {
+		case "--export":
+			exportEmployeePairs(args);
+			break;
+		case "--server":
+			startQueryServer(args);
+			break;
+		case "--watch":
+			watchDirectory(args);
+			break;
+		case "--partitioned":
+			findPairsInPartitions(args);
+			break;
+		case "--worker":
+			computePartition(args);
+			break;
+		case "--merge-partials":
+			mergePartialResults(args);
+			break;
+		case "--heavy-pairs":
+			findHeavyPairs(args);
+			break;
+		case "--pipeline":
+			runPipeline(args);
+			break;
+		case "--diff":
+			compareVersions(args);
+			break;
+		case "--bounded":
+			findBoundedPairs(args);
+			break;
+		default:
+			printUsage();
+		}
+	}
+
+	/**
+	 * Finds all pairs of the input file and writes them to the output file.
+	 *
+	 * @param args - the command line arguments
+	 *
+	 * @author Valentin
+	 */
+	private static void exportEmployeePairs(String[] args) {
+
+		if (args.length < 3) {
+			printUsage();
+			return;
+		}
+
+		List<File> inputs;
+		try {
+			inputs = resolveInputFiles(args[1]);
+		} catch (IOException e) {
+			logger.severe("Could not list the input files " + args[1] + ": " + e.getMessage());
+			return;
+		}
+
+		Path output = Path.of(args[2]);
+		PairExporter.Format format = PairExporter.Format.CSV;
+		boolean sortByDays = false;
+		boolean gzip = false;
+		long memoryBudgetInBytes = 0;
+
+		for (int i = 3; i < args.length; i++) {
+			switch (args[i]) {
+			case "--format":
+				format = parseFormat(args, ++i);
+				break;
+			case "--sort-by-days":
+				sortByDays = true;
+				break;
+			case "--gzip":
+				gzip = true;
+				break;
+			case "--memory-budget":
+				memoryBudgetInBytes = parseLongOption(args, ++i, 1);
+				break;
+			default:
+				printUsage();
+				return;
+			}
+		}
+
+		// the aggregator and the sorting share the budget, both hold pairs while exporting
+		long exportBudgetInBytes = sortByDays ? memoryBudgetInBytes / 2 : 0;
+		PairExporter exporter = new PairExporter(format, sortByDays, gzip, exportBudgetInBytes);
+
+		List<Employee> employees = readEmployees(inputs, new ArrayList<String>());
+
+		try {
+			if (memoryBudgetInBytes > 0) {
+				try (ExternalPairAggregator aggregator = new ExternalPairAggregator(
+						Math.max(memoryBudgetInBytes - exportBudgetInBytes, 1))) {
+					EmployeeProcessing.collectAllEmployeePairs(employees, aggregator);
+					exporter.export(aggregator, output);
+				}
+			} else {
+				exporter.export(
+						EmployeeProcessing.findAllEmployeePairs(ProjectAssignments.indexByProject(employees).values()),
+						output);
+			}
+		} catch (IOException | UncheckedIOException e) {
+			logger.severe("Could not export the employee pairs to " + output + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Loads the input file and answers queries about its pairs until the process
+	 * is stopped.
+	 *
+	 * @param args - the command line arguments
+	 *
+	 * @author Valentin
+	 */
+	private static void startQueryServer(String[] args) {
+
+		if (args.length < 2) {
+			printUsage();
+			return;
+		}
+
+		int port = DEFAULT_PORT;
+		if (args.length == 4 && args[2].equals("--port")) {
+			port = parseIntOption(args, 3, 0);
+			if (port > 65535) {
+				throw new IllegalArgumentException("--port needs a port up to 65535, not " + port + ".");
+			}
+		} else if (args.length != 2) {
+			printUsage();
+			return;
+		}
+
+		try {
+			new QueryServer(new File(args[1])).start(port);
+		} catch (IOException e) {
+			logger.severe("Could not start the query server on port " + port + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Watches the directory and writes the pairs with the most days of all its
+	 * files to the result file until the process is stopped.
+	 *
+	 * @param args - the command line arguments
+	 *
+	 * @author Valentin
+	 */
+	private static void watchDirectory(String[] args) {
+
+		if (args.length < 3) {
+			printUsage();
+			return;
+		}
+
+		Path directory = Path.of(args[1]);
+		Path resultFile = Path.of(args[2]);
+		int topPairs = EmployeeProcessing.DEFAULT_TOP_PAIRS;
+		long debounceMillis = DEFAULT_DEBOUNCE_MILLIS;
+
+		for (int i = 3; i < args.length; i++) {
+			switch (args[i]) {
+			case "--top":
+				topPairs = parseIntOption(args, ++i, 1);
+				break;
+			case "--debounce":
+				debounceMillis = parseLongOption(args, ++i, 0);
+				break;
+			default:
+				printUsage();
+				return;
+			}
+		}
+
+		try {
+			new DirectoryWatcher(directory, resultFile, topPairs, debounceMillis).run();
+		} catch (IOException e) {
+			logger.severe("Could not watch the directory " + directory + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Splits the employees of the input files into partitions, computes every
+	 * partition in a worker JVM and writes the pairs with the most days to the
+	 * result file.
+	 *
+	 * @param args - the command line arguments
+	 *
+	 * @author Valentin
+	 */
+	private static void findPairsInPartitions(String[] args) {
+
+		if (args.length < 3) {
+			printUsage();
+			return;
+		}
+
+		Path resultFile = Path.of(args[2]);
+		int partitions = Runtime.getRuntime().availableProcessors();
+		int topPairs = EmployeeProcessing.DEFAULT_TOP_PAIRS;
+
+		for (int i = 3; i < args.length; i++) {
+			switch (args[i]) {
+			case "--partitions":
+				partitions = parseIntOption(args, ++i, 1);
+				break;
+			case "--top":
+				topPairs = parseIntOption(args, ++i, 1);
+				break;
+			default:
+				printUsage();
+				return;
+			}
+		}
+
+		Path workDirectory = null;
+		try {
+			List<Employee> employees = readEmployees(resolveInputFiles(args[1]), new ArrayList<String>());
+
+			workDirectory = Files.createTempDirectory("employee-partitions");
+			writeTopPairs(new PartitionCoordinator(partitions, workDirectory)
+					.findTopWorkingEmployeePairs(employees, topPairs), resultFile);
+
+		} catch (IOException | UncheckedIOException e) {
+			logger.severe("Could not compute the partitions: " + e.getMessage());
+		} finally {
+			deleteQuietly(workDirectory);
+		}
+	}
+
+	/**
+	 * Computes the pair totals of a single partition. Exits with code 1 in case of
+	 * an error, so that the coordinator notices.
+	 *
+	 * @param args - the command line arguments
+	 *
+	 * @author Valentin
+	 */
+	private static void computePartition(String[] args) {
+
+		if (args.length != 3 && !(args.length == 5 && args[3].equals("--memory-budget"))) {
+			printUsage();
+			System.exit(1);
+		}
+
+		long memoryBudgetInBytes = Runtime.getRuntime().maxMemory() / 4;
+		if (args.length == 5) {
+			try {
+				memoryBudgetInBytes = parseLongOption(args, 4, 1);
+			} catch (IllegalArgumentException e) {
+				logger.severe(e.getMessage());
+				printUsage();
+				System.exit(1);
+			}
+		}
+
+		try {
+			PartitionWorker.computePartialResult(new File(args[1]), Path.of(args[2]), memoryBudgetInBytes);
+		} catch (IOException | UncheckedIOException e) {
+			logger.severe("Could not compute the partition " + args[1] + ": " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Merges partial result files and writes the pairs with the most days to the
+	 * result file.
+	 *
+	 * @param args - the command line arguments
+	 *
+	 * @author Valentin
+	 */
+	private static void mergePartialResults(String[] args) {
+
+		int topPairs = EmployeeProcessing.DEFAULT_TOP_PAIRS;
+		if (args.length == 5 && args[3].equals("--top")) {
+			topPairs = parseIntOption(args, 4, 1);
+		} else if (args.length != 3) {
+			printUsage();
+			return;
+		}
+
+		try {
+			List<Path> partialResults = new ArrayList<Path>();
+			for (File file : resolveInputFiles(args[1])) {
+				partialResults.add(file.toPath());
+			}
+
+			TopPairsCollector collector = new TopPairsCollector(topPairs);
+			PartitionCoordinator.merge(partialResults, collector);
+			writeTopPairs(collector.toList(), Path.of(args[2]));
+
+		} catch (IOException e) {
+			logger.severe("Could not merge the partial results " + args[1] + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Finds the pairs with the most days of the input files approximately and
+	 * writes them with their error bounds to the result file.
+	 *
+	 * @param args - the command line arguments
+	 *
+	 * @author Valentin
+	 */
+	private static void findHeavyPairs(String[] args) {
+
+		if (args.length < 3) {
+			printUsage();
+			return;
+		}
+
+		int capacity = DEFAULT_HEAVY_PAIRS_CAPACITY;
+		int topPairs = EmployeeProcessing.DEFAULT_TOP_PAIRS;
+		boolean verify = false;
+
+		for (int i = 3; i < args.length; i++) {
+			switch (args[i]) {
+			case "--capacity":
+				capacity = parseIntOption(args, ++i, 1);
+				break;
+			case "--top":
+				topPairs = parseIntOption(args, ++i, 1);
+				break;
+			case "--verify":
+				verify = true;
+				break;
+			default:
+				printUsage();
+				return;
+			}
+		}
+
+		try {
+			List<Employee> employees = readEmployees(resolveInputFiles(args[1]), new ArrayList<String>());
+
+			List<String> lines = new ArrayList<String>();
+			lines.add("EmployeeID1,EmployeeID2,EstimatedDays,MaximumError,ExactDays");
+			for (HeavyPair pair : EmployeeProcessing.findHeavyPairs(employees, capacity, topPairs, verify)) {
+				lines.add(pair.getEmployee1ID() + "," + pair.getEmployee2ID() + "," + pair.getEstimatedDays() + ","
+						+ pair.getMaximumError() + "," + (pair.isVerified() ? pair.getExactDays() : ""));
+			}
+			Files.write(Path.of(args[2]), lines);
+
+		} catch (IOException e) {
+			logger.severe("Could not find the heavy pairs of " + args[1] + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Finds the pairs with the most days of the input files in a pipeline and
+	 * writes them to the result file.
+	 *
+	 * @param args - the command line arguments
+	 *
+	 * @author Valentin
+	 */
+	private static void runPipeline(String[] args) {
+
+		if (args.length < 3) {
+			printUsage();
+			return;
+		}
+
+		int topPairs = EmployeeProcessing.DEFAULT_TOP_PAIRS;
+		int queueCapacity = EmployeePipeline.DEFAULT_QUEUE_CAPACITY;
+		boolean lenient = false;
+
+		for (int i = 3; i < args.length; i++) {
+			switch (args[i]) {
+			case "--top":
+				topPairs = parseIntOption(args, ++i, 1);
+				break;
+			case "--queue-capacity":
+				queueCapacity = parseIntOption(args, ++i, 1);
+				break;
+			case "--lenient":
+				lenient = true;
+				break;
+			default:
+				printUsage();
+				return;
+			}
+		}
+
+		try {
+			EmployeePipeline pipeline = new EmployeePipeline(topPairs, queueCapacity,
+					Runtime.getRuntime().maxMemory() / 4, lenient);
+			writeTopPairs(pipeline.findTopWorkingEmployeePairs(resolveInputFiles(args[1])), Path.of(args[2]));
+
+		} catch (IOException e) {
+			logger.severe("Could not run the pipeline on " + args[1] + ": " + e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Compares an old and a new version of the data and writes the pairs changed
+	 * and the longest pair of both versions to the result file.
+	 *
+	 * @param args - the command line arguments
+	 *
+	 * @author Valentin
+	 */
+	private static void compareVersions(String[] args) {
+
+		if (args.length < 4) {
+			printUsage();
+			return;
+		}
+
+		int[] oldLongestPair = null;
+
+		for (int i = 4; i < args.length; i++) {
+			switch (args[i]) {
+			case "--old-longest":
+				oldLongestPair = parsePairOption(args, ++i);
+				break;
+			default:
+				printUsage();
+				return;
+			}
+		}
+
+		try {
+			List<String> errors = new ArrayList<String>();
+			List<Employee> oldEmployees = readEmployees(resolveInputFiles(args[1]), errors);
+			List<Employee> newEmployees = readEmployees(resolveInputFiles(args[2]), errors);
+
+			// a skipped file would show all of its pairs as added or removed
+			if (!errors.isEmpty()) {
+				logger.severe("Could not compare " + args[1] + " with " + args[2] + ", " + errors.size()
+						+ " errors found.");
+				return;
+			}
+
+			DatasetDiff diff = DatasetDiff.compare(oldEmployees, newEmployees, oldLongestPair);
+
+			List<String> lines = new ArrayList<String>();
+			lines.add("Change,EmployeeID1,EmployeeID2,OldDays,NewDays");
+			for (PairChange change : diff.getChanges()) {
+				lines.add((change.isAdded() ? "added" : change.isRemoved() ? "removed" : "changed") + "," + change);
+			}
+			if (diff.getOldLongestPair() != null) {
+				lines.add("longest-old," + diff.getOldLongestPair());
+			}
+			if (diff.getNewLongestPair() != null) {
+				lines.add("longest-new," + diff.getNewLongestPair());
+			}
+			Files.write(Path.of(args[3]), lines);
+			logger.info("Wrote " + diff.getChanges().size() + " changed pairs to " + args[3] + ", the longest pair has"
+					+ (diff.isLongestPairChanged() ? "" : " not") + " changed.");
+
+		} catch (IOException e) {
+			logger.severe("Could not compare " + args[1] + " with " + args[2] + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Finds the pairs with the most days of the input files by branch and bound
+	 * and writes them to the result file.
+	 *
+	 * @param args - the command line arguments
+	 *
+	 * @author Valentin
+	 */
+	private static void findBoundedPairs(String[] args) {
+
+		if (args.length < 3) {
+			printUsage();
+			return;
+		}
+
+		int topPairs = EmployeeProcessing.DEFAULT_TOP_PAIRS;
+
+		for (int i = 3; i < args.length; i++) {
+			switch (args[i]) {
+			case "--top":
+				topPairs = parseIntOption(args, ++i, 1);
+				break;
+			default:
+				printUsage();
+				return;
+			}
+		}
+
+		try {
+			List<Employee> employees = readEmployees(resolveInputFiles(args[1]), new ArrayList<String>());
+
+			BoundedPairSearch search = BoundedPairSearch.findTopWorkingEmployeePairs(employees, topPairs);
+			writeTopPairs(search.getTopPairs(), Path.of(args[2]));
+			logger.info("Computed the days of " + search.getEvaluated() + " pairs, pruned " + search.getPruned()
+					+ " pairs and skipped " + search.getSkippedProjects() + " projects.");
+
+		} catch (IOException e) {
+			logger.severe("Could not find the pairs of " + args[1] + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Reads the files like
+	 * {@link EmployeeProcessing#processEmployeesOfFiles(List, List, boolean)} and
+	 * logs the errors found, the files concerned are skipped.
+	 *
+	 * @param files  - lists with csv separated values in the form EmployeeID,
+	 *               ProjectID, DateFrom, DateTo
+	 * @param errors - receives the errors of the files
+	 * @return the employees of all files without errors
+	 */
+	private static List<Employee> readEmployees(final List<File> files, final List<String> errors) {
+
+		int previousErrors = errors.size();
+		// no pop-up messages without User Interface
+		List<Employee> employees = EmployeeProcessing.processEmployeesOfFiles(files, errors, true);
+
+		List<String> newErrors = errors.subList(previousErrors, errors.size());
+		for (String error : newErrors) {
+			logger.warning(error);
+		}
+		if (!newErrors.isEmpty()) {
+			logger.warning(newErrors.size() + " errors found, the files concerned have been skipped.");
+		}
+		return employees;
+	}
+
+	/**
+	 * Parses the number following an option, e.g. the k after --top.
+	 *
+	 * @param args    - the command line arguments
+	 * @param index   - the index of the number
+	 * @param minimum - the smallest number allowed
+	 * @return the number
+	 * @throws IllegalArgumentException in case the number is missing, malformed or
+	 *                                  too small
+	 */
+	private static int parseIntOption(final String[] args, final int index, final int minimum) {
+
+		long value = parseLongOption(args, index, minimum);
+		if (value > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(args[index - 1] + " needs a number up to " + Integer.MAX_VALUE
+					+ ", not " + value + ".");
+		}
+		return (int) value;
+	}
+
+	/**
+	 * See {@link #parseIntOption(String[], int, int)}.
+	 */
+	private static long parseLongOption(final String[] args, final int index, final long minimum) {
+
+		if (index >= args.length) {
+			throw new IllegalArgumentException("Missing the value of " + args[index - 1] + ".");
+		}
+
+		long value;
+		try {
+			value = Long.parseLong(args[index].trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(args[index - 1] + " needs a number, not " + args[index] + ".");
+		}
+		if (value < minimum) {
+			throw new IllegalArgumentException(args[index - 1] + " needs a number of at least " + minimum + ", not "
+					+ value + ".");
+		}
+		return value;
+	}
+
+	/**
+	 * @return the export format following --format, csv or jsonl
+	 */
+	private static PairExporter.Format parseFormat(final String[] args, final int index) {
+
+		if (index >= args.length) {
+			throw new IllegalArgumentException("Missing the value of " + args[index - 1] + ".");
+		}
+		if (args[index].equalsIgnoreCase("csv")) {
+			return PairExporter.Format.CSV;
+		}
+		if (args[index].equalsIgnoreCase("jsonl")) {
+			return PairExporter.Format.JSON_LINES;
+		}
+		throw new IllegalArgumentException("Unknown format " + args[index] + ", use csv or jsonl.");
+	}
+
+	/**
+	 * @return both employee ids and the days of a pair in the form id1,id2,days
+	 */
+	private static int[] parsePairOption(final String[] args, final int index) {
+
+		if (index >= args.length) {
+			throw new IllegalArgumentException("Missing the value of " + args[index - 1] + ".");
+		}
+
+		String[] values = args[index].split(",");
+		if (values.length != 3) {
+			throw new IllegalArgumentException(args[index - 1] + " needs id1,id2,days, not " + args[index] + ".");
+		}
+		try {
+			return new int[] { Integer.parseInt(values[0].trim()), Integer.parseInt(values[1].trim()),
+					Integer.parseInt(values[2].trim()) };
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(args[index - 1] + " needs id1,id2,days, not " + args[index] + ".");
+		}
+	}
+
+	private static void writeTopPairs(final List<String[]> pairs, final Path resultFile) throws IOException {
+
+		List<String> lines = new ArrayList<String>();
+		lines.add("EmployeeID1,EmployeeID2,ProjectIDs,DaysWorked");
+		for (String[] pair : pairs) {
+			lines.add(pair[0] + "," + pair[1] + "," + pair[2].trim() + "," + pair[3]);
+		}
+		Files.write(resultFile, lines);
+		logger.info("Wrote " + pairs.size() + " pairs to " + resultFile + ".");
+	}
+
+	/**
+	 * Deletes the work directory together with any files left behind, e.g. by a
+	 * failed split or worker.
+	 */
+	private static void deleteQuietly(final Path directory) {
+
+		if (directory == null || !Files.exists(directory)) {
+			return;
+		}
+
+		// the files first, the directory last
+		List<Path> paths;
+		try (Stream<Path> walk = Files.walk(directory)) {
+			paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+		} catch (IOException | UncheckedIOException e) {
+			logger.warning("Could not list " + directory + ": " + e.getMessage());
+			return;
+		}
+
+		for (Path path : paths) {
+			try {
+				Files.deleteIfExists(path);
+			} catch (IOException e) {
+				logger.warning("Could not delete " + path + ": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Finds the files matching the given glob pattern, e.g.
+	 * data/employees-*.csv. The pattern is only applied to the file names, a path
+	 * without any pattern is a single file.
+	 *
+	 * @param pattern - the file or glob pattern
+	 * @return the files matching the pattern, sorted by name
+	 * @throws IOException in case the directory cannot be listed
+	 *
+	 * @author Valentin
+	 */
+	static List<File> resolveInputFiles(final String pattern) throws IOException {
+
+		Path path = Path.of(pattern);
+		String fileName = path.getFileName().toString();
+
+		if (!fileName.matches(".*[*?\\[{].*")) {
+			return Collections.singletonList(path.toFile());
+		}
+
+		Path directory = path.getParent() != null ? path.getParent() : Path.of(".");
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + fileName);
+
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> Files.isRegularFile(file) && matcher.matches(file.getFileName())).sorted()
+					.map(Path::toFile).collect(Collectors.toList());
+		}
+	}
+
+	private static void printUsage() {
+		System.err.println("Usage:");
+		System.err.println("  (no arguments)  start the User Interface");
+		System.err.println("  --export <input file or glob> <output file> [--format csv|jsonl] [--sort-by-days] [--gzip]"
+				+ " [--memory-budget <bytes>]");
+		System.err.println("  --server <input file> [--port <port>]");
+		System.err.println("  --watch <directory> <result file> [--top <k>] [--debounce <milliseconds>]");
+		System.err.println("  --partitioned <input file or glob> <result file> [--partitions <n>] [--top <k>]");
+		System.err.println("  --worker <partition file> <partial result file> [--memory-budget <bytes>]");
+		System.err.println("  --merge-partials <partial result file or glob> <result file> [--top <k>]");
+		System.err.println("  --heavy-pairs <input file or glob> <result file> [--capacity <pairs>] [--top <k>]"
+				+ " [--verify]");
+		System.err.println("  --pipeline <input file or glob> <result file> [--top <k>] [--queue-capacity <items>]"
+				+ " [--lenient]");
+		System.err.println("  --diff <old input file or glob> <new input file or glob> <result file>"
+				+ " [--old-longest <id1,id2,days>]");
+		System.err.println("  --bounded <input file or glob> <result file> [--top <k>]");
 	}
 
 }
@@ -0,0 +1,90 @@
+package valentin.marianov.employees.employee;
+
+import java.util.Arrays;
+
+import valentin.marianov.employees.utility.DayBitset;
+
+/**
+ * Turns all assignments of an employee to a project into a single
+ * {@link DayBitset} and computes the common days of two employees by
+ * intersecting their sets of days.
+ * <p>
+ * Every pair of employees is reported only once per project, no matter how many
+ * assignments both employees have. As long as the assignments of an employee do
+ * not overlap each other, the days reported are exactly the same as the sum of
+ * all overlaps found by the {@link IntervalOverlapEngine}.
+ *
+ * @author Valentin
+ */
+public class BitsetOverlapEngine implements OverlapEngine {
+
+	@Override
+	public void findPairs(final ProjectAssignments project, final PairCollector collector) {
+
+		int size = project.size();
+
+		// employee in the upper and index in the lower half, groups all assignments of
+		// an employee together
+		long[] byEmployee = new long[size];
+		for (int i = 0; i < size; i++) {
+			byEmployee[i] = ((long) project.getEmployeeID(i) << 32) | i;
+		}
+		Arrays.sort(byEmployee);
+
+		int[] employeeIDs = new int[size];
+		DayBitset[] days = new DayBitset[size];
+		int employeeCount = 0;
+
+		int[] startDays = new int[size];
+		int[] endDays = new int[size];
+		long[] byStartDay = new long[size];
+
+		for (int from = 0; from < size;) {
+
+			int employeeID = (int) (byEmployee[from] >> 32);
+			int to = from;
+			while (to < size && (int) (byEmployee[to] >> 32) == employeeID) {
+				int index = (int) byEmployee[to];
+				byStartDay[to] = ((long) project.getStartDay(index) << 32) | index;
+				to++;
+			}
+
+			// the ranges of a set of days have to be sorted by their start day
+			Arrays.sort(byStartDay, from, to);
+			for (int i = from; i < to; i++) {
+				startDays[i] = (int) (byStartDay[i] >> 32);
+				endDays[i] = project.getEndDay((int) byStartDay[i]);
+			}
+
+			DayBitset employeeDays = DayBitset.of(startDays, endDays, from, to);
+			if (employeeDays.cardinality() > 0) {
+				employeeIDs[employeeCount] = employeeID;
+				days[employeeCount] = employeeDays;
+				employeeCount++;
+			}
+			from = to;
+		}
+
+		// compare only employees whose first day is before the last day of the other
+		long[] byFirstDay = new long[employeeCount];
+		for (int i = 0; i < employeeCount; i++) {
+			byFirstDay[i] = ((long) days[i].getFirstDay() << 32) | i;
+		}
+		Arrays.sort(byFirstDay);
+
+		for (int i = 0; i < employeeCount; i++) {
+
+			int first = (int) byFirstDay[i];
+
+			for (int j = i + 1; j < employeeCount && (int) (byFirstDay[j] >> 32) <= days[first].getLastDay(); j++) {
+
+				int second = (int) byFirstDay[j];
+				int overlapInDays = DayBitset.andCardinality(days[first], days[second]);
+
+				if (overlapInDays >= 1) {
+					collector.collect(employeeIDs[first], employeeIDs[second], project.getProjectID(), overlapInDays);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,410 @@
+package valentin.marianov.employees.employee;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Logger;
+
+import valentin.marianov.employees.utility.IdDictionary;
+
+/**
+ * Finds the pairs with the most days worked together by branch and bound,
+ * computing the exact days only of the pairs, which may still be among them.
+ * <p>
+ * The projects are visited in descending order of their potential, i.e. the
+ * days of their second longest assigned employee, so that the pairs with the
+ * most days are usually found first. A pair is looked at once, on the first of
+ * its common projects visited, without remembering the pairs seen.
+ * <p>
+ * For every employee the days still assigned on the projects not visited yet
+ * are kept (multiplied by the most periods overlapping on the same day on the
+ * project, usually 1). A pair cannot have worked together longer than the
+ * smaller of the remaining days of both employees. A pair, whose bound cannot
+ * beat the k-th pair found so far, is skipped (pruned) without computing its
+ * days. Once the second most remaining days of all employees cannot beat the
+ * k-th pair, no pair looked at later can, and the remaining projects are
+ * skipped. Since the exact days never exceed the bounds, the result is the same
+ * as when computing the days of all pairs.
+ *
+ * @author Valentin
+ */
+public class BoundedPairSearch {
+
+	private static Logger logger = Logger.getLogger("employees-logger");
+
+	private final List<String[]> topPairs;
+	private final long evaluated;
+	private final long pruned;
+	private final long withoutCommonDays;
+	private final int skippedProjects;
+
+	private BoundedPairSearch(final List<String[]> topPairs, final long evaluated, final long pruned,
+			final long withoutCommonDays, final int skippedProjects) {
+		this.topPairs = topPairs;
+		this.evaluated = evaluated;
+		this.pruned = pruned;
+		this.withoutCommonDays = withoutCommonDays;
+		this.skippedProjects = skippedProjects;
+	}
+
+	/**
+	 * Finds the pairs with the most days worked together.
+	 *
+	 * @param employees - all employees and their projects
+	 * @param k         - the maximum number of pairs
+	 * @return the pairs found together with the number of pairs pruned
+	 *
+	 * @author Valentin
+	 */
+	public static BoundedPairSearch findTopWorkingEmployeePairs(final List<Employee> employees, final int k) {
+
+		if (k <= 0) {
+			return new BoundedPairSearch(new ArrayList<String[]>(), 0, 0, 0, 0);
+		}
+
+		long start = System.nanoTime();
+
+		IdDictionary employeeCodes = new IdDictionary(employees.size());
+		IdDictionary projectCodes = new IdDictionary();
+		List<ProjectAssignments> projects = ProjectAssignments.indexByProject(employees, employeeCodes,
+				projectCodes);
+
+		List<Summary[]> summariesOfProjects = new ArrayList<Summary[]>(projects.size());
+		for (ProjectAssignments project : projects) {
+			summariesOfProjects.add(summarize(project));
+		}
+		summariesOfProjects.sort((project1, project2) -> Long.compare(getPotential(project2), getPotential(project1)));
+
+		// the summaries of every employee in the order the projects are visited and
+		// the remaining days of every employee, the most first
+		List<List<Summary>> summariesOfEmployees = new ArrayList<List<Summary>>(employeeCodes.size());
+		for (int i = 0; i < employeeCodes.size(); i++) {
+			summariesOfEmployees.add(new ArrayList<Summary>());
+		}
+		long[] remainingDays = new long[employeeCodes.size()];
+
+		for (int rank = 0; rank < summariesOfProjects.size(); rank++) {
+			for (Summary summary : summariesOfProjects.get(rank)) {
+				List<Summary> summariesOfEmployee = summariesOfEmployees.get(summary.employeeCode);
+				summary.rank = rank;
+				summary.position = summariesOfEmployee.size();
+				summariesOfEmployee.add(summary);
+				remainingDays[summary.employeeCode] += summary.weight;
+			}
+		}
+
+		// both employee codes and their remaining days, outdated entries are skipped
+		PriorityQueue<long[]> mostRemainingDays = new PriorityQueue<>(
+				(entry1, entry2) -> Long.compare(entry2[1], entry1[1]));
+		for (int employeeCode = 0; employeeCode < remainingDays.length; employeeCode++) {
+			mostRemainingDays.add(new long[] { employeeCode, remainingDays[employeeCode] });
+		}
+
+		// both employee ids and the days, the pair with the fewest days (and the
+		// highest ids) is the head of the queue
+		PriorityQueue<int[]> topPairs = new PriorityQueue<>(
+				(pair1, pair2) -> EmployeeProcessing.compareRanking(pair2, pair1));
+		long evaluated = 0;
+		long pruned = 0;
+		long withoutCommonDays = 0;
+		int rank = 0;
+
+		for (; rank < summariesOfProjects.size(); rank++) {
+
+			// no pair looked at from now on has more days than the second most
+			// remaining days of any employee
+			if (topPairs.size() == k
+					&& findSecondMostRemainingDays(mostRemainingDays, remainingDays) < topPairs.peek()[2]) {
+				break;
+			}
+
+			Summary[] summaries = summariesOfProjects.get(rank);
+			for (int i = 0; i < summaries.length; i++) {
+				for (int j = i + 1; j < summaries.length; j++) {
+
+					List<Summary> summaries1 = summariesOfEmployees.get(summaries[i].employeeCode);
+					List<Summary> summaries2 = summariesOfEmployees.get(summaries[j].employeeCode);
+
+					// looked at on an earlier project already
+					if (haveCommonProject(summaries1, summaries[i].position, summaries2, summaries[j].position)) {
+						continue;
+					}
+
+					int empl1ID = Math.min(employeeCodes.decode(summaries[i].employeeCode),
+							employeeCodes.decode(summaries[j].employeeCode));
+					int empl2ID = Math.max(employeeCodes.decode(summaries[i].employeeCode),
+							employeeCodes.decode(summaries[j].employeeCode));
+					long bound = Math.min(remainingDays[summaries[i].employeeCode],
+							remainingDays[summaries[j].employeeCode]);
+
+					if (topPairs.size() == k && !EmployeeProcessing.ranksHigher(empl1ID, empl2ID,
+							(int) Math.min(bound, Integer.MAX_VALUE), topPairs.peek())) {
+						pruned++;
+						continue;
+					}
+
+					evaluated++;
+					int days = (int) computeDays(summaries1, summaries[i].position, summaries2,
+							summaries[j].position);
+					if (days == 0) {
+						withoutCommonDays++;
+					} else if (topPairs.size() < k) {
+						topPairs.add(new int[] { empl1ID, empl2ID, days });
+					} else if (EmployeeProcessing.ranksHigher(empl1ID, empl2ID, days, topPairs.peek())) {
+						topPairs.poll();
+						topPairs.add(new int[] { empl1ID, empl2ID, days });
+					}
+				}
+			}
+
+			for (Summary summary : summaries) {
+				remainingDays[summary.employeeCode] -= summary.weight;
+				mostRemainingDays.add(new long[] { summary.employeeCode, remainingDays[summary.employeeCode] });
+			}
+		}
+
+		List<int[]> rankedPairs = new ArrayList<>(topPairs);
+		rankedPairs.sort(EmployeeProcessing::compareRanking);
+
+		int skippedProjects = summariesOfProjects.size() - rank;
+		logger.info("Computed the days of " + evaluated + " pairs (" + withoutCommonDays + " without common days), "
+				+ "pruned " + pruned + " pairs and skipped " + skippedProjects + " of " + summariesOfProjects.size()
+				+ " projects in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+
+		return new BoundedPairSearch(EmployeeProcessing.toPairArrays(rankedPairs, employees, projectCodes),
+				evaluated, pruned, withoutCommonDays, skippedProjects);
+	}
+
+	/**
+	 * @return array holding both employee ids (the smaller one first), project ids
+	 *         and the work period in days of every pair, the longest first
+	 */
+	public List<String[]> getTopPairs() {
+		return this.topPairs;
+	}
+
+	/**
+	 * @return the number of pairs, whose days have been computed
+	 */
+	public long getEvaluated() {
+		return this.evaluated;
+	}
+
+	/**
+	 * @return the number of pairs skipped by their bound without computing their
+	 *         days
+	 */
+	public long getPruned() {
+		return this.pruned;
+	}
+
+	/**
+	 * @return the number of pairs, whose days have been computed, but who have no
+	 *         common day on their common projects
+	 */
+	public long getWithoutCommonDays() {
+		return this.withoutCommonDays;
+	}
+
+	/**
+	 * @return the number of projects not visited, since none of their pairs could
+	 *         be among the pairs found
+	 */
+	public int getSkippedProjects() {
+		return this.skippedProjects;
+	}
+
+	/**
+	 * Groups the assignments of a project by employee.
+	 */
+	private static Summary[] summarize(final ProjectAssignments project) {
+
+		LinkedHashMap<Integer, List<Integer>> rowsOfEmployees = new LinkedHashMap<>();
+		for (int i = 0; i < project.size(); i++) {
+			rowsOfEmployees.computeIfAbsent(project.getEmployeeID(i), employeeCode -> new ArrayList<Integer>())
+					.add(i);
+		}
+
+		Summary[] summaries = new Summary[rowsOfEmployees.size()];
+		int maxDepth = 0;
+		int index = 0;
+		for (List<Integer> rows : rowsOfEmployees.values()) {
+
+			int[] startDays = new int[rows.size()];
+			int[] endDays = new int[rows.size()];
+			for (int i = 0; i < rows.size(); i++) {
+				startDays[i] = project.getStartDay(rows.get(i));
+				endDays[i] = project.getEndDay(rows.get(i));
+			}
+			summaries[index] = new Summary(project.getEmployeeID(rows.get(0)), startDays, endDays);
+			maxDepth = Math.max(maxDepth, summaries[index++].depth);
+		}
+
+		// the days of an employee together with any other one on the project
+		for (Summary summary : summaries) {
+			summary.weight = summary.days * maxDepth;
+		}
+		Arrays.sort(summaries, (summary1, summary2) -> Long.compare(summary2.weight, summary1.weight));
+		return summaries;
+	}
+
+	/**
+	 * @return the days of the second longest assigned employee of a project, the
+	 *         most any pair can have on it
+	 */
+	private static long getPotential(final Summary[] summariesByWeight) {
+		return summariesByWeight.length < 2 ? 0 : summariesByWeight[1].weight;
+	}
+
+	/**
+	 * @return the second most remaining days of all employees, outdated entries
+	 *         are removed on the way
+	 */
+	private static long findSecondMostRemainingDays(final PriorityQueue<long[]> mostRemainingDays,
+			final long[] remainingDays) {
+
+		removeOutdated(mostRemainingDays, remainingDays);
+		long[] most = mostRemainingDays.poll();
+		if (most == null) {
+			return 0;
+		}
+
+		removeOutdated(mostRemainingDays, remainingDays);
+		long secondMost = mostRemainingDays.isEmpty() ? 0 : mostRemainingDays.peek()[1];
+		mostRemainingDays.add(most);
+		return secondMost;
+	}
+
+	private static void removeOutdated(final PriorityQueue<long[]> mostRemainingDays, final long[] remainingDays) {
+
+		while (!mostRemainingDays.isEmpty()
+				&& mostRemainingDays.peek()[1] != remainingDays[(int) mostRemainingDays.peek()[0]]) {
+			mostRemainingDays.poll();
+		}
+	}
+
+	/**
+	 * @return true in case both employees have a common project visited before
+	 *         the projects at the given positions
+	 */
+	private static boolean haveCommonProject(final List<Summary> summaries1, final int end1,
+			final List<Summary> summaries2, final int end2) {
+
+		int i = 0;
+		int j = 0;
+		while (i < end1 && j < end2) {
+			int rank1 = summaries1.get(i).rank;
+			int rank2 = summaries2.get(j).rank;
+			if (rank1 == rank2) {
+				return true;
+			} else if (rank1 < rank2) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the days two employees have worked together on all common projects
+	 *         from the given positions on
+	 */
+	private static long computeDays(final List<Summary> summaries1, final int start1, final List<Summary> summaries2,
+			final int start2) {
+
+		long days = 0;
+		int i = start1;
+		int j = start2;
+		while (i < summaries1.size() && j < summaries2.size()) {
+
+			Summary summary1 = summaries1.get(i);
+			Summary summary2 = summaries2.get(j);
+
+			if (summary1.rank < summary2.rank) {
+				i++;
+			} else if (summary1.rank > summary2.rank) {
+				j++;
+			} else {
+				days += summary1.computeDays(summary2);
+				i++;
+				j++;
+			}
+		}
+		return days;
+	}
+
+	/**
+	 * The periods of an employee on a project together with the numbers bounding
+	 * the days worked together with others on it.
+	 */
+	private static class Summary {
+
+		private final int employeeCode;
+		private final int[] startDays;
+		private final int[] endDays;
+		private final long days;
+		// the number of periods overlapping on the same day at most
+		private final int depth;
+
+		// the days multiplied by the depth of the project
+		private long weight;
+		// the position of the project in the order visited and in the projects of
+		// the employee
+		private int rank;
+		private int position;
+
+		Summary(final int employeeCode, final int[] startDays, final int[] endDays) {
+
+			this.employeeCode = employeeCode;
+			this.startDays = startDays;
+			this.endDays = endDays;
+
+			long days = 0;
+			for (int i = 0; i < startDays.length; i++) {
+				days += endDays[i] - startDays[i] + 1;
+			}
+			this.days = days;
+			this.depth = startDays.length == 1 ? 1 : computeDepth(startDays, endDays);
+		}
+
+		/**
+		 * @return the days worked together with the other employee, every common
+		 *         working period counted like by the {@link OverlapEngine}s
+		 */
+		long computeDays(final Summary other) {
+
+			long days = 0;
+			for (int i = 0; i < this.startDays.length; i++) {
+				for (int j = 0; j < other.startDays.length; j++) {
+					days += Math.max(0, Math.min(this.endDays[i], other.endDays[j])
+							- Math.max(this.startDays[i], other.startDays[j]) + 1);
+				}
+			}
+			return days;
+		}
+
+		private static int computeDepth(final int[] startDays, final int[] endDays) {
+
+			int[] sortedStarts = startDays.clone();
+			int[] sortedEnds = endDays.clone();
+			Arrays.sort(sortedStarts);
+			Arrays.sort(sortedEnds);
+
+			// a period ending on a day still overlaps one starting on it
+			int depth = 0;
+			int maxDepth = 0;
+			int end = 0;
+			for (int start : sortedStarts) {
+				while (sortedEnds[end] < start) {
+					end++;
+					depth--;
+				}
+				maxDepth = Math.max(maxDepth, ++depth);
+			}
+			return maxDepth;
+		}
+	}
+}
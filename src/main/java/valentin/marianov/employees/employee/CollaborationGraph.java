@@ -0,0 +1,251 @@
+package valentin.marianov.employees.employee;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import valentin.marianov.employees.utility.IdDictionary;
+
+/**
+ * Graph of all employees, who have worked together, built once the pairs have
+ * been found. Every employee is a node, every pair an edge weighted with the
+ * days worked together and the number of common projects.
+ * <p>
+ * The graph is held in compressed sparse row form: the partners of the
+ * employee with code i (see {@link IdDictionary}) are found at the positions
+ * offsets[i] to offsets[i + 1] of the partner, days and project arrays. The
+ * partners of every employee are sorted by days worked together (on equal days
+ * by employee id), so the strongest partners are always the first ones and
+ * finding them does not need to look at any other employee.
+ * <p>
+ * The graph is not changed after it has been built, therefore it can be
+ * queried from several threads at the same time.
+ *
+ * @author Valentin
+ */
+public class CollaborationGraph {
+
+	private final IdDictionary employeeCodes;
+	private final int[] offsets;
+	private final int[] partners;
+	private final int[] days;
+	private final int[] commonProjects;
+
+	private CollaborationGraph(final IdDictionary employeeCodes, final int[] offsets, final int[] partners,
+			final int[] days, final int[] commonProjects) {
+		this.employeeCodes = employeeCodes;
+		this.offsets = offsets;
+		this.partners = partners;
+		this.days = days;
+		this.commonProjects = commonProjects;
+	}
+
+	/**
+	 * Builds the graph of the pairs found, which are stored for both employees.
+	 *
+	 * @param employeePairs - the pairs found
+	 * @return the graph
+	 *
+	 * @author Valentin
+	 */
+	public static CollaborationGraph build(final HashMap<Integer, EmployeePairs> employeePairs) {
+
+		IdDictionary employeeCodes = new IdDictionary(employeePairs.size());
+		int[] offsets = new int[employeePairs.size() + 1];
+
+		// the employees get their codes in the order of the map
+		for (EmployeePairs emplPairs : employeePairs.values()) {
+			int code = employeeCodes.encode(emplPairs.getEmployee1ID());
+			offsets[code + 1] = emplPairs.getEmployee2ID().size();
+		}
+		for (int code = 0; code < employeeCodes.size(); code++) {
+			offsets[code + 1] += offsets[code];
+		}
+
+		int[] partners = new int[offsets[employeeCodes.size()]];
+		int[] days = new int[partners.length];
+		int[] commonProjects = new int[partners.length];
+
+		for (EmployeePairs emplPairs : employeePairs.values()) {
+
+			int code = employeeCodes.lookup(emplPairs.getEmployee1ID());
+			int from = offsets[code];
+
+			for (int i = 0; i < emplPairs.getEmployee2ID().size(); i++) {
+
+				int totalDays = 0;
+				for (Integer daysWorked : emplPairs.getDaysWorkedTogetherOnCommonProject().get(i)) {
+					totalDays += daysWorked;
+				}
+
+				partners[from + i] = emplPairs.getEmployee2ID().get(i);
+				days[from + i] = totalDays;
+				commonProjects[from + i] = new HashSet<Integer>(emplPairs.getProjectID().get(i)).size();
+			}
+
+			sortPartners(partners, days, commonProjects, from, offsets[code + 1]);
+		}
+
+		// the partners are encoded once all employees have their codes
+		for (int i = 0; i < partners.length; i++) {
+			partners[i] = employeeCodes.lookup(partners[i]);
+		}
+
+		return new CollaborationGraph(employeeCodes, offsets, partners, days, commonProjects);
+	}
+
+	/**
+	 * Sorts the partners (still ids) of an employee by days, the most first, and
+	 * on equal days by id. Both sorts are done on primitive keys, the second one
+	 * holds the position of the partner in the order by id.
+	 */
+	private static void sortPartners(final int[] partners, final int[] days, final int[] commonProjects,
+			final int from, final int to) {
+
+		int count = to - from;
+		long[] byID = new long[count];
+		for (int i = 0; i < count; i++) {
+			byID[i] = ((long) partners[from + i] << 32) | i;
+		}
+		Arrays.sort(byID);
+
+		long[] byDays = new long[count];
+		for (int rank = 0; rank < count; rank++) {
+			int i = (int) byID[rank];
+			byDays[rank] = ((long) (Integer.MAX_VALUE - days[from + i]) << 32) | rank;
+		}
+		Arrays.sort(byDays);
+
+		int[] sortedPartners = new int[count];
+		int[] sortedDays = new int[count];
+		int[] sortedProjects = new int[count];
+		for (int rank = 0; rank < count; rank++) {
+			int i = (int) byID[(int) byDays[rank]];
+			sortedPartners[rank] = partners[from + i];
+			sortedDays[rank] = days[from + i];
+			sortedProjects[rank] = commonProjects[from + i];
+		}
+
+		System.arraycopy(sortedPartners, 0, partners, from, count);
+		System.arraycopy(sortedDays, 0, days, from, count);
+		System.arraycopy(sortedProjects, 0, commonProjects, from, count);
+	}
+
+	/**
+	 * @return the number of employees, who have worked together with at least one
+	 *         other employee
+	 */
+	public int getEmployeeCount() {
+		return this.employeeCodes.size();
+	}
+
+	/**
+	 * @param employeeID - the employee
+	 * @return the number of employees the given one has worked together with
+	 */
+	public int getDegree(final int employeeID) {
+
+		int code = this.employeeCodes.lookup(employeeID);
+		return code < 0 ? 0 : this.offsets[code + 1] - this.offsets[code];
+	}
+
+	/**
+	 * @param employeeID - the employee
+	 * @param n          - the maximum number of partners
+	 * @return the partners of the employee, the one with the most days first
+	 */
+	public List<Partner> findTopPartners(final int employeeID, final int n) {
+
+		List<Partner> topPartners = new ArrayList<Partner>();
+		int code = this.employeeCodes.lookup(employeeID);
+		if (code < 0) {
+			return topPartners;
+		}
+
+		int to = this.offsets[code] + Math.max(Math.min(this.offsets[code + 1] - this.offsets[code], n), 0);
+		for (int i = this.offsets[code]; i < to; i++) {
+			topPartners.add(toPartner(code, i));
+		}
+		return topPartners;
+	}
+
+	/**
+	 * Finds for every employee the partner with the most days worked together, in
+	 * a single pass over all employees.
+	 *
+	 * @return the strongest partner of every employee
+	 */
+	public List<Partner> findStrongestCollaborators() {
+
+		List<Partner> strongest = new ArrayList<Partner>(getEmployeeCount());
+		for (int code = 0; code < getEmployeeCount(); code++) {
+			if (this.offsets[code + 1] > this.offsets[code]) {
+				strongest.add(toPartner(code, this.offsets[code]));
+			}
+		}
+		return strongest;
+	}
+
+	/**
+	 * @return the number of employees by number of partners, i.e. the value at
+	 *         index d is the number of employees with d partners
+	 */
+	public int[] getDegreeDistribution() {
+
+		int maxDegree = 0;
+		for (int code = 0; code < getEmployeeCount(); code++) {
+			maxDegree = Math.max(maxDegree, this.offsets[code + 1] - this.offsets[code]);
+		}
+
+		int[] distribution = new int[maxDegree + 1];
+		for (int code = 0; code < getEmployeeCount(); code++) {
+			distribution[this.offsets[code + 1] - this.offsets[code]]++;
+		}
+		return distribution;
+	}
+
+	private Partner toPartner(final int code, final int index) {
+		return new Partner(this.employeeCodes.decode(code), this.employeeCodes.decode(this.partners[index]),
+				this.days[index], this.commonProjects[index]);
+	}
+
+	/**
+	 * An employee, who has worked together with another one.
+	 */
+	public static class Partner {
+
+		private final int employeeID;
+		private final int partnerID;
+		private final int daysWorkedTogether;
+		private final int commonProjects;
+
+		Partner(final int employeeID, final int partnerID, final int daysWorkedTogether,
+				final int commonProjects) {
+			this.employeeID = employeeID;
+			this.partnerID = partnerID;
+			this.daysWorkedTogether = daysWorkedTogether;
+			this.commonProjects = commonProjects;
+		}
+
+		public int getEmployeeID() {
+			return this.employeeID;
+		}
+
+		public int getPartnerID() {
+			return this.partnerID;
+		}
+
+		public int getDaysWorkedTogether() {
+			return this.daysWorkedTogether;
+		}
+
+		/**
+		 * @return the number of different projects both have worked on together
+		 */
+		public int getCommonProjects() {
+			return this.commonProjects;
+		}
+	}
+}
@@ -0,0 +1,425 @@
+package valentin.marianov.employees.employee;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.logging.Logger;
+
+import valentin.marianov.employees.utility.DateUtility;
+
+/**
+ * Compares an old and a new version of the data, e.g. the exports of two
+ * months, and finds the pairs, who have started or stopped working together or
+ * whose days have changed.
+ * <p>
+ * The assignments of both versions are sorted and merged in order to find the
+ * rows, which differ. Only the pairs of the projects with such rows are found
+ * again, for both versions. The days of these pairs on all other projects are
+ * the same in both versions, they are only computed for the pairs changed,
+ * from the rows of their two employees. Therefore the cost of finding the
+ * pairs depends on the size of the change and not on the size of the data.
+ * <p>
+ * The longest pair of the new version follows from the longest pair of the old
+ * one and the pairs changed. Only when the old longest pair has lost days, any
+ * other pair may have become the longest one, and the new version is searched
+ * completely.
+ *
+ * @author Valentin
+ */
+public class DatasetDiff {
+
+	private static Logger logger = Logger.getLogger("employees-logger");
+
+	private final List<PairChange> changes;
+	private final PairChange oldLongestPair;
+	private final PairChange newLongestPair;
+	private final int changedRows;
+	private final int affectedProjects;
+
+	private DatasetDiff(final List<PairChange> changes, final PairChange oldLongestPair,
+			final PairChange newLongestPair, final int changedRows, final int affectedProjects) {
+		this.changes = changes;
+		this.oldLongestPair = oldLongestPair;
+		this.newLongestPair = newLongestPair;
+		this.changedRows = changedRows;
+		this.affectedProjects = affectedProjects;
+	}
+
+	/**
+	 * Compares both versions of the data.
+	 *
+	 * @param oldEmployees   - the employees of the old version
+	 * @param newEmployees   - the employees of the new version
+	 * @param oldLongestPair - both employee ids and the days of the longest pair of
+	 *                       the old version, e.g. kept from the last comparison;
+	 *                       null in order to search the old version for it
+	 * @return the pairs changed and the longest pair of both versions
+	 *
+	 * @author Valentin
+	 */
+	public static DatasetDiff compare(final List<Employee> oldEmployees, final List<Employee> newEmployees,
+			final int[] oldLongestPair) {
+
+		long start = System.nanoTime();
+
+		Row[] oldRows = toSortedRows(oldEmployees);
+		Row[] newRows = toSortedRows(newEmployees);
+
+		// merge both versions, any row found in only one of them changes its project
+		HashSet<Integer> affectedProjects = new HashSet<Integer>();
+		int changedRows = 0;
+		int i = 0;
+		int j = 0;
+		while (i < oldRows.length || j < newRows.length) {
+
+			int comparison = i == oldRows.length ? 1
+					: j == newRows.length ? -1 : oldRows[i].compareTo(newRows[j]);
+
+			if (comparison == 0) {
+				i++;
+				j++;
+			} else if (comparison < 0) {
+				affectedProjects.add(oldRows[i++].projectID);
+				changedRows++;
+			} else {
+				affectedProjects.add(newRows[j++].projectID);
+				changedRows++;
+			}
+		}
+
+		// the days of the pairs on the affected projects only
+		HashMap<Long, Integer> oldDaysOnAffected = findPairsOnProjects(oldRows, affectedProjects);
+		HashMap<Long, Integer> newDaysOnAffected = findPairsOnProjects(newRows, affectedProjects);
+
+		HashSet<Long> changedPairs = new HashSet<Long>();
+		for (Entry<Long, Integer> pair : oldDaysOnAffected.entrySet()) {
+			if (!pair.getValue().equals(newDaysOnAffected.get(pair.getKey()))) {
+				changedPairs.add(pair.getKey());
+			}
+		}
+		for (Entry<Long, Integer> pair : newDaysOnAffected.entrySet()) {
+			if (!pair.getValue().equals(oldDaysOnAffected.get(pair.getKey()))) {
+				changedPairs.add(pair.getKey());
+			}
+		}
+
+		// the days on the other projects are the same in both versions
+		HashMap<Integer, List<Row>> rowsOfEmployees = findRowsOfEmployees(newRows, changedPairs);
+
+		List<PairChange> changes = new ArrayList<PairChange>();
+		for (Long pairKey : changedPairs) {
+
+			int empl1ID = ExternalPairAggregator.getEmployee1ID(pairKey);
+			int empl2ID = ExternalPairAggregator.getEmployee2ID(pairKey);
+			int unchangedDays = computeDaysOnOtherProjects(rowsOfEmployees.get(empl1ID),
+					rowsOfEmployees.get(empl2ID), affectedProjects);
+
+			changes.add(new PairChange(empl1ID, empl2ID,
+					unchangedDays + oldDaysOnAffected.getOrDefault(pairKey, 0),
+					unchangedDays + newDaysOnAffected.getOrDefault(pairKey, 0)));
+		}
+		changes.sort(DatasetDiff::compareRanking);
+
+		int[] oldLongest = oldLongestPair != null ? oldLongestPair : findLongestPair(oldEmployees);
+		PairChange oldLongestChange = findChange(changes, oldLongest);
+		PairChange newLongestChange = findNewLongestPair(changes, oldLongest, oldLongestChange, newEmployees);
+
+		logger.info("Found " + changes.size() + " changed pairs on " + affectedProjects.size()
+				+ " projects with " + changedRows + " changed rows in " + (System.nanoTime() - start) / 1_000_000
+				+ " ms.");
+
+		return new DatasetDiff(changes, oldLongestChange, newLongestChange, changedRows, affectedProjects.size());
+	}
+
+	/**
+	 * @return all pairs changed, the one with the most days in the new version
+	 *         first
+	 */
+	public List<PairChange> getChanges() {
+		return this.changes;
+	}
+
+	/**
+	 * @return the pairs, who have worked together only in the new version
+	 */
+	public List<PairChange> getAddedPairs() {
+
+		List<PairChange> added = new ArrayList<PairChange>();
+		for (PairChange change : this.changes) {
+			if (change.isAdded()) {
+				added.add(change);
+			}
+		}
+		return added;
+	}
+
+	/**
+	 * @return the pairs, who have worked together only in the old version
+	 */
+	public List<PairChange> getRemovedPairs() {
+
+		List<PairChange> removed = new ArrayList<PairChange>();
+		for (PairChange change : this.changes) {
+			if (change.isRemoved()) {
+				removed.add(change);
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * @return the pairs, who have worked together in both versions, but not for
+	 *         the same days
+	 */
+	public List<PairChange> getChangedPairs() {
+
+		List<PairChange> changed = new ArrayList<PairChange>();
+		for (PairChange change : this.changes) {
+			if (!change.isAdded() && !change.isRemoved()) {
+				changed.add(change);
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * @return the longest pair of the old version with its days in both versions,
+	 *         null in case there was no pair
+	 */
+	public PairChange getOldLongestPair() {
+		return this.oldLongestPair;
+	}
+
+	/**
+	 * @return the longest pair of the new version with its days in both versions,
+	 *         null in case there is no pair
+	 */
+	public PairChange getNewLongestPair() {
+		return this.newLongestPair;
+	}
+
+	/**
+	 * @return true in case the longest pair is another one or has another number
+	 *         of days in the new version
+	 */
+	public boolean isLongestPairChanged() {
+
+		if (this.oldLongestPair == null || this.newLongestPair == null) {
+			return this.oldLongestPair != this.newLongestPair;
+		}
+		return this.oldLongestPair.getEmployee1ID() != this.newLongestPair.getEmployee1ID()
+				|| this.oldLongestPair.getEmployee2ID() != this.newLongestPair.getEmployee2ID()
+				|| this.oldLongestPair.getOldDays() != this.newLongestPair.getNewDays();
+	}
+
+	/**
+	 * @return the number of rows found in only one of the versions
+	 */
+	public int getChangedRows() {
+		return this.changedRows;
+	}
+
+	/**
+	 * @return the number of projects, whose pairs have been found again
+	 */
+	public int getAffectedProjects() {
+		return this.affectedProjects;
+	}
+
+	private static Row[] toSortedRows(final List<Employee> employees) {
+
+		List<Row> rows = new ArrayList<Row>();
+		for (Employee employee : employees) {
+			for (int i = 0; i < employee.getListSize(); i++) {
+				rows.add(new Row(employee.getProjectId(i), employee.getEmployeeId(),
+						DateUtility.toEpochDay(employee.getStartDate(i)),
+						DateUtility.toEpochDay(employee.getEndDate(i))));
+			}
+		}
+
+		Row[] sortedRows = rows.toArray(new Row[rows.size()]);
+		Arrays.sort(sortedRows);
+		return sortedRows;
+	}
+
+	/**
+	 * Finds the pairs of the given projects, the rows are sorted by project.
+	 *
+	 * @return the days of every pair (see {@link ExternalPairAggregator#toPairKey})
+	 *         on all of the projects together
+	 */
+	private static HashMap<Long, Integer> findPairsOnProjects(final Row[] rows,
+			final HashSet<Integer> projectIDs) {
+
+		HashMap<Long, Integer> days = new HashMap<Long, Integer>();
+		ProjectAssignments project = null;
+
+		for (int i = 0; i <= rows.length; i++) {
+
+			// the project is complete
+			if (project != null && (i == rows.length || rows[i].projectID != project.getProjectID())) {
+				OverlapEngines.forProject(project).findPairs(project, (empl1ID, empl2ID, projectID,
+						overlapInDays) -> days.merge(ExternalPairAggregator.toPairKey(empl1ID, empl2ID),
+								overlapInDays, Integer::sum));
+				project = null;
+			}
+
+			if (i < rows.length && projectIDs.contains(rows[i].projectID)) {
+				if (project == null) {
+					project = new ProjectAssignments(rows[i].projectID);
+				}
+				project.add(rows[i].employeeID, rows[i].startDay, rows[i].endDay);
+			}
+		}
+		return days;
+	}
+
+	/**
+	 * @return the rows of the employees of the given pairs, by employee
+	 */
+	private static HashMap<Integer, List<Row>> findRowsOfEmployees(final Row[] rows, final HashSet<Long> pairs) {
+
+		HashMap<Integer, List<Row>> rowsOfEmployees = new HashMap<Integer, List<Row>>();
+		for (Long pairKey : pairs) {
+			rowsOfEmployees.put(ExternalPairAggregator.getEmployee1ID(pairKey), new ArrayList<Row>());
+			rowsOfEmployees.put(ExternalPairAggregator.getEmployee2ID(pairKey), new ArrayList<Row>());
+		}
+
+		for (Row row : rows) {
+			List<Row> rowsOfEmployee = rowsOfEmployees.get(row.employeeID);
+			if (rowsOfEmployee != null) {
+				rowsOfEmployee.add(row);
+			}
+		}
+		return rowsOfEmployees;
+	}
+
+	/**
+	 * @return the days both employees have worked together on the projects not
+	 *         affected by the change
+	 */
+	private static int computeDaysOnOtherProjects(final List<Row> rows1, final List<Row> rows2,
+			final HashSet<Integer> affectedProjects) {
+
+		int days = 0;
+		for (Row row1 : rows1) {
+			if (affectedProjects.contains(row1.projectID)) {
+				continue;
+			}
+			for (Row row2 : rows2) {
+				if (row1.projectID == row2.projectID) {
+					days += Math.max(0,
+							Math.min(row1.endDay, row2.endDay) - Math.max(row1.startDay, row2.startDay) + 1);
+				}
+			}
+		}
+		return days;
+	}
+
+	/**
+	 * @return both employee ids and the days of the longest pair, null in case
+	 *         there is no pair
+	 */
+	private static int[] findLongestPair(final List<Employee> employees) {
+
+		List<String[]> longest = EmployeeProcessing.findTopWorkingEmployeePairs(employees, 1);
+		if (longest.isEmpty()) {
+			return null;
+		}
+		return new int[] { Integer.parseInt(longest.get(0)[0]), Integer.parseInt(longest.get(0)[1]),
+				Integer.parseInt(longest.get(0)[3]) };
+	}
+
+	/**
+	 * @return the change of the given pair, which has the same days in both
+	 *         versions when not changed; null for no pair
+	 */
+	private static PairChange findChange(final List<PairChange> changes, final int[] pair) {
+
+		if (pair == null) {
+			return null;
+		}
+
+		int empl1ID = Math.min(pair[0], pair[1]);
+		int empl2ID = Math.max(pair[0], pair[1]);
+		for (PairChange change : changes) {
+			if (change.getEmployee1ID() == empl1ID && change.getEmployee2ID() == empl2ID) {
+				return change;
+			}
+		}
+		return new PairChange(empl1ID, empl2ID, pair[2], pair[2]);
+	}
+
+	private static PairChange findNewLongestPair(final List<PairChange> changes, final int[] oldLongest,
+			final PairChange oldLongestChange, final List<Employee> newEmployees) {
+
+		// any unchanged pair may rank higher than the old longest one now
+		if (oldLongestChange != null && oldLongestChange.getNewDays() < oldLongestChange.getOldDays()) {
+			return findChange(changes, findLongestPair(newEmployees));
+		}
+
+		// the old longest pair still ranks higher than all unchanged pairs, the
+		// changes are sorted by their new days
+		PairChange longest = oldLongestChange;
+		if (!changes.isEmpty() && changes.get(0).getNewDays() > 0 && (longest == null
+				|| ranksHigher(changes.get(0), longest))) {
+			longest = changes.get(0);
+		}
+		return longest;
+	}
+
+	/**
+	 * @return true in case the first pair has more days in the new version than the
+	 *         second one, on equal days smaller employee ids
+	 */
+	private static boolean ranksHigher(final PairChange change, final PairChange other) {
+		return compareRanking(change, other) < 0;
+	}
+
+	/**
+	 * Orders the changes by the rank of their pairs in the new version, see
+	 * {@link EmployeeProcessing#compareRanking(int[], int[])}.
+	 */
+	private static int compareRanking(final PairChange change, final PairChange other) {
+		return EmployeeProcessing.compareRanking(change.getEmployee1ID(), change.getEmployee2ID(),
+				change.getNewDays(), other.getEmployee1ID(), other.getEmployee2ID(), other.getNewDays());
+	}
+
+	/**
+	 * An assignment of an employee to a project, sorted by project, employee and
+	 * period.
+	 */
+	private static class Row implements Comparable<Row> {
+
+		private final int projectID;
+		private final int employeeID;
+		private final int startDay;
+		private final int endDay;
+
+		Row(final int projectID, final int employeeID, final int startDay, final int endDay) {
+			this.projectID = projectID;
+			this.employeeID = employeeID;
+			this.startDay = startDay;
+			this.endDay = endDay;
+		}
+
+		@Override
+		public int compareTo(final Row other) {
+
+			int result = Integer.compare(this.projectID, other.projectID);
+			if (result == 0) {
+				result = Integer.compare(this.employeeID, other.employeeID);
+			}
+			if (result == 0) {
+				result = Integer.compare(this.startDay, other.startDay);
+			}
+			if (result == 0) {
+				result = Integer.compare(this.endDay, other.endDay);
+			}
+			return result;
+		}
+	}
+}
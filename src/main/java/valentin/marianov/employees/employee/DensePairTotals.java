@@ -0,0 +1,196 @@
+package valentin.marianov.employees.employee;
+
+import java.util.Arrays;
+
+/**
+ * Sums up the days worked together of every pair of employees, identified by
+ * their dense codes 0..n-1 (see
+ * {@link valentin.marianov.employees.utility.IdDictionary}) instead of their
+ * ids.
+ * <p>
+ * As long as the number of employees is small enough, the totals are held in a
+ * triangular matrix, i.e. a single int array with one cell per pair, so adding
+ * the days of a pair is a single array access. Otherwise they are held in an
+ * open addressing hash table of primitive pair keys, which only needs memory
+ * for the pairs actually found.
+ *
+ * @author Valentin
+ */
+public class DensePairTotals implements PairCollector {
+
+	// 64 MB
+	static final long DEFAULT_MAX_MATRIX_CELLS = 1L << 24;
+
+	private static final long EMPTY = -1L;
+
+	private final int employeeCount;
+
+	// triangular matrix, the pair (i, j) with i < j is held in cell j * (j - 1) / 2 + i
+	private final int[] matrix;
+
+	// hash table of pair keys and their days, in case the matrix would be too big
+	private long[] keys;
+	private int[] days;
+	private int size;
+
+	/**
+	 * @param employeeCount - the number of employee codes
+	 */
+	public DensePairTotals(final int employeeCount) {
+		this(employeeCount, DEFAULT_MAX_MATRIX_CELLS);
+	}
+
+	/**
+	 * @param employeeCount  - the number of employee codes
+	 * @param maxMatrixCells - the maximum number of cells of the matrix, otherwise
+	 *                       a hash table is used
+	 */
+	public DensePairTotals(final int employeeCount, final long maxMatrixCells) {
+
+		this.employeeCount = employeeCount;
+		long cells = (long) employeeCount * (employeeCount - 1) / 2;
+
+		if (cells <= Math.min(maxMatrixCells, Integer.MAX_VALUE - 8)) {
+			this.matrix = new int[(int) cells];
+		} else {
+			this.matrix = null;
+			this.keys = new long[1024];
+			this.days = new int[1024];
+			Arrays.fill(this.keys, EMPTY);
+		}
+	}
+
+	/**
+	 * @return true in case the totals are held in a triangular matrix
+	 */
+	public boolean isMatrix() {
+		return this.matrix != null;
+	}
+
+	public int getEmployeeCount() {
+		return this.employeeCount;
+	}
+
+	/**
+	 * Adds the days of a common working period of two employees, identified by
+	 * their codes.
+	 */
+	@Override
+	public void collect(int employee1Code, int employee2Code, int projectID, int daysWorkedTogether) {
+
+		int first = Math.min(employee1Code, employee2Code);
+		int second = Math.max(employee1Code, employee2Code);
+
+		if (this.matrix != null) {
+			this.matrix[cellOf(first, second)] += daysWorkedTogether;
+		} else {
+			int slot = findSlot(((long) first << 32) | second);
+			if (this.keys[slot] == EMPTY) {
+				this.keys[slot] = ((long) first << 32) | second;
+				this.size++;
+			}
+			this.days[slot] += daysWorkedTogether;
+
+			// keep the table at most half full
+			if (this.size * 2 > this.keys.length) {
+				rehash();
+			}
+		}
+	}
+
+	/**
+	 * @return the total days worked together of the two employees, identified by
+	 *         their codes
+	 */
+	public int get(final int employee1Code, final int employee2Code) {
+
+		int first = Math.min(employee1Code, employee2Code);
+		int second = Math.max(employee1Code, employee2Code);
+
+		if (this.matrix != null) {
+			return this.matrix[cellOf(first, second)];
+		}
+		int slot = findSlot(((long) first << 32) | second);
+		return this.keys[slot] == EMPTY ? 0 : this.days[slot];
+	}
+
+	/**
+	 * Adds the totals of the other pairs, e.g. found on other projects, to these
+	 * totals. Both have to use the same employee codes.
+	 *
+	 * @param other - the totals to add
+	 */
+	public void addAll(final DensePairTotals other) {
+		other.forEach((employee1Code, employee2Code, totalDays) -> collect(employee1Code, employee2Code, -1,
+				totalDays));
+	}
+
+	/**
+	 * Reports every pair, who has worked together, with its total days.
+	 *
+	 * @param visitor - receives the codes of both employees (the smaller one
+	 *                first) and their days
+	 */
+	public void forEach(final Visitor visitor) {
+
+		if (this.matrix != null) {
+			int cell = 0;
+			for (int second = 1; second < this.employeeCount; second++) {
+				for (int first = 0; first < second; first++, cell++) {
+					if (this.matrix[cell] > 0) {
+						visitor.visit(first, second, this.matrix[cell]);
+					}
+				}
+			}
+			return;
+		}
+
+		for (int slot = 0; slot < this.keys.length; slot++) {
+			if (this.keys[slot] != EMPTY && this.days[slot] > 0) {
+				visitor.visit((int) (this.keys[slot] >>> 32), (int) this.keys[slot], this.days[slot]);
+			}
+		}
+	}
+
+	private static int cellOf(final int first, final int second) {
+		return (int) ((long) second * (second - 1) / 2) + first;
+	}
+
+	private int findSlot(final long key) {
+
+		int mask = this.keys.length - 1;
+		long hash = key * 0x9E3779B97F4A7C15L;
+		int slot = (int) (hash ^ (hash >>> 32)) & mask;
+
+		while (this.keys[slot] != EMPTY && this.keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash() {
+
+		long[] oldKeys = this.keys;
+		int[] oldDays = this.days;
+
+		this.keys = new long[oldKeys.length * 2];
+		this.days = new int[oldKeys.length * 2];
+		Arrays.fill(this.keys, EMPTY);
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int slot = findSlot(oldKeys[i]);
+				this.keys[slot] = oldKeys[i];
+				this.days[slot] = oldDays[i];
+			}
+		}
+	}
+
+	/**
+	 * Receives the total days of a pair of employees, identified by their codes.
+	 */
+	@FunctionalInterface
+	public interface Visitor {
+		void visit(int employee1Code, int employee2Code, int totalDaysWorkedTogether);
+	}
+}
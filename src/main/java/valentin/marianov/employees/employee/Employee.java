@@ -1,8 +1,12 @@
 package valentin.marianov.employees.employee;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 
+import valentin.marianov.employees.utility.DateUtility;
+
 /**
  * Holds the data about every project a given employee has participated in
  * together with the begin and end period of work.
@@ -58,5 +62,70 @@ public class Employee {
 	public void addEndDate(final Date val) {
 		this.endDates.add(val);
 	}
+	
+	/**
+	 * Merges all overlapping or adjacent periods of work on the same project into
+	 * a single period. The projects keep the order in which they have been added.
+	 * 
+	 * @return the number of periods merged into others
+	 * 
+	 * @author Valentin
+	 */
+	public int coalesceProjects() {
+		
+		int rows = getListSize();
+		
+		// group the periods by project in the order the projects have been added
+		LinkedHashMap<Integer, List<Integer>> rowsByProject = new LinkedHashMap<>();
+		for (int i = 0; i < rows; i++) {
+			rowsByProject.computeIfAbsent(this.projectIds.get(i), project -> new ArrayList<>()).add(i);
+		}
+		
+		// every project has a single period only
+		if (rowsByProject.size() == rows) {
+			return 0;
+		}
+		
+		List<Integer> mergedProjectIds = new ArrayList<Integer>(rowsByProject.size());
+		List<Date> mergedStartDates = new ArrayList<Date>(rowsByProject.size());
+		List<Date> mergedEndDates = new ArrayList<Date>(rowsByProject.size());
+		
+		for (List<Integer> projectRows : rowsByProject.values()) {
+			
+			projectRows.sort(Comparator.comparing(this.startDates::get));
+			
+			Date start = this.startDates.get(projectRows.get(0));
+			Date end = this.endDates.get(projectRows.get(0));
+			
+			for (int i = 1; i < projectRows.size(); i++) {
+				
+				Date nextStart = this.startDates.get(projectRows.get(i));
+				Date nextEnd = this.endDates.get(projectRows.get(i));
+				
+				// the next period starts at the latest one day after the current one ends
+				if (DateUtility.toEpochDay(nextStart) <= DateUtility.toEpochDay(end) + 1) {
+					if (nextEnd.after(end)) {
+						end = nextEnd;
+					}
+				} else {
+					mergedProjectIds.add(this.projectIds.get(projectRows.get(0)));
+					mergedStartDates.add(start);
+					mergedEndDates.add(end);
+					start = nextStart;
+					end = nextEnd;
+				}
+			}
+			
+			mergedProjectIds.add(this.projectIds.get(projectRows.get(0)));
+			mergedStartDates.add(start);
+			mergedEndDates.add(end);
+		}
+		
+		this.projectIds = mergedProjectIds;
+		this.startDates = mergedStartDates;
+		this.endDates = mergedEndDates;
+		
+		return rows - getListSize();
+	}
 	 
 };
\ No newline at end of file
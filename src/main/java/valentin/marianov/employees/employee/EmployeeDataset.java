@@ -0,0 +1,179 @@
+package valentin.marianov.employees.employee;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.logging.Logger;
+
+import valentin.marianov.employees.utility.DateUtility;
+
+/**
+ * Holds the employees of a file together with their assignments grouped by
+ * project and all pairs found, so that different questions about the pairs can
+ * be answered without processing the file again.
+ * <p>
+ * A dataset is not changed after it has been loaded, therefore it can be queried
+ * from several threads at the same time.
+ *
+ * @author Valentin
+ */
+public class EmployeeDataset {
+
+	private static Logger logger = Logger.getLogger("employees-logger");
+
+	private final List<Employee> employees;
+	private final LinkedHashMap<Integer, ProjectAssignments> projects;
+	private final HashMap<Integer, EmployeePairs> employeePairs;
+	private final CollaborationGraph collaborationGraph;
+	private final HashMap<Integer, HeadcountTimeline> headcountTimelines;
+	private final HeadcountTimeline companyHeadcountTimeline;
+
+	public EmployeeDataset(final List<Employee> employees) {
+		this.employees = Collections.unmodifiableList(employees);
+		this.projects = ProjectAssignments.indexByProject(employees);
+		this.employeePairs = EmployeeProcessing.findAllEmployeePairs(this.projects.values());
+		this.collaborationGraph = CollaborationGraph.build(this.employeePairs);
+
+		// from the same assignments as the pairs, without reading the file again
+		this.headcountTimelines = new HashMap<>();
+		for (ProjectAssignments project : this.projects.values()) {
+			this.headcountTimelines.put(project.getProjectID(), HeadcountTimeline.ofProject(project));
+		}
+		this.companyHeadcountTimeline = HeadcountTimeline.ofCompany(this.projects.values());
+	}
+
+	/**
+	 * Reads the employees of a file and finds all pairs.
+	 *
+	 * @param file      - list with csv separated values in the form EmployeeID,
+	 *                  ProjectID, Start Date, EndDate
+	 * @param isTesting - set to true in order to disable pop-up messages
+	 * @return the dataset, without any employees in case the file could not be
+	 *         processed
+	 *
+	 * @author Valentin
+	 */
+	public static EmployeeDataset load(final File file, final boolean isTesting) {
+
+		long start = System.nanoTime();
+		EmployeeDataset dataset = new EmployeeDataset(
+				EmployeeProcessing.processEmployeesAndTheirProjects(file, isTesting));
+
+		logger.info("Loaded " + dataset.employees.size() + " employees, " + dataset.projects.size() + " projects and "
+				+ dataset.employeePairs.size() + " employees with pairs from " + file.getName() + " in "
+				+ (System.nanoTime() - start) / 1_000_000 + " ms.");
+		return dataset;
+	}
+
+	public List<Employee> getEmployees() {
+		return this.employees;
+	}
+
+	public LinkedHashMap<Integer, ProjectAssignments> getProjects() {
+		return this.projects;
+	}
+
+	public HashMap<Integer, EmployeePairs> getEmployeePairs() {
+		return this.employeePairs;
+	}
+
+	public CollaborationGraph getCollaborationGraph() {
+		return this.collaborationGraph;
+	}
+
+	/**
+	 * @param projectID - the project
+	 * @return the number of employees working on the project on every day, null
+	 *         for an unknown project
+	 */
+	public HeadcountTimeline getHeadcountTimeline(final int projectID) {
+		return this.headcountTimelines.get(projectID);
+	}
+
+	/**
+	 * @return the number of employees working on any project on every day
+	 */
+	public HeadcountTimeline getCompanyHeadcountTimeline() {
+		return this.companyHeadcountTimeline;
+	}
+
+	/**
+	 * @return array holding both employee ids, project ids and the work period in
+	 *         days of the pair with the most days worked together
+	 */
+	public String[] findLongestWorkingEmployeePair() {
+		return EmployeeProcessing.findLongestWorkingEmployeePair(this.employeePairs);
+	}
+
+	/**
+	 * @param k - the maximum number of pairs
+	 * @return the pairs with the most days worked together, the longest first
+	 */
+	public List<String[]> findTopWorkingEmployeePairs(final int k) {
+		return EmployeeProcessing.findTopWorkingEmployeePairs(this.employeePairs, k);
+	}
+
+	/**
+	 * Finds all employees, who have worked together with the given employee.
+	 *
+	 * @param employeeID - the employee
+	 * @return the pairs of the employee, the one with the most days first
+	 *
+	 * @author Valentin
+	 */
+	public List<String[]> findPartners(final int employeeID) {
+
+		EmployeePairs emplPairs = this.employeePairs.get(employeeID);
+		List<String[]> partners = new ArrayList<String[]>();
+
+		if (emplPairs == null) {
+			return partners;
+		}
+
+		for (int i = 0; i < emplPairs.getEmployee2ID().size(); i++) {
+			partners.add(EmployeeProcessing.toPairArray(emplPairs, i));
+		}
+		partners.sort((pair1, pair2) -> Integer.compare(Integer.parseInt(pair2[3]), Integer.parseInt(pair1[3])));
+		return partners;
+	}
+
+	/**
+	 * Finds all pairs, who have worked together on a project within the given
+	 * period. Only the days within the period are counted.
+	 *
+	 * @param projectID - the project
+	 * @param from      - first day of the period
+	 * @param to        - last day of the period (inclusive)
+	 * @return the pairs of the project, the one with the most days first
+	 *
+	 * @author Valentin
+	 */
+	public List<String[]> findPairsOnProject(final int projectID, final Date from, final Date to) {
+
+		ProjectAssignments project = this.projects.get(projectID);
+		if (project == null) {
+			return new ArrayList<String[]>();
+		}
+
+		int fromDay = DateUtility.toEpochDay(from);
+		int toDay = DateUtility.toEpochDay(to);
+
+		// cut every assignment to the period
+		ProjectAssignments projectInPeriod = new ProjectAssignments(projectID);
+		for (int i = 0; i < project.size(); i++) {
+			int startDay = Math.max(project.getStartDay(i), fromDay);
+			int endDay = Math.min(project.getEndDay(i), toDay);
+			if (startDay <= endDay) {
+				projectInPeriod.add(project.getEmployeeID(i), startDay, endDay);
+			}
+		}
+
+		HashMap<Integer, EmployeePairs> pairsInPeriod = EmployeeProcessing
+				.findAllEmployeePairs(Collections.singletonList(projectInPeriod));
+		return EmployeeProcessing.findTopWorkingEmployeePairs(pairsInPeriod, Integer.MAX_VALUE);
+	}
+}
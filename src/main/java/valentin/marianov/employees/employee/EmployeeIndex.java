@@ -0,0 +1,214 @@
+package valentin.marianov.employees.employee;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.logging.Logger;
+
+import valentin.marianov.employees.utility.DateUtility;
+import valentin.marianov.employees.utility.IdDictionary;
+
+/**
+ * The assignments of all employees of a file grouped by project and encoded to
+ * dense codes, kept in order to find the pairs again for different filters
+ * without processing the file again, e.g. while the user tries out several
+ * periods, projects or numbers of pairs.
+ * <p>
+ * Only the primitive arrays of the projects are held, the employees read from
+ * the file are not needed any more once the index has been built. Every query
+ * only pairs and ranks the assignments passing the filter.
+ * <p>
+ * An index is not changed after it has been built, therefore it can be queried
+ * from several threads at the same time.
+ *
+ * @author Valentin
+ */
+public class EmployeeIndex {
+
+	private static Logger logger = Logger.getLogger("employees-logger");
+
+	private final IdDictionary employeeCodes;
+	private final IdDictionary projectCodes;
+	private final List<ProjectAssignments> projects;
+	private final long assignmentCount;
+
+	private EmployeeIndex(final IdDictionary employeeCodes, final IdDictionary projectCodes,
+			final List<ProjectAssignments> projects) {
+
+		this.employeeCodes = employeeCodes;
+		this.projectCodes = projectCodes;
+		this.projects = projects;
+
+		long count = 0;
+		for (ProjectAssignments project : projects) {
+			count += project.size();
+		}
+		this.assignmentCount = count;
+	}
+
+	/**
+	 * Groups the assignments of the employees by project.
+	 *
+	 * @param employees - all employees and their projects
+	 * @return the index
+	 *
+	 * @author Valentin
+	 */
+	public static EmployeeIndex build(final List<Employee> employees) {
+
+		IdDictionary employeeCodes = new IdDictionary(employees.size());
+		IdDictionary projectCodes = new IdDictionary();
+		List<ProjectAssignments> projects = ProjectAssignments.indexByProject(employees, employeeCodes,
+				projectCodes);
+
+		return new EmployeeIndex(employeeCodes, projectCodes, projects);
+	}
+
+	public int getEmployeeCount() {
+		return this.employeeCodes.size();
+	}
+
+	public int getProjectCount() {
+		return this.projectCodes.size();
+	}
+
+	public long getAssignmentCount() {
+		return this.assignmentCount;
+	}
+
+	/**
+	 * @return the approximate memory held by the index: three numbers per
+	 *         assignment and the dictionaries of the ids
+	 */
+	public long getEstimatedSizeInBytes() {
+		return this.assignmentCount * 3 * Integer.BYTES
+				+ (long) (this.employeeCodes.size() + this.projectCodes.size()) * 4 * Integer.BYTES;
+	}
+
+	/**
+	 * Finds the pairs with the most days worked together within the given period
+	 * and on the given projects. Only the days within the period are counted.
+	 *
+	 * @param from       - first day of the period, null for no limit
+	 * @param to         - last day of the period (inclusive), null for no limit
+	 * @param projectIDs - the projects to look at, null for all of them
+	 * @param k          - the maximum number of pairs
+	 * @return array holding both employee ids (the smaller one first), project ids
+	 *         and the work period in days of every pair, the longest first
+	 *
+	 * @author Valentin
+	 */
+	public List<String[]> findTopWorkingEmployeePairs(final Date from, final Date to,
+			final Collection<Integer> projectIDs, final int k) {
+
+		long start = System.nanoTime();
+
+		int fromDay = from == null ? Integer.MIN_VALUE : DateUtility.toEpochDay(from);
+		int toDay = to == null ? Integer.MAX_VALUE : DateUtility.toEpochDay(to);
+
+		List<ProjectAssignments> selectedProjects = selectProjects(fromDay, toDay, projectIDs);
+
+		DensePairTotals totals = new DensePairTotals(this.employeeCodes.size());
+		for (ProjectAssignments project : selectedProjects) {
+			OverlapEngines.forProject(project).findPairs(project, totals);
+		}
+
+		List<String[]> topPairs = toPairArrays(EmployeeProcessing.rankTopPairs(totals::forEach, this.employeeCodes, k),
+				selectedProjects);
+
+		logger.info("Found " + topPairs.size() + " pairs on " + selectedProjects.size() + " projects in "
+				+ (System.nanoTime() - start) / 1_000_000 + " ms.");
+		return topPairs;
+	}
+
+	/**
+	 * @return the projects with the given ids (in the order of their codes), with
+	 *         every assignment cut to the period
+	 */
+	private List<ProjectAssignments> selectProjects(final int fromDay, final int toDay,
+			final Collection<Integer> projectIDs) {
+
+		List<ProjectAssignments> selectedProjects = new ArrayList<ProjectAssignments>();
+
+		for (ProjectAssignments project : this.projects) {
+
+			if (projectIDs != null && !projectIDs.contains(this.projectCodes.decode(project.getProjectID()))) {
+				continue;
+			}
+
+			// no need to copy a project without a period
+			if (fromDay == Integer.MIN_VALUE && toDay == Integer.MAX_VALUE) {
+				selectedProjects.add(project);
+				continue;
+			}
+
+			ProjectAssignments projectInPeriod = new ProjectAssignments(project.getProjectID());
+			for (int i = 0; i < project.size(); i++) {
+				int startDay = Math.max(project.getStartDay(i), fromDay);
+				int endDay = Math.min(project.getEndDay(i), toDay);
+				if (startDay <= endDay) {
+					projectInPeriod.add(project.getEmployeeID(i), startDay, endDay);
+				}
+			}
+			if (projectInPeriod.size() > 1) {
+				selectedProjects.add(projectInPeriod);
+			}
+		}
+		return selectedProjects;
+	}
+
+	/**
+	 * Looks up the common projects of the given pairs within the selected projects
+	 * and converts the pairs to arrays. Like for the pairs found on the ids, a
+	 * project is listed once for every common working period on it.
+	 */
+	private List<String[]> toPairArrays(final List<int[]> pairs, final List<ProjectAssignments> selectedProjects) {
+
+		// the periods of the employees of the pairs on the current project, by code
+		HashMap<Integer, List<int[]>> periodsOfEmployees = new HashMap<>();
+		for (int[] pair : pairs) {
+			periodsOfEmployees.put(this.employeeCodes.lookup(pair[0]), new ArrayList<int[]>());
+			periodsOfEmployees.put(this.employeeCodes.lookup(pair[1]), new ArrayList<int[]>());
+		}
+
+		List<String> projectsOfPairs = new ArrayList<String>();
+		for (int p = 0; p < pairs.size(); p++) {
+			projectsOfPairs.add("");
+		}
+
+		// the projects are selected in the order of their codes
+		for (ProjectAssignments project : selectedProjects) {
+
+			for (List<int[]> periods : periodsOfEmployees.values()) {
+				periods.clear();
+			}
+			for (int i = 0; i < project.size(); i++) {
+				List<int[]> periods = periodsOfEmployees.get(project.getEmployeeID(i));
+				if (periods != null) {
+					periods.add(new int[] { project.getStartDay(i), project.getEndDay(i) });
+				}
+			}
+
+			for (int p = 0; p < pairs.size(); p++) {
+				for (int[] period1 : periodsOfEmployees.get(this.employeeCodes.lookup(pairs.get(p)[0]))) {
+					for (int[] period2 : periodsOfEmployees.get(this.employeeCodes.lookup(pairs.get(p)[1]))) {
+						if (Math.max(period1[0], period2[0]) <= Math.min(period1[1], period2[1])) {
+							projectsOfPairs.set(p, projectsOfPairs.get(p)
+									+ this.projectCodes.decode(project.getProjectID()) + " ");
+						}
+					}
+				}
+			}
+		}
+
+		List<String[]> result = new ArrayList<String[]>(pairs.size());
+		for (int p = 0; p < pairs.size(); p++) {
+			int[] pair = pairs.get(p);
+			result.add(new String[] { String.valueOf(pair[0]), String.valueOf(pair[1]), projectsOfPairs.get(p),
+					String.valueOf(pair[2]) });
+		}
+		return result;
+	}
+}
@@ -5,17 +5,28 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Map.Entry;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import javax.swing.JOptionPane;
 
 import org.joda.time.IllegalFieldValueException;
 
 import valentin.marianov.employees.utility.DateUtility;
+import valentin.marianov.employees.utility.IdDictionary;
 
 /**
  * Holds different methods used to process the employee data and find the pair
@@ -28,6 +39,9 @@ public class EmployeeProcessing {
 
 	private static Logger logger = Logger.getLogger("employees-logger");
 
+	/** the number of pairs ranked when no other number is requested */
+	public static final int DEFAULT_TOP_PAIRS = 10;
+
 	/**
 	 * Finds and store all employees and their corresponding projects along with the
 	 * start and end dates for every single project.
@@ -96,89 +110,136 @@ public class EmployeeProcessing {
 	private static HashMap<Integer, EmployeePairs> findPairsWithCommonWorkingPeriod(final List<Employee> employees,
 			final HashMap<Integer, EmployeePairs> employeePairs) {
 
-		// iterate over every single employee
-		for (int i = 0; i < employees.size(); i++) {
+		findPairsWithCommonWorkingPeriod(employees, true, (empl1ID, empl2ID, projectID,
+				overlapInDays) -> addPairToEmployeePairs(employeePairs, empl1ID, empl2ID, projectID, overlapInDays));
 
-			// get all projects of the first employee
-			Employee empl1 = employees.get(i);
-			List<Integer> e1Projects = empl1.getProjects();
+		return employeePairs;
+	}
 
-			// iterate over all remaining employees
-			for (int j = 0; j < employees.size(); j++) {
+	/**
+	 * Groups the assignments of all employees by project and reports every common
+	 * working period on a project to the given collector. Only employees assigned
+	 * to the same project are compared with each other, the comparison itself is
+	 * done by the {@link OverlapEngine} chosen for the density of the project.
+	 * <p>
+	 * When <code>bothDirections</code> is set, a pair is reported once for each of
+	 * its employees, i.e. as (A, B) and as (B, A). Otherwise every pair is reported
+	 * only once, in no particular order of its employees.
+	 * 
+	 * @param employees      - all employees and their projects
+	 * @param bothDirections - whether to report each pair for both of its
+	 *                       employees
+	 * @param collector      - receives every common working period found
+	 * 
+	 * @author Valentin
+	 */
+	static void findPairsWithCommonWorkingPeriod(final List<Employee> employees, final boolean bothDirections,
+			final PairCollector collector) {
 
-				// get all projects of the second employee
-				Employee empl2 = employees.get(j);
-				List<Integer> e2Projects = empl2.getProjects();
+		findPairsOnProjects(ProjectAssignments.indexByProject(employees).values(), bothDirections, collector);
+	}
 
-				// in case its the same employee skip the remaining
-				if (empl1.getEmployeeId() == empl2.getEmployeeId()) {
-					continue;
-				}
+	/**
+	 * Finds all pairs of employees, who have worked together on one of the given
+	 * projects, and stores them for both employees.
+	 * 
+	 * @param projects - the assignments of every project
+	 * @return pairs of employees, who have worked together in a project
+	 * 
+	 * @author Valentin
+	 */
+	public static HashMap<Integer, EmployeePairs> findAllEmployeePairs(final Collection<ProjectAssignments> projects) {
 
-				// check each project of the first employee
-				for (int k = 0; k < e1Projects.size(); k++) {
+		HashMap<Integer, EmployeePairs> employeePairs = new HashMap<>();
 
-					// against each project of all remaining employees
-					for (int l = 0; l < e2Projects.size(); l++) {
+		findPairsOnProjects(projects, true, (empl1ID, empl2ID, projectID,
+				overlapInDays) -> addPairToEmployeePairs(employeePairs, empl1ID, empl2ID, projectID, overlapInDays));
 
-						// both employees have worked on a given project
-						if (e1Projects.get(k) == e2Projects.get(l)) {
+		return employeePairs;
+	}
 
-							// check if there is an overlap between their working periods on this particular
-							// project
-							int overlapInDays = DateUtility.computeOverlapOfDateRages(empl1.getStartDate(k),
-									empl1.getEndDate(k), empl2.getStartDate(l), empl2.getEndDate(l));
+	/**
+	 * Reports every common working period on the given projects to the collector.
+	 * Each project is compared by the {@link OverlapEngine} chosen for its
+	 * density.
+	 * 
+	 * @param projects       - the assignments of every project
+	 * @param bothDirections - whether to report each pair for both of its
+	 *                       employees
+	 * @param collector      - receives every common working period found
+	 * 
+	 * @author Valentin
+	 */
+	static void findPairsOnProjects(final Collection<ProjectAssignments> projects, final boolean bothDirections,
+			final PairCollector collector) {
 
-							// both employees have worked at least one day together on the same project
-							if (overlapInDays >= 1) {
+		PairCollector pairCollector = (empl1ID, empl2ID, projectID, overlapInDays) -> {
 
-								logger.info("Employee pair is: " + empl1.getEmployeeId() + ", " + empl2.getEmployeeId()
-										+ ", " + e1Projects.get(k) + ", " + overlapInDays);
+			logger.fine(() -> "Employee pair is: " + empl1ID + ", " + empl2ID + ", " + projectID + ", "
+					+ overlapInDays);
 
-								EmployeePairs pairsOfEmpl1 = employeePairs.get(empl1.getEmployeeId());
+			collector.collect(empl1ID, empl2ID, projectID, overlapInDays);
+			if (bothDirections) {
+				collector.collect(empl2ID, empl1ID, projectID, overlapInDays);
+			}
+		};
 
-								if (pairsOfEmpl1 != null) {
+		for (ProjectAssignments project : projects) {
+			OverlapEngines.forProject(project).findPairs(project, pairCollector);
+		}
+	}
 
-									// get the employees with which employee 1 has worked on common projects (found
-									// up to this point)
-									List<Integer> employee2List = pairsOfEmpl1.getEmployee2ID();
-									int employee2Idx = employee2List.indexOf(empl2.getEmployeeId());
+	/**
+	 * Stores a common working period of two employees on a project within the
+	 * pairs of the first employee.
+	 * 
+	 * @param employeePairs - the pairs found up to this point
+	 * @param empl1ID       - the employee the pair is stored for
+	 * @param empl2ID       - the employee he/she has worked with
+	 * @param projectID     - the common project
+	 * @param overlapInDays - the days worked together on the project
+	 * 
+	 * @author Valentin
+	 */
+	private static void addPairToEmployeePairs(final HashMap<Integer, EmployeePairs> employeePairs, final int empl1ID,
+			final int empl2ID, final int projectID, final int overlapInDays) {
 
-									// a this project and the days worked on it to the list with all other common
-									// projects between the pair
-									if (employee2Idx != -1) {
-										pairsOfEmpl1.getProjectID().get(employee2Idx).add(e1Projects.get(k));
-										pairsOfEmpl1.getDaysWorkedTogetherOnCommonProject().get(employee2Idx)
-												.add(overlapInDays);
+		EmployeePairs pairsOfEmpl1 = employeePairs.get(empl1ID);
 
-										// add another pair
-									} else {
-										addNewPairForEmployee(pairsOfEmpl1, e1Projects, k, overlapInDays, empl2);
-									}
+		if (pairsOfEmpl1 != null) {
 
-									// add this pair as the first pair for empl1
-								} else {
+			// get the employees with which employee 1 has worked on common projects (found
+			// up to this point)
+			List<Integer> employee2List = pairsOfEmpl1.getEmployee2ID();
+			int employee2Idx = employee2List.indexOf(empl2ID);
 
-									employeePairs.put(empl1.getEmployeeId(), new EmployeePairs(empl1.getEmployeeId()));
-									pairsOfEmpl1 = employeePairs.get(empl1.getEmployeeId());
+			// a this project and the days worked on it to the list with all other common
+			// projects between the pair
+			if (employee2Idx != -1) {
+				pairsOfEmpl1.getProjectID().get(employee2Idx).add(projectID);
+				pairsOfEmpl1.getDaysWorkedTogetherOnCommonProject().get(employee2Idx).add(overlapInDays);
 
-									addNewPairForEmployee(pairsOfEmpl1, e1Projects, k, overlapInDays, empl2);
-								}
-							}
-						}
-					}
-				}
+				// add another pair
+			} else {
+				addNewPairForEmployee(pairsOfEmpl1, projectID, overlapInDays, empl2ID);
 			}
+
+			// add this pair as the first pair for empl1
+		} else {
+
+			employeePairs.put(empl1ID, new EmployeePairs(empl1ID));
+			pairsOfEmpl1 = employeePairs.get(empl1ID);
+
+			addNewPairForEmployee(pairsOfEmpl1, projectID, overlapInDays, empl2ID);
 		}
-		return employeePairs;
 	}
 
-	private static void addNewPairForEmployee(EmployeePairs pairsOfEmpl1, List<Integer> e1Projects, int k,
-			int overlapInDays, Employee empl2) {
+	private static void addNewPairForEmployee(EmployeePairs pairsOfEmpl1, int projectID, int overlapInDays,
+			int empl2ID) {
 
-		pairsOfEmpl1.getEmployee2ID().add(empl2.getEmployeeId());
+		pairsOfEmpl1.getEmployee2ID().add(empl2ID);
 		pairsOfEmpl1.getProjectID().add(new ArrayList<>());
-		pairsOfEmpl1.getProjectID().get(pairsOfEmpl1.getProjectID().size() - 1).add(e1Projects.get(k));
+		pairsOfEmpl1.getProjectID().get(pairsOfEmpl1.getProjectID().size() - 1).add(projectID);
 		pairsOfEmpl1.getDaysWorkedTogetherOnCommonProject().add(new ArrayList<>());
 		pairsOfEmpl1.getDaysWorkedTogetherOnCommonProject()
 				.get(pairsOfEmpl1.getDaysWorkedTogetherOnCommonProject().size() - 1).add(overlapInDays);
@@ -195,193 +256,358 @@ public class EmployeeProcessing {
 	 * 
 	 * @author Valentin
 	 */
-	private static List<Employee> processEmployeesAndTheirProjects(final File file, final boolean isTesting) {
+	public static List<Employee> processEmployeesAndTheirProjects(final File file, final boolean isTesting) {
+		return processEmployeesAndTheirProjects(file, isTesting, null);
+	}
 
-		List<Employee> employees = new ArrayList<Employee>();
-		BufferedReader br = null;
-		short currentRow = 1;
+	/**
+	 * Finds and stores for each emlpoyee its id, project id, start and end date for
+	 * every project the employee has participated in.
+	 * 
+	 * @param file      - list with csv separated values in the form EmployeeID,
+	 *                  ProjectID, DateFrom, DateTo
+	 * @param isTesting - set to true when testing in order to disable pop-up
+	 *                  messages
+	 * @param errors    - receives every error found, prefixed by the file name and
+	 *                  row, may be null
+	 * @return a list of employees, empty in case of an error
+	 * 
+	 * @author Valentin
+	 */
+	public static List<Employee> processEmployeesAndTheirProjects(final File file, final boolean isTesting,
+			final List<String> errors) {
+		return processEmployeesAndTheirProjects(file, isTesting, errors, null, false);
+	}
 
-		// read the data from a csv-file
-		try {
+	/**
+	 * Finds and stores for each emlpoyee its id, project id, start and end date for
+	 * every project the employee has participated in.
+	 * 
+	 * @param file      - list with csv separated values in the form EmployeeID,
+	 *                  ProjectID, DateFrom, DateTo
+	 * @param isTesting - set to true when testing in order to disable pop-up
+	 *                  messages
+	 * @param errors    - receives every error found, prefixed by the file name and
+	 *                  row, may be null
+	 * @param asOf      - the day the data is looked at: open end dates (NULL) end
+	 *                  on it, later periods are cut off. Null for today without
+	 *                  cutting off any periods.
+	 * @param lenient   - set to true in order to skip rows with errors instead of
+	 *                  rejecting the whole file
+	 * @return a list of employees, empty in case of an error (unless lenient)
+	 * 
+	 * @author Valentin
+	 */
+	static List<Employee> processEmployeesAndTheirProjects(final File file, final boolean isTesting,
+			final List<String> errors, final Date asOf, final boolean lenient) {
 
-			FileReader fr = new FileReader(file);
-			br = new BufferedReader(fr);
+		List<Employee> employees = new ArrayList<Employee>();
+		HashMap<Integer, Employee> employeesById = new HashMap<Integer, Employee>();
+		int currentRow = 1;
 
-			// should hold four values employee id, project id, start and end date
-			String line;
-			String values[];
+		// read the data from a csv-file
+		try (BufferedReader br = new BufferedReader(new FileReader(file))) {
 
-			line = br.readLine();
+			String line = br.readLine();
 
 			// the file is empty
 			if (line == null || line.equals("")) {
 				logger.info("Selected file: " + file.getName() + " is empty.");
+				addError(errors, file, 0, "The file is empty.");
 				if (!isTesting) {
 					JOptionPane.showMessageDialog(null, "Selected file is empty! Please choose another file.");
 				}
 				return new ArrayList<Employee>();
+			}
 
-			} else {
-
-				String[] firstLine = line.split(", ");
-
-				// skip first line with headers
-				if (firstLine.length == 4 && firstLine[0].trim().equalsIgnoreCase("EmpID")
-						&& firstLine[1].trim().equalsIgnoreCase("ProjectID")
-						&& firstLine[2].trim().equalsIgnoreCase("DateFrom")
-						&& firstLine[3].trim().equalsIgnoreCase("DateTo")) {
-
-					// store the employee entry data if no headers available in first row
-				} else if (firstLine.length == 4) {
-
-					try {
-
-						Employee empl = new Employee(Integer.parseInt(firstLine[0].trim()));
-						empl.addProjectId(Integer.parseInt(firstLine[1].trim()));
-						empl.addStartDate(DateUtility.convertStringToDate(firstLine[2].trim()));
-						empl.addEndDate(DateUtility.convertStringToDate(firstLine[3].trim()));
-
-						employees.add(empl);
-
-						logger.info("EmpID: " + empl.getEmployeeId() + ", ProjectID: " + empl.getProjectId(0)
-								+ ", Start date: " + empl.getStartDate(0) + ", End Date: " + empl.getEndDate(0));
+			// should hold four values employee id, project id, start and end date
+			String[] firstLine = line.split(", ");
 
-					} catch (IllegalFieldValueException e) {
-						logger.severe(e.getMessage());
-						if (!isTesting) {
-							JOptionPane.showMessageDialog(null, e.getMessage());
-						}
-						return new ArrayList<Employee>();
-					}
+			// skip first line with headers
+			boolean isHeader = isHeader(firstLine);
 
-				} else {
-					logger.severe("The first line does not have the correct syntax, i.e. 4 comma separated values.");
-					if (!isTesting) {
-						JOptionPane.showMessageDialog(null,
-								"The first line does not have the correct syntax, i.e. 4 comma separated values. \n Please make sure that each row has exactly four values.");
-					}
+			if (!isHeader && firstLine.length != 4) {
+				reportError(errors, file, currentRow,
+						"The first line does not have the correct syntax, i.e. 4 comma separated values.");
+				if (!isTesting) {
+					JOptionPane.showMessageDialog(null,
+							"The first line does not have the correct syntax, i.e. 4 comma separated values. \n Please make sure that each row has exactly four values.");
+				}
+				if (!lenient) {
 					return new ArrayList<Employee>();
 				}
+				isHeader = true;
 			}
 
 			/*
 			 * Retrieves all employees and their respective projects together with the start
 			 * and end date of each project. In case a row with fewer or more than four
 			 * values is found, program execution is terminated and a pop-up dialog is shown
-			 * to the user pointing out the row on which the error was found.
+			 * to the user pointing out the row on which the error was found. When lenient,
+			 * the row is skipped instead.
 			 */
-			while ((line = br.readLine()) != null) {
-
-				// holds the current row number in case an error occurs
-				currentRow += 1;
-				values = line.split(", ");
-				int employeeId = Integer.parseInt(values[0].trim());
-				boolean employeeExists = false;
-
-				for (Employee employee : employees) {
-
-					try {
-
-						// employee already exists, only add project and work period
-						if (employee.getEmployeeId() == employeeId) {
-							employee.addProjectId(Integer.parseInt(values[1].trim()));
-							employee.addStartDate(DateUtility.convertStringToDate(values[2].trim()));
-							employee.addEndDate(DateUtility.convertStringToDate(values[3].trim()));
-							employeeExists = true;
-
-							int lastElement = employee.getListSize() - 1;
-
-							logger.info("Existing employee with EmpID: " + employee.getEmployeeId()
-									+ ", added new project with id: " + employee.getProjectId(lastElement)
-									+ ", start date: " + employee.getStartDate(lastElement) + ", end Date: "
-									+ employee.getEndDate(lastElement));
-						}
+			if (isHeader) {
+				line = br.readLine();
+				currentRow++;
+			}
 
-					} catch (ArrayIndexOutOfBoundsException e) {
-						logger.severe("Error found on row " + currentRow);
-						if (!isTesting) {
-							JOptionPane.showMessageDialog(null, "Program execution terminated. Row " + currentRow
-									+ " does not have the correct syntax. \n Row data: " + line);
-						}
-						return new ArrayList<Employee>();
-					} catch (IllegalFieldValueException e) {
-						logger.severe(e.getMessage());
-						if (!isTesting) {
-							JOptionPane.showMessageDialog(null, e.getMessage());
-						}
-						return new ArrayList<Employee>();
-					}
-
-				}
+			for (; line != null; line = br.readLine(), currentRow++) {
 
 				try {
+					addRow(line.split(", "), employees, employeesById, asOf);
 
-					// otherwise add new employee
-					if (!employeeExists) {
-
-						// create an employee
-						Employee empl = new Employee(employeeId);
-						empl.addProjectId(Integer.parseInt(values[1].trim()));
-						empl.addStartDate(DateUtility.convertStringToDate(values[2].trim()));
-						empl.addEndDate(DateUtility.convertStringToDate(values[3].trim()));
-						// add to list of employees
-						employees.add(empl);
-
-						logger.info("New employee with EmpID: " + empl.getEmployeeId() + ", ProjectID: "
-								+ empl.getProjectId(0) + ", Start date: " + empl.getStartDate(0) + ", End Date: "
-								+ empl.getEndDate(0));
-					}
-
-				} catch (ArrayIndexOutOfBoundsException e) {
-					logger.severe("Error found on row " + currentRow);
+				} catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+					reportError(errors, file, currentRow, "The row does not have the correct syntax: " + line);
 					if (!isTesting) {
 						JOptionPane.showMessageDialog(null, "Program execution terminated. Row " + currentRow
 								+ " does not have the correct syntax. \n Row data: " + line);
 					}
-					return new ArrayList<Employee>();
+					if (!lenient) {
+						return new ArrayList<Employee>();
+					}
 
 				} catch (IllegalFieldValueException e) {
-					logger.severe(e.getMessage());
+					reportError(errors, file, currentRow, e.getMessage());
 					if (!isTesting) {
 						JOptionPane.showMessageDialog(null, e.getMessage());
 					}
-					return new ArrayList<Employee>();
+					if (!lenient) {
+						return new ArrayList<Employee>();
+					}
 				}
-
 			}
 
 		} catch (FileNotFoundException e) {
-			logger.severe("No such file " + file.getName());
+			reportError(errors, file, 0, "No such file " + file.getName());
 			if (!isTesting) {
 				JOptionPane.showMessageDialog(null, "No such file " + file.getName() + " exists.");
 			}
 			return new ArrayList<Employee>();
 
 		} catch (IOException e) {
-			logger.severe("An I/O Exception occured while retrieving data from the file.");
+			reportError(errors, file, 0, "An I/O Exception occured while retrieving data from the file.");
 			if (!isTesting) {
 				JOptionPane.showMessageDialog(null,
 						"An error occured while reading the selected file. Please try again.");
 			}
 			return new ArrayList<Employee>();
+		}
 
-		} finally {
+		// merge overlapping periods of an employee on the same project before pairing
+		coalesceProjectsOfEmployees(employees);
 
-			try {
-				if (br != null) {
-					br.close();
-				}
-			} catch (IOException e) {
-				logger.severe("An I/O exception occured while closing the BufferedReader.");
-				if (!isTesting) {
-					JOptionPane.showMessageDialog(null, "An error occured while closing the file.");
-				}
-				return employees;
+		return employees;
+	}
+
+	/**
+	 * @param values - the values of the first line of a file
+	 * @return true in case the values are the headers EmpID, ProjectID, DateFrom
+	 *         and DateTo
+	 */
+	public static boolean isHeader(final String[] values) {
+		return values.length == 4 && values[0].trim().equalsIgnoreCase("EmpID")
+				&& values[1].trim().equalsIgnoreCase("ProjectID") && values[2].trim().equalsIgnoreCase("DateFrom")
+				&& values[3].trim().equalsIgnoreCase("DateTo");
+	}
+
+	/**
+	 * Parses a row of a file: open end dates (NULL) end on the as-of day and
+	 * periods are cut off after it.
+	 * 
+	 * @param values - employee id, project id, start and end date
+	 * @param asOf   - the day the data is looked at, null for today
+	 * @return an employee with the project and work period of the row, null in
+	 *         case the period starts after the as-of day
+	 * @throws ArrayIndexOutOfBoundsException in case the row has fewer values
+	 * @throws NumberFormatException          in case an id is not a number
+	 * @throws IllegalFieldValueException     in case a date is not valid
+	 * 
+	 * @author Valentin
+	 */
+	public static Employee parseRow(final String[] values, final Date asOf) {
+
+		int employeeId = Integer.parseInt(values[0].trim());
+		int projectId = Integer.parseInt(values[1].trim());
+		Date startDate = DateUtility.convertStringToDate(values[2].trim());
+		Date parsedEndDate = values[3].trim().equalsIgnoreCase("NULL") && asOf != null ? asOf
+				: DateUtility.convertStringToDate(values[3].trim());
+
+		// the period starts after the day the data is looked at
+		if (asOf != null && startDate.after(asOf)) {
+			return null;
+		}
+		Date endDate = asOf != null && parsedEndDate.after(asOf) ? asOf : parsedEndDate;
+
+		Employee row = new Employee(employeeId);
+		row.addProjectId(projectId);
+		row.addStartDate(startDate);
+		row.addEndDate(endDate);
+		return row;
+	}
+
+	/**
+	 * Adds the project and work period of a row to its employee, a new employee
+	 * is created in case it does not exist yet.
+	 * 
+	 * @param values - employee id, project id, start and end date
+	 * @param asOf   - the day the data is looked at, null for today
+	 */
+	private static void addRow(final String[] values, final List<Employee> employees,
+			final HashMap<Integer, Employee> employeesById, final Date asOf) {
+
+		Employee row = parseRow(values, asOf);
+		if (row == null) {
+			return;
+		}
+
+		int employeeId = row.getEmployeeId();
+		int projectId = row.getProjectId(0);
+		Date startDate = row.getStartDate(0);
+		Date endDate = row.getEndDate(0);
+
+		Employee employee = employeesById.get(employeeId);
+
+		// employee already exists, only add project and work period
+		if (employee != null) {
+			employee.addProjectId(projectId);
+			employee.addStartDate(startDate);
+			employee.addEndDate(endDate);
+
+			logger.fine(() -> "Existing employee with EmpID: " + employeeId + ", added new project with id: "
+					+ projectId + ", start date: " + startDate + ", end Date: " + endDate);
+			return;
+		}
+
+		// otherwise add new employee
+		employees.add(row);
+		employeesById.put(employeeId, row);
+
+		logger.fine(() -> "New employee with EmpID: " + employeeId + ", ProjectID: " + projectId + ", Start date: "
+				+ startDate + ", End Date: " + endDate);
+	}
+
+	/**
+	 * Logs an error found while reading a file and adds it to the given errors,
+	 * prefixed by the file and row, so that the origin of the error is known also
+	 * when several files are read.
+	 * 
+	 * @param row - the row the error was found on, 0 in case it concerns the whole
+	 *            file
+	 */
+	private static void reportError(final List<String> errors, final File file, final int row,
+			final String message) {
+
+		logger.severe(file.getName() + (row > 0 ? ", row " + row : "") + ": " + message);
+		addError(errors, file, row, message);
+	}
+
+	private static void addError(final List<String> errors, final File file, final int row, final String message) {
+
+		if (errors != null) {
+			errors.add(file.getPath() + (row > 0 ? ", row " + row : "") + ": " + message);
+		}
+	}
+
+	/**
+	 * Reads several files (e.g. one per department or per month) in parallel and
+	 * merges their employees, see {@link #mergeEmployees(List)}. A file containing
+	 * an error does not contribute any employees, the other files are still
+	 * merged.
+	 * 
+	 * @param files     - lists with csv separated values in the form EmployeeID,
+	 *                  ProjectID, DateFrom, DateTo
+	 * @param errors    - receives the errors of all files in the order of the
+	 *                  files, prefixed by the file and row, may be null
+	 * @param isTesting - set to true when testing in order to disable pop-up
+	 *                  messages
+	 * @return all employees of all files
+	 * 
+	 * @author Valentin
+	 */
+	public static List<Employee> processEmployeesOfFiles(final List<File> files, final List<String> errors,
+			final boolean isTesting) {
+
+		long start = System.nanoTime();
+
+		// every file gets its own errors, so that they can be reported in order
+		List<List<String>> errorsOfFiles = new ArrayList<List<String>>();
+		for (int i = 0; i < files.size(); i++) {
+			errorsOfFiles.add(new ArrayList<String>());
+		}
+
+		List<List<Employee>> partialEmployees = IntStream.range(0, files.size()).parallel()
+				.mapToObj(i -> processEmployeesAndTheirProjects(files.get(i), isTesting, errorsOfFiles.get(i)))
+				.collect(Collectors.toList());
+
+		List<Employee> employees = mergeEmployees(partialEmployees);
+
+		if (errors != null) {
+			for (List<String> errorsOfFile : errorsOfFiles) {
+				errors.addAll(errorsOfFile);
 			}
 		}
+
+		logger.info("Read " + employees.size() + " employees from " + files.size() + " files in "
+				+ (System.nanoTime() - start) / 1_000_000 + " ms.");
 		return employees;
 	}
 
+	/**
+	 * Merges the employees read from several files into a single list. An employee
+	 * appearing in more than one file is merged into one employee holding the
+	 * projects of all files, overlapping periods on the same project are merged as
+	 * well.
+	 * 
+	 * @param partialEmployees - the employees of every file
+	 * @return all employees, in the order they first appear in
+	 * 
+	 * @author Valentin
+	 */
+	public static List<Employee> mergeEmployees(final List<List<Employee>> partialEmployees) {
+
+		LinkedHashMap<Integer, Employee> employees = new LinkedHashMap<>();
+
+		for (List<Employee> partial : partialEmployees) {
+			for (Employee employee : partial) {
+
+				Employee merged = employees.computeIfAbsent(employee.getEmployeeId(), Employee::new);
+				for (int i = 0; i < employee.getListSize(); i++) {
+					merged.addProjectId(employee.getProjectId(i));
+					merged.addStartDate(employee.getStartDate(i));
+					merged.addEndDate(employee.getEndDate(i));
+				}
+			}
+		}
+
+		List<Employee> mergedEmployees = new ArrayList<Employee>(employees.values());
+		coalesceProjectsOfEmployees(mergedEmployees);
+		return mergedEmployees;
+	}
+
+	/**
+	 * Merges the overlapping (or adjacent) periods of every employee on the same
+	 * project into a single period. Otherwise the days of an employee, who has
+	 * been assigned several times to a project, would be counted more than once
+	 * when computing the days worked together with his/her colleagues.
+	 * 
+	 * @param employees - all employees and their projects
+	 * @return the number of rows merged into other rows
+	 * 
+	 * @author Valentin
+	 */
+	public static int coalesceProjectsOfEmployees(final List<Employee> employees) {
+
+		int mergedRows = 0;
+		for (Employee employee : employees) {
+			mergedRows += employee.coalesceProjects();
+		}
+
+		if (mergedRows > 0) {
+			logger.info("Merged " + mergedRows + " rows with overlapping periods on the same project.");
+		}
+		return mergedRows;
+	}
+
 	/**
 	 * Goes through the set of employeePairs and finds the one that has the most
 	 * days spend together working on common projects.
@@ -430,4 +656,510 @@ public class EmployeeProcessing {
 		return new String[] { empl1ID, empl2ID, projectID, String.valueOf(daysWorkedTogether) };
 	}
 
+	/**
+	 * Goes through the set of employeePairs and finds the pairs with the most days
+	 * spend together working on common projects. Each pair is returned only once,
+	 * with the smaller employee id first.
+	 * 
+	 * @param employeePairs - the pairs found
+	 * @param k             - the maximum number of pairs to return
+	 * 
+	 * @return arrays holding both employee ids, project ids and the work period in
+	 *         days, the pair with the most days first
+	 * 
+	 * @author Valentin
+	 */
+	public static List<String[]> findTopWorkingEmployeePairs(final HashMap<Integer, EmployeePairs> employeePairs,
+			final int k) {
+
+		// the pair with the fewest days (and the highest ids) is the head of the queue
+		PriorityQueue<RankedPair> topPairs = new PriorityQueue<>();
+
+		if (k <= 0) {
+			return new ArrayList<String[]>();
+		}
+
+		for (EmployeePairs emplPair : employeePairs.values()) {
+			for (int i = 0; i < emplPair.getEmployee2ID().size(); i++) {
+
+				// the pairs are stored for both employees, take only one of them
+				if (emplPair.getEmployee1ID() > emplPair.getEmployee2ID().get(i)) {
+					continue;
+				}
+
+				int days = 0;
+				for (Integer daysWorked : emplPair.getDaysWorkedTogetherOnCommonProject().get(i)) {
+					days += daysWorked;
+				}
+
+				RankedPair pair = new RankedPair(emplPair, i, days);
+				if (topPairs.size() < k) {
+					topPairs.add(pair);
+				} else if (pair.compareTo(topPairs.peek()) > 0) {
+					topPairs.poll();
+					topPairs.add(pair);
+				}
+			}
+		}
+
+		List<RankedPair> rankedPairs = new ArrayList<>(topPairs);
+		rankedPairs.sort(Comparator.reverseOrder());
+
+		List<String[]> result = new ArrayList<String[]>(rankedPairs.size());
+		for (RankedPair pair : rankedPairs) {
+			result.add(toPairArray(pair.emplPair, pair.index));
+		}
+		return result;
+	}
+
+	/**
+	 * Converts the pair of an employee with the given index to an array holding
+	 * both employee ids, project ids and the work period in days.
+	 * 
+	 * @param emplPair - all pairs of an employee
+	 * @param index    - index of the second employee
+	 * @return the pair as an array
+	 * 
+	 * @author Valentin
+	 */
+	public static String[] toPairArray(final EmployeePairs emplPair, final int index) {
+
+		List<Integer> projectIDs = emplPair.getProjectID().get(index);
+		List<Integer> daysWorked = emplPair.getDaysWorkedTogetherOnCommonProject().get(index);
+		String projects = "";
+		int days = 0;
+
+		for (int j = 0; j < projectIDs.size(); j++) {
+			days += daysWorked.get(j);
+			projects += String.valueOf(projectIDs.get(j) + " ");
+		}
+
+		return new String[] { String.valueOf(emplPair.getEmployee1ID()),
+				String.valueOf(emplPair.getEmployee2ID().get(index)), projects, String.valueOf(days) };
+	}
+
+	/**
+	 * Finds the pairs with the most days worked together like
+	 * {@link #findTopWorkingEmployeePairs(HashMap, int)}, but without storing the
+	 * projects and days of every pair.
+	 * <p>
+	 * The employee and project ids are encoded to dense codes when the
+	 * assignments are grouped by project, the days of every pair are then summed
+	 * up in a {@link DensePairTotals} indexed by these codes. The ids are only
+	 * decoded again for the pairs returned, whose projects are looked up
+	 * afterwards.
+	 * 
+	 * @param employees - all employees and their projects
+	 * @param k         - the maximum number of pairs
+	 * @return array holding both employee ids (the smaller one first), project ids
+	 *         and the work period in days of every pair, the longest first
+	 * 
+	 * @author Valentin
+	 */
+	public static List<String[]> findTopWorkingEmployeePairs(final List<Employee> employees, final int k) {
+
+		if (k <= 0) {
+			return new ArrayList<String[]>();
+		}
+
+		IdDictionary employeeCodes = new IdDictionary(employees.size());
+		IdDictionary projectCodes = new IdDictionary();
+		List<ProjectAssignments> projects = ProjectAssignments.indexByProject(employees, employeeCodes,
+				projectCodes);
+
+		DensePairTotals totals = new DensePairTotals(employeeCodes.size());
+		for (ProjectAssignments project : projects) {
+			OverlapEngines.forProject(project).findPairs(project, totals);
+		}
+
+		return findTopWorkingEmployeePairs(totals, employeeCodes, projectCodes, employees, k);
+	}
+
+	/**
+	 * Finds the pairs with the most days worked together in the given totals and
+	 * decodes them.
+	 * 
+	 * @param totals        - the days of all pairs, by employee code
+	 * @param employeeCodes - the codes of the employee ids
+	 * @param projectCodes  - the codes of the project ids
+	 * @param employees     - all employees and their projects
+	 * @param k             - the maximum number of pairs
+	 * @return array holding both employee ids (the smaller one first), project ids
+	 *         and the work period in days of every pair, the longest first
+	 */
+	static List<String[]> findTopWorkingEmployeePairs(final DensePairTotals totals, final IdDictionary employeeCodes,
+			final IdDictionary projectCodes, final List<Employee> employees, final int k) {
+
+		if (k <= 0) {
+			return new ArrayList<String[]>();
+		}
+		return toPairArrays(rankTopPairs(totals::forEach, employeeCodes, k), employees, projectCodes);
+	}
+
+	/**
+	 * Finds the pairs with the most days worked together in the given totals.
+	 * 
+	 * @param totals        - visits the days of all pairs, by employee code, e.g.
+	 *                      {@link DensePairTotals#forEach}
+	 * @param employeeCodes - the codes of the employee ids
+	 * @param k             - the maximum number of pairs
+	 * @return both employee ids (the smaller one first) and the days of every pair,
+	 *         the longest first
+	 */
+	static List<int[]> rankTopPairs(final Consumer<DensePairTotals.Visitor> totals, final IdDictionary employeeCodes,
+			final int k) {
+
+		if (k <= 0) {
+			return new ArrayList<int[]>();
+		}
+
+		// both employee ids and the days, the pair with the fewest days (and the
+		// highest ids) is the head of the queue
+		PriorityQueue<int[]> topPairs = new PriorityQueue<>((pair1, pair2) -> compareRanking(pair2, pair1));
+
+		totals.accept((employee1Code, employee2Code, days) -> {
+
+			int empl1ID = employeeCodes.decode(employee1Code);
+			int empl2ID = employeeCodes.decode(employee2Code);
+			int first = Math.min(empl1ID, empl2ID);
+			int second = Math.max(empl1ID, empl2ID);
+
+			if (topPairs.size() < k) {
+				topPairs.add(new int[] { first, second, days });
+			} else if (ranksHigher(first, second, days, topPairs.peek())) {
+				topPairs.poll();
+				topPairs.add(new int[] { first, second, days });
+			}
+		});
+
+		List<int[]> rankedPairs = new ArrayList<>(topPairs);
+		rankedPairs.sort(EmployeeProcessing::compareRanking);
+		return rankedPairs;
+	}
+
+	/**
+	 * @return true in case the pair has more days than the other pair, on equal
+	 *         days smaller employee ids
+	 */
+	static boolean ranksHigher(final int empl1ID, final int empl2ID, final int days, final int[] other) {
+		return compareRanking(empl1ID, empl2ID, days, other[0], other[1], other[2]) < 0;
+	}
+
+	/**
+	 * Orders pairs by their rank, the highest first: the most days, on equal days
+	 * the smaller first and then second employee id.
+	 *
+	 * @param pair1 - both employee ids and the days of a pair, further values are
+	 *              ignored
+	 * @param pair2 - both employee ids and the days of the other pair
+	 * @return a negative number in case the first pair ranks higher, 0 in case both
+	 *         rank the same and a positive number otherwise
+	 */
+	static int compareRanking(final int[] pair1, final int[] pair2) {
+		return compareRanking(pair1[0], pair1[1], pair1[2], pair2[0], pair2[1], pair2[2]);
+	}
+
+	/**
+	 * See {@link #compareRanking(int[], int[])}.
+	 */
+	static int compareRanking(final int pair1Empl1ID, final int pair1Empl2ID, final int pair1Days,
+			final int pair2Empl1ID, final int pair2Empl2ID, final int pair2Days) {
+
+		int result = Integer.compare(pair2Days, pair1Days);
+		if (result == 0) {
+			result = Integer.compare(pair1Empl1ID, pair2Empl1ID);
+		}
+		if (result == 0) {
+			result = Integer.compare(pair1Empl2ID, pair2Empl2ID);
+		}
+		return result;
+	}
+
+	/**
+	 * Looks up the common projects of the given pairs, in the order of their
+	 * codes, and converts the pairs to arrays. Like for the pairs found on the
+	 * ids, a project is listed once for every common working period on it.
+	 */
+	static List<String[]> toPairArrays(final List<int[]> pairs, final List<Employee> employees,
+			final IdDictionary projectCodes) {
+
+		HashMap<Integer, List<Employee>> employeesOfPairs = new HashMap<>();
+		for (int[] pair : pairs) {
+			employeesOfPairs.put(pair[0], new ArrayList<Employee>());
+			employeesOfPairs.put(pair[1], new ArrayList<Employee>());
+		}
+		for (Employee employee : employees) {
+			List<Employee> rows = employeesOfPairs.get(employee.getEmployeeId());
+			if (rows != null) {
+				rows.add(employee);
+			}
+		}
+
+		List<String[]> result = new ArrayList<String[]>(pairs.size());
+		for (int[] pair : pairs) {
+
+			List<Integer> commonProjectCodes = new ArrayList<Integer>();
+			for (Employee empl1 : employeesOfPairs.get(pair[0])) {
+				for (Employee empl2 : employeesOfPairs.get(pair[1])) {
+					for (int i = 0; i < empl1.getListSize(); i++) {
+						for (int j = 0; j < empl2.getListSize(); j++) {
+
+							if (empl1.getProjectId(i) != empl2.getProjectId(j)) {
+								continue;
+							}
+
+							int lastCommonDay = Math.min(DateUtility.toEpochDay(empl1.getEndDate(i)),
+									DateUtility.toEpochDay(empl2.getEndDate(j)));
+							int firstCommonDay = Math.max(DateUtility.toEpochDay(empl1.getStartDate(i)),
+									DateUtility.toEpochDay(empl2.getStartDate(j)));
+							if (firstCommonDay <= lastCommonDay) {
+								commonProjectCodes.add(projectCodes.lookup(empl1.getProjectId(i)));
+							}
+						}
+					}
+				}
+			}
+			commonProjectCodes.sort(null);
+
+			String projects = "";
+			for (Integer projectCode : commonProjectCodes) {
+				projects += String.valueOf(projectCodes.decode(projectCode) + " ");
+			}
+			result.add(new String[] { String.valueOf(pair[0]), String.valueOf(pair[1]), projects,
+					String.valueOf(pair[2]) });
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the pairs with the most days worked together approximately, in a fixed
+	 * amount of memory. The common working periods found on every project are
+	 * counted by a {@link SpaceSavingPairs}, which holds at most capacity pairs.
+	 * <p>
+	 * Optionally the days of all pairs counted are verified, i.e. computed exactly
+	 * in a second pass over the projects, which only counts these pairs. The pairs
+	 * are then ordered by their exact days and the first k of them returned, so a
+	 * pair ranked below k by its estimate is still found. Pairs not counted by the
+	 * first pass are not looked at again.
+	 * 
+	 * @param employees - all employees and their projects
+	 * @param capacity  - the number of pairs counted at most
+	 * @param k         - the maximum number of pairs
+	 * @param verify    - set to true in order to compute the exact days of the
+	 *                  pairs found
+	 * @return the pairs with the most days, the most first
+	 * 
+	 * @author Valentin
+	 */
+	public static List<HeavyPair> findHeavyPairs(final List<Employee> employees, final int capacity, final int k,
+			final boolean verify) {
+
+		long start = System.nanoTime();
+		Collection<ProjectAssignments> projects = ProjectAssignments.indexByProject(employees).values();
+
+		SpaceSavingPairs sketch = new SpaceSavingPairs(capacity);
+		for (ProjectAssignments project : projects) {
+			OverlapEngines.forProject(project).findPairs(project, sketch);
+		}
+
+		// all pairs counted, an estimate too high may hide any of them
+		List<HeavyPair> heavyPairs = sketch.findTopPairs(verify ? capacity : k);
+		logger.info("Found " + heavyPairs.size() + " heavy pairs out of " + sketch.getTotalDays()
+				+ " days worked together, maximum error " + sketch.getMaximumError() + " days, in "
+				+ (System.nanoTime() - start) / 1_000_000 + " ms.");
+
+		if (verify) {
+			verifyHeavyPairs(heavyPairs, projects);
+			return new ArrayList<HeavyPair>(heavyPairs.subList(0, Math.max(Math.min(k, heavyPairs.size()), 0)));
+		}
+		return heavyPairs;
+	}
+
+	/**
+	 * Computes the exact days of the given pairs and orders them by these days.
+	 * The pairs are looked up by binary search in their sorted keys, so the
+	 * common working periods of all other pairs are skipped without creating any
+	 * objects.
+	 */
+	private static void verifyHeavyPairs(final List<HeavyPair> heavyPairs,
+			final Collection<ProjectAssignments> projects) {
+
+		long[] pairKeys = new long[heavyPairs.size()];
+		for (int i = 0; i < pairKeys.length; i++) {
+			pairKeys[i] = ExternalPairAggregator.toPairKey(heavyPairs.get(i).getEmployee1ID(),
+					heavyPairs.get(i).getEmployee2ID());
+		}
+		Arrays.sort(pairKeys);
+		long[] exactDays = new long[pairKeys.length];
+
+		PairCollector collector = (empl1ID, empl2ID, projectID, overlapInDays) -> {
+			int index = Arrays.binarySearch(pairKeys, ExternalPairAggregator.toPairKey(empl1ID, empl2ID));
+			if (index >= 0) {
+				exactDays[index] += overlapInDays;
+			}
+		};
+		for (ProjectAssignments project : projects) {
+			OverlapEngines.forProject(project).findPairs(project, collector);
+		}
+
+		for (HeavyPair pair : heavyPairs) {
+			pair.setExactDays(exactDays[Arrays.binarySearch(pairKeys,
+					ExternalPairAggregator.toPairKey(pair.getEmployee1ID(), pair.getEmployee2ID()))]);
+		}
+		heavyPairs.sort((pair1, pair2) -> {
+			int result = Long.compare(pair2.getExactDays(), pair1.getExactDays());
+			if (result == 0) {
+				result = Long.compare(ExternalPairAggregator.toPairKey(pair1.getEmployee1ID(), pair1.getEmployee2ID()),
+						ExternalPairAggregator.toPairKey(pair2.getEmployee1ID(), pair2.getEmployee2ID()));
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * Finds the pair with the most days spend together working on common projects
+	 * without holding all pairs in memory.
+	 * <p>
+	 * The common working periods are aggregated by an
+	 * {@link ExternalPairAggregator}, which writes them to temporary files once the
+	 * given memory budget is reached and merges them afterwards. The temporary
+	 * files are deleted in any case, also when the processing fails.
+	 * 
+	 * @param file                - list with csv separated values in the form
+	 *                            EmployeeID, ProjectID, Start Date, EndDate
+	 * @param memoryBudgetInBytes - memory available for the pairs before they are
+	 *                            written to disk
+	 * @param isTesting           - set to true when testing in order to disable
+	 *                            pop-up messages
+	 * 
+	 * @return array holding both employee ids, project ids (in ascending order) and
+	 *         the work period in days
+	 * 
+	 * @author Valentin
+	 */
+	public static String[] findLongestWorkingEmployeePair(final File file, final long memoryBudgetInBytes,
+			final boolean isTesting) {
+
+		LongestPairCollector longestPair = new LongestPairCollector();
+
+		try (ExternalPairAggregator aggregator = new ExternalPairAggregator(memoryBudgetInBytes)) {
+
+			collectAllEmployeePairs(file, aggregator, isTesting);
+			aggregator.merge(longestPair);
+
+		} catch (IOException | UncheckedIOException e) {
+			logger.severe("An I/O Exception occured while aggregating the employee pairs: " + e.getMessage());
+			if (!isTesting) {
+				JOptionPane.showMessageDialog(null,
+						"An error occured while writing temporary files. Please check the available disk space.");
+			}
+			return new LongestPairCollector().toArray();
+		}
+
+		return longestPair.toArray();
+	}
+
+	/**
+	 * Finds all pairs of employees, who have worked together in a project, and
+	 * reports them to the given collector instead of storing them. Every common
+	 * working period is reported only once, regardless of the order of the
+	 * employees.
+	 * 
+	 * @param file      - list with csv separated values in the form EmployeeID,
+	 *                  ProjectID, Start Date, EndDate
+	 * @param collector - receives every common working period found
+	 * @param isTesting - set to true when testing in order to disable pop-up
+	 *                  messages
+	 * 
+	 * @author Valentin
+	 */
+	public static void collectAllEmployeePairs(final File file, final PairCollector collector,
+			final boolean isTesting) {
+		collectAllEmployeePairs(processEmployeesAndTheirProjects(file, isTesting), collector);
+	}
+
+	/**
+	 * Finds all pairs of the given employees and reports them to the given
+	 * collector, see {@link #collectAllEmployeePairs(File, PairCollector, boolean)}.
+	 * 
+	 * @param employees - the employees, e.g. read from several files
+	 * @param collector - receives every common working period found
+	 * 
+	 * @author Valentin
+	 */
+	public static void collectAllEmployeePairs(final List<Employee> employees, final PairCollector collector) {
+
+		if (employees.size() < 2) {
+			logger.info("Not enough employees available to form potential pairs.");
+			return;
+		}
+
+		findPairsWithCommonWorkingPeriod(employees, false, collector);
+	}
+
+	/**
+	 * A pair together with its total days worked together. Pairs with more days
+	 * rank higher, on equal days the pair with the smaller employee ids.
+	 */
+	private static class RankedPair implements Comparable<RankedPair> {
+
+		private final EmployeePairs emplPair;
+		private final int index;
+		private final int days;
+
+		RankedPair(final EmployeePairs emplPair, final int index, final int days) {
+			this.emplPair = emplPair;
+			this.index = index;
+			this.days = days;
+		}
+
+		@Override
+		public int compareTo(final RankedPair other) {
+
+			int result = Integer.compare(this.days, other.days);
+			if (result == 0) {
+				result = Integer.compare(other.emplPair.getEmployee1ID(), this.emplPair.getEmployee1ID());
+			}
+			if (result == 0) {
+				result = Integer.compare(other.emplPair.getEmployee2ID().get(other.index),
+						this.emplPair.getEmployee2ID().get(this.index));
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Keeps track of the pair with the most days worked together out of all pair
+	 * totals reported to it.
+	 */
+	private static class LongestPairCollector implements PairTotalCollector {
+
+		private String empl1ID = null;
+		private String empl2ID = null;
+		private String projectID = null;
+		private int daysWorkedTogether = 0;
+
+		@Override
+		public void collect(int employee1ID, int employee2ID, List<Integer> projectIDs, int totalDaysWorkedTogether) {
+
+			// new pair with more days working together on common projects has been found
+			if (this.daysWorkedTogether < totalDaysWorkedTogether) {
+
+				String currProjects = "";
+				for (Integer project : projectIDs) {
+					currProjects += String.valueOf(project + " ");
+				}
+
+				this.empl1ID = String.valueOf(employee1ID);
+				this.empl2ID = String.valueOf(employee2ID);
+				this.projectID = currProjects;
+				this.daysWorkedTogether = totalDaysWorkedTogether;
+			}
+		}
+
+		String[] toArray() {
+			return new String[] { this.empl1ID, this.empl2ID, this.projectID, String.valueOf(this.daysWorkedTogether) };
+		}
+	}
+
 }
@@ -0,0 +1,449 @@
+package valentin.marianov.employees.employee;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Logger;
+
+/**
+ * Aggregates the common working periods of employee pairs within a fixed memory
+ * budget.
+ * <p>
+ * Every period is stored as a record (pair of employees, project id, days). Once
+ * the records held in memory reach the budget, they are sorted by pair and
+ * project and written to a temporary file (a so called run). The record buffers
+ * start small and grow up to the budget, so that a large budget is only claimed
+ * when the periods need it. When all periods
+ * have been collected, the runs are merged (k-way merge) in order to compute the
+ * total amount of days for every pair without ever holding all pairs in memory.
+ * <p>
+ * A pair is stored independently of the order of its employees, i.e. (A, B) and
+ * (B, A) are the same pair and it is reported with the smaller employee id
+ * first. Therefore each common working period has to be collected only once.
+ * All temporary files are deleted when the aggregator is closed.
+ *
+ * @author Valentin
+ */
+public class ExternalPairAggregator implements PairCollector, Closeable {
+
+	private static Logger logger = Logger.getLogger("employees-logger");
+
+	/** pair key, project id and days worked together */
+	static final int RECORD_SIZE_IN_BYTES = Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+	private static final int INITIAL_RECORDS_IN_MEMORY = 1024;
+	private static final int MIN_MERGE_BUFFER_SIZE = 4 * 1024;
+	private static final int MAX_MERGE_BUFFER_SIZE = 64 * 1024;
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+
+	private final long memoryBudgetInBytes;
+	private final Path tempDirectory;
+
+	private final int maxRecordsInMemory;
+
+	private long[] pairKeys;
+	private int[] projectIDs;
+	private int[] daysWorkedTogether;
+	private int size;
+
+	private final List<Path> runs = new ArrayList<>();
+
+	/**
+	 * @param memoryBudgetInBytes - the maximum amount of memory used for records
+	 *                            before they are spilled to disk
+	 */
+	public ExternalPairAggregator(final long memoryBudgetInBytes) {
+		this(memoryBudgetInBytes, null);
+	}
+
+	/**
+	 * @param memoryBudgetInBytes - the maximum amount of memory used for records
+	 *                            before they are spilled to disk
+	 * @param tempDirectory       - directory for the temporary files, the default
+	 *                            temporary-file directory is used when null
+	 */
+	public ExternalPairAggregator(final long memoryBudgetInBytes, final Path tempDirectory) {
+
+		if (memoryBudgetInBytes <= 0) {
+			throw new IllegalArgumentException("The memory budget must be a positive number of bytes.");
+		}
+
+		// at least one record, even if the budget is smaller than a record
+		this.maxRecordsInMemory = (int) Math.max(1,
+				Math.min(memoryBudgetInBytes / RECORD_SIZE_IN_BYTES, Integer.MAX_VALUE - 8));
+		int capacity = Math.min(INITIAL_RECORDS_IN_MEMORY, this.maxRecordsInMemory);
+
+		this.memoryBudgetInBytes = memoryBudgetInBytes;
+		this.tempDirectory = tempDirectory;
+		this.pairKeys = new long[capacity];
+		this.projectIDs = new int[capacity];
+		this.daysWorkedTogether = new int[capacity];
+	}
+
+	/**
+	 * Stores a common working period of two employees. The records are written to
+	 * a temporary file once the memory budget has been reached.
+	 */
+	@Override
+	public void collect(final int employee1ID, final int employee2ID, final int projectID,
+			final int daysWorkedTogether) {
+
+		if (this.size == this.maxRecordsInMemory) {
+			try {
+				spill();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not write employee pairs to a temporary file.", e);
+			}
+		} else if (this.size == this.pairKeys.length) {
+			growRecords();
+		}
+
+		this.pairKeys[this.size] = toPairKey(employee1ID, employee2ID);
+		this.projectIDs[this.size] = projectID;
+		this.daysWorkedTogether[this.size] = daysWorkedTogether;
+		this.size++;
+	}
+
+	/**
+	 * @return the number of runs written to disk so far
+	 */
+	public int getSpilledRunCount() {
+		return this.runs.size();
+	}
+
+	/**
+	 * Merges all runs together with the records still held in memory and reports
+	 * the total days of every pair. Pairs are reported ordered by their employee
+	 * ids, the projects of each pair in ascending order.
+	 *
+	 * @param collector - receives the totals of every pair
+	 * @throws IOException in case a run could not be read
+	 *
+	 * @author Valentin
+	 */
+	public void merge(final PairTotalCollector collector) throws IOException {
+
+		sortRecords(0, this.size);
+
+		PriorityQueue<RunCursor> cursors = new PriorityQueue<>(
+				Comparator.comparingLong(RunCursor::getPairKey).thenComparingInt(RunCursor::getProjectID));
+		List<RunCursor> openCursors = new ArrayList<>();
+
+		// share the memory budget between the read buffers of all runs
+		int bufferSize = (int) Math.max(MIN_MERGE_BUFFER_SIZE,
+				Math.min(MAX_MERGE_BUFFER_SIZE, this.memoryBudgetInBytes / (this.runs.size() + 1)));
+
+		try {
+			openCursors.add(new MemoryRunCursor());
+			for (Path run : this.runs) {
+				openCursors.add(new FileRunCursor(run, bufferSize));
+			}
+
+			for (RunCursor cursor : openCursors) {
+				if (cursor.next()) {
+					cursors.add(cursor);
+				}
+			}
+
+			long currentPairKey = 0;
+			List<Integer> currentProjects = new ArrayList<>();
+			int currentDays = 0;
+
+			while (!cursors.isEmpty()) {
+
+				RunCursor cursor = cursors.poll();
+
+				// all records of the previous pair have been read
+				if (!currentProjects.isEmpty() && cursor.getPairKey() != currentPairKey) {
+					collector.collect(getEmployee1ID(currentPairKey), getEmployee2ID(currentPairKey),
+							currentProjects, currentDays);
+					currentProjects = new ArrayList<>();
+					currentDays = 0;
+				}
+
+				currentPairKey = cursor.getPairKey();
+				currentProjects.add(cursor.getProjectID());
+				currentDays += cursor.getDaysWorkedTogether();
+
+				if (cursor.next()) {
+					cursors.add(cursor);
+				}
+			}
+
+			if (!currentProjects.isEmpty()) {
+				collector.collect(getEmployee1ID(currentPairKey), getEmployee2ID(currentPairKey), currentProjects,
+						currentDays);
+			}
+
+		} finally {
+			closeAll(openCursors);
+		}
+	}
+
+	/**
+	 * Closes every cursor, even if closing one of them fails. The first failure is
+	 * thrown with the later ones suppressed.
+	 */
+	private static void closeAll(final List<RunCursor> cursors) throws IOException {
+
+		IOException failure = null;
+		for (RunCursor cursor : cursors) {
+			try {
+				cursor.close();
+			} catch (IOException e) {
+				if (failure == null) {
+					failure = e;
+				} else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Doubles the capacity of the record buffers, but not beyond the memory
+	 * budget.
+	 */
+	private void growRecords() {
+
+		int capacity = (int) Math.min(this.maxRecordsInMemory, 2L * this.pairKeys.length);
+		this.pairKeys = Arrays.copyOf(this.pairKeys, capacity);
+		this.projectIDs = Arrays.copyOf(this.projectIDs, capacity);
+		this.daysWorkedTogether = Arrays.copyOf(this.daysWorkedTogether, capacity);
+	}
+
+	/**
+	 * Deletes all temporary files written so far.
+	 */
+	@Override
+	public void close() {
+
+		for (Path run : this.runs) {
+			try {
+				Files.deleteIfExists(run);
+			} catch (IOException e) {
+				logger.warning("Could not delete temporary file " + run + ": " + e.getMessage());
+			}
+		}
+		this.runs.clear();
+		this.size = 0;
+	}
+
+	/**
+	 * Sorts the records held in memory and writes them to a new temporary file.
+	 */
+	private void spill() throws IOException {
+
+		sortRecords(0, this.size);
+
+		Path run = this.tempDirectory == null ? Files.createTempFile("employee-pairs-", ".run")
+				: Files.createTempFile(this.tempDirectory, "employee-pairs-", ".run");
+		// register the run before writing, so that it is deleted even if writing fails
+		this.runs.add(run);
+
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(run), MAX_MERGE_BUFFER_SIZE))) {
+
+			out.writeInt(this.size);
+			for (int i = 0; i < this.size; i++) {
+				out.writeLong(this.pairKeys[i]);
+				out.writeInt(this.projectIDs[i]);
+				out.writeInt(this.daysWorkedTogether[i]);
+			}
+		}
+
+		logger.info("Memory budget reached, wrote " + this.size + " records to run #" + this.runs.size() + ".");
+		this.size = 0;
+	}
+
+	/**
+	 * Sorts the records in the range [from, to) by pair and project. Quick sort on
+	 * the primitive arrays, so that no objects are created per record.
+	 */
+	private void sortRecords(int from, int to) {
+
+		while (to - from > INSERTION_SORT_THRESHOLD) {
+
+			int middle = (from + to - 1) >>> 1;
+			long pivotKey = this.pairKeys[middle];
+			int pivotProject = this.projectIDs[middle];
+			int i = from;
+			int j = to - 1;
+
+			while (i <= j) {
+				while (compareRecord(i, pivotKey, pivotProject) < 0) {
+					i++;
+				}
+				while (compareRecord(j, pivotKey, pivotProject) > 0) {
+					j--;
+				}
+				if (i <= j) {
+					swapRecords(i, j);
+					i++;
+					j--;
+				}
+			}
+
+			// sort the smaller part recursively and continue with the larger one
+			if (j + 1 - from < to - i) {
+				sortRecords(from, j + 1);
+				from = i;
+			} else {
+				sortRecords(i, to);
+				to = j + 1;
+			}
+		}
+
+		for (int i = from + 1; i < to; i++) {
+			for (int j = i; j > from && compareRecord(j - 1, this.pairKeys[j], this.projectIDs[j]) > 0; j--) {
+				swapRecords(j - 1, j);
+			}
+		}
+	}
+
+	private int compareRecord(final int index, final long pairKey, final int projectID) {
+
+		int result = Long.compare(this.pairKeys[index], pairKey);
+		return result != 0 ? result : Integer.compare(this.projectIDs[index], projectID);
+	}
+
+	private void swapRecords(final int i, final int j) {
+
+		long pairKey = this.pairKeys[i];
+		this.pairKeys[i] = this.pairKeys[j];
+		this.pairKeys[j] = pairKey;
+
+		int projectID = this.projectIDs[i];
+		this.projectIDs[i] = this.projectIDs[j];
+		this.projectIDs[j] = projectID;
+
+		int days = this.daysWorkedTogether[i];
+		this.daysWorkedTogether[i] = this.daysWorkedTogether[j];
+		this.daysWorkedTogether[j] = days;
+	}
+
+	static long toPairKey(final int employee1ID, final int employee2ID) {
+
+		int first = Math.min(employee1ID, employee2ID);
+		int second = Math.max(employee1ID, employee2ID);
+		return ((long) first << 32) | (second & 0xFFFFFFFFL);
+	}
+
+	static int getEmployee1ID(final long pairKey) {
+		return (int) (pairKey >> 32);
+	}
+
+	static int getEmployee2ID(final long pairKey) {
+		return (int) pairKey;
+	}
+
+	/**
+	 * Reads the records of a single sorted run one after another.
+	 */
+	private interface RunCursor extends Closeable {
+
+		boolean next() throws IOException;
+
+		long getPairKey();
+
+		int getProjectID();
+
+		int getDaysWorkedTogether();
+	}
+
+	/**
+	 * Cursor over the sorted records still held in memory.
+	 */
+	private class MemoryRunCursor implements RunCursor {
+
+		private int index = -1;
+
+		@Override
+		public boolean next() {
+			return ++this.index < ExternalPairAggregator.this.size;
+		}
+
+		@Override
+		public long getPairKey() {
+			return ExternalPairAggregator.this.pairKeys[this.index];
+		}
+
+		@Override
+		public int getProjectID() {
+			return ExternalPairAggregator.this.projectIDs[this.index];
+		}
+
+		@Override
+		public int getDaysWorkedTogether() {
+			return ExternalPairAggregator.this.daysWorkedTogether[this.index];
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	/**
+	 * Cursor over a run written to a temporary file.
+	 */
+	private static class FileRunCursor implements RunCursor {
+
+		private final DataInputStream in;
+		private int remainingRecords;
+		private long pairKey;
+		private int projectID;
+		private int daysWorkedTogether;
+
+		FileRunCursor(final Path run, final int bufferSize) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), bufferSize));
+			this.remainingRecords = this.in.readInt();
+		}
+
+		@Override
+		public boolean next() throws IOException {
+
+			if (this.remainingRecords == 0) {
+				return false;
+			}
+			this.pairKey = this.in.readLong();
+			this.projectID = this.in.readInt();
+			this.daysWorkedTogether = this.in.readInt();
+			this.remainingRecords--;
+			return true;
+		}
+
+		@Override
+		public long getPairKey() {
+			return this.pairKey;
+		}
+
+		@Override
+		public int getProjectID() {
+			return this.projectID;
+		}
+
+		@Override
+		public int getDaysWorkedTogether() {
+			return this.daysWorkedTogether;
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.in.close();
+		}
+	}
+}
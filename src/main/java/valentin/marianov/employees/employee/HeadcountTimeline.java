@@ -0,0 +1,234 @@
+package valentin.marianov.employees.employee;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The number of employees working at the same time on every day, either on a
+ * single project or anywhere in the company.
+ * <p>
+ * The timeline is built from a difference array over the epoch days: every
+ * assignment adds one at its start day and subtracts one after its end day, the
+ * running sum over the days is then the headcount of every day. Therefore
+ * building it takes time in the order of the assignments plus the days, no
+ * matter how many employees work at the same time.
+ * <p>
+ * A timeline is not changed after it has been built, therefore it can be
+ * queried from several threads at the same time.
+ *
+ * @author Valentin
+ */
+public class HeadcountTimeline {
+
+	private final int firstDay;
+	private final int[] headcounts;
+
+	private final int peakHeadcount;
+	private final List<int[]> peakPeriods;
+	private final int staffedDays;
+	private final long personDays;
+
+	private HeadcountTimeline(final int firstDay, final int[] headcounts) {
+
+		this.firstDay = firstDay;
+		this.headcounts = headcounts;
+
+		int peak = 0;
+		int staffed = 0;
+		long total = 0;
+		for (int headcount : headcounts) {
+			peak = Math.max(peak, headcount);
+			staffed += headcount > 0 ? 1 : 0;
+			total += headcount;
+		}
+
+		// the periods of consecutive days with the peak headcount
+		List<int[]> periods = new ArrayList<int[]>();
+		for (int i = 0; i < headcounts.length && peak > 0; i++) {
+			if (headcounts[i] == peak) {
+				int start = i;
+				while (i + 1 < headcounts.length && headcounts[i + 1] == peak) {
+					i++;
+				}
+				periods.add(new int[] { firstDay + start, firstDay + i });
+			}
+		}
+
+		this.peakHeadcount = peak;
+		this.peakPeriods = periods;
+		this.staffedDays = staffed;
+		this.personDays = total;
+	}
+
+	/**
+	 * Builds the timeline of a project. The periods of an employee on the project
+	 * must not overlap (see {@link Employee#coalesceProjects()}), so that every
+	 * employee is counted once per day.
+	 *
+	 * @param project - the assignments of the project
+	 * @return the headcount of the project on every day
+	 *
+	 * @author Valentin
+	 */
+	public static HeadcountTimeline ofProject(final ProjectAssignments project) {
+
+		int firstDay = Integer.MAX_VALUE;
+		int lastDay = Integer.MIN_VALUE;
+		for (int i = 0; i < project.size(); i++) {
+			if (project.getStartDay(i) <= project.getEndDay(i)) {
+				firstDay = Math.min(firstDay, project.getStartDay(i));
+				lastDay = Math.max(lastDay, project.getEndDay(i));
+			}
+		}
+
+		if (firstDay > lastDay) {
+			return new HeadcountTimeline(0, new int[0]);
+		}
+
+		// one more day for the end of the last assignment
+		int[] differences = new int[lastDay - firstDay + 2];
+		for (int i = 0; i < project.size(); i++) {
+			addPeriod(differences, firstDay, project.getStartDay(i), project.getEndDay(i));
+		}
+		return new HeadcountTimeline(firstDay, toHeadcounts(differences));
+	}
+
+	/**
+	 * Builds the timeline of the whole company. An employee working on several
+	 * projects at the same time is counted only once, i.e. the periods of every
+	 * employee on all projects are merged first.
+	 *
+	 * @param projects - the assignments of all projects
+	 * @return the number of employees working on any project on every day
+	 *
+	 * @author Valentin
+	 */
+	public static HeadcountTimeline ofCompany(final Collection<ProjectAssignments> projects) {
+
+		HashMap<Integer, List<int[]>> periodsByEmployee = new HashMap<>();
+		int firstDay = Integer.MAX_VALUE;
+		int lastDay = Integer.MIN_VALUE;
+
+		for (ProjectAssignments project : projects) {
+			for (int i = 0; i < project.size(); i++) {
+				if (project.getStartDay(i) <= project.getEndDay(i)) {
+					periodsByEmployee.computeIfAbsent(project.getEmployeeID(i), employee -> new ArrayList<>())
+							.add(new int[] { project.getStartDay(i), project.getEndDay(i) });
+					firstDay = Math.min(firstDay, project.getStartDay(i));
+					lastDay = Math.max(lastDay, project.getEndDay(i));
+				}
+			}
+		}
+
+		if (firstDay > lastDay) {
+			return new HeadcountTimeline(0, new int[0]);
+		}
+
+		int[] differences = new int[lastDay - firstDay + 2];
+
+		for (List<int[]> periods : periodsByEmployee.values()) {
+
+			periods.sort(Comparator.comparingInt(period -> period[0]));
+			int start = periods.get(0)[0];
+			int end = periods.get(0)[1];
+
+			for (int[] period : periods) {
+				if (period[0] <= end + 1) {
+					end = Math.max(end, period[1]);
+				} else {
+					addPeriod(differences, firstDay, start, end);
+					start = period[0];
+					end = period[1];
+				}
+			}
+			addPeriod(differences, firstDay, start, end);
+		}
+		return new HeadcountTimeline(firstDay, toHeadcounts(differences));
+	}
+
+	private static void addPeriod(final int[] differences, final int firstDay, final int startDay,
+			final int endDay) {
+
+		if (startDay <= endDay) {
+			differences[startDay - firstDay]++;
+			differences[endDay - firstDay + 1]--;
+		}
+	}
+
+	/**
+	 * Sums up the differences of all days up to every day, without the extra day
+	 * after the last one.
+	 */
+	private static int[] toHeadcounts(final int[] differences) {
+
+		int[] headcounts = new int[differences.length - 1];
+		int headcount = 0;
+		for (int i = 0; i < headcounts.length; i++) {
+			headcount += differences[i];
+			headcounts[i] = headcount;
+		}
+		return headcounts;
+	}
+
+	/**
+	 * @return the epoch day of the first day with a headcount
+	 */
+	public int getFirstDay() {
+		return this.firstDay;
+	}
+
+	/**
+	 * @return the epoch day of the last day with a headcount
+	 */
+	public int getLastDay() {
+		return this.firstDay + this.headcounts.length - 1;
+	}
+
+	/**
+	 * @param epochDay - the day
+	 * @return the number of employees working on the day
+	 */
+	public int getHeadcount(final int epochDay) {
+
+		int index = epochDay - this.firstDay;
+		return index >= 0 && index < this.headcounts.length ? this.headcounts[index] : 0;
+	}
+
+	/**
+	 * @return the highest number of employees working on the same day
+	 */
+	public int getPeakHeadcount() {
+		return this.peakHeadcount;
+	}
+
+	/**
+	 * @return the periods with the peak headcount, each of them as first and last
+	 *         epoch day (inclusive), the earliest first
+	 */
+	public List<int[]> getPeakPeriods() {
+
+		List<int[]> periods = new ArrayList<int[]>();
+		for (int[] period : this.peakPeriods) {
+			periods.add(period.clone());
+		}
+		return periods;
+	}
+
+	/**
+	 * @return the number of days with at least one employee working
+	 */
+	public int getStaffedDays() {
+		return this.staffedDays;
+	}
+
+	/**
+	 * @return the average number of employees working on the days with at least
+	 *         one employee, 0 in case there are no such days
+	 */
+	public double getAverageHeadcount() {
+		return this.staffedDays == 0 ? 0 : (double) this.personDays / this.staffedDays;
+	}
+}
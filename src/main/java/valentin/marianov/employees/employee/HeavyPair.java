@@ -0,0 +1,71 @@
+package valentin.marianov.employees.employee;
+
+/**
+ * A pair of employees found by the approximate search for the pairs with the
+ * most days worked together, see {@link SpaceSavingPairs}. The estimated days
+ * are an upper bound of the days actually worked together, the estimate minus
+ * the maximum error a lower bound.
+ *
+ * @author Valentin
+ */
+public class HeavyPair {
+
+	private final int employee1ID;
+	private final int employee2ID;
+	private final long estimatedDays;
+	private final long maximumError;
+	private long exactDays = -1;
+
+	public HeavyPair(final int employee1ID, final int employee2ID, final long estimatedDays,
+			final long maximumError) {
+		this.employee1ID = employee1ID;
+		this.employee2ID = employee2ID;
+		this.estimatedDays = estimatedDays;
+		this.maximumError = maximumError;
+	}
+
+	public int getEmployee1ID() {
+		return this.employee1ID;
+	}
+
+	public int getEmployee2ID() {
+		return this.employee2ID;
+	}
+
+	/**
+	 * @return the estimated days worked together, never less than the exact days
+	 */
+	public long getEstimatedDays() {
+		return this.estimatedDays;
+	}
+
+	/**
+	 * @return the maximum amount of days the estimate may be too high
+	 */
+	public long getMaximumError() {
+		return this.maximumError;
+	}
+
+	/**
+	 * @return the days worked together at least
+	 */
+	public long getLowerBound() {
+		return this.estimatedDays - this.maximumError;
+	}
+
+	/**
+	 * @return the exact days worked together, -1 in case the pair has not been
+	 *         verified
+	 */
+	public long getExactDays() {
+		return this.exactDays;
+	}
+
+	public boolean isVerified() {
+		return this.exactDays >= 0;
+	}
+
+	void setExactDays(final long exactDays) {
+		this.exactDays = exactDays;
+	}
+}
@@ -0,0 +1,68 @@
+package valentin.marianov.employees.employee;
+
+import java.util.Arrays;
+
+import valentin.marianov.employees.utility.DayRangeOverlaps;
+
+/**
+ * Compares the date ranges of the assignments of a project with each other.
+ * <p>
+ * The assignments are sorted by their start day and swept from the earliest to
+ * the latest one. Each assignment is only compared with the assignments starting
+ * before it ends, since no other assignment can overlap with it. Every
+ * overlapping pair of assignments is reported separately, i.e. an employee with
+ * several assignments on the project may be reported more than once for the
+ * same colleague.
+ * <p>
+ * The overlaps of an assignment with all assignments starting before it ends
+ * are computed at once by {@link DayRangeOverlaps}, i.e. by SIMD instructions
+ * when the Vector API is available.
+ *
+ * @author Valentin
+ */
+public class IntervalOverlapEngine implements OverlapEngine {
+
+	@Override
+	public void findPairs(final ProjectAssignments project, final PairCollector collector) {
+
+		// start day in the upper and index in the lower half, sorting orders by start
+		// day without creating any objects
+		long[] byStartDay = new long[project.size()];
+		for (int i = 0; i < byStartDay.length; i++) {
+			byStartDay[i] = ((long) project.getStartDay(i) << 32) | i;
+		}
+		Arrays.sort(byStartDay);
+
+		// the assignments in the order of their start days, as primitive arrays
+		int[] employeeIDs = new int[byStartDay.length];
+		int[] startDays = new int[byStartDay.length];
+		int[] endDays = new int[byStartDay.length];
+		for (int i = 0; i < byStartDay.length; i++) {
+			employeeIDs[i] = project.getEmployeeID((int) byStartDay[i]);
+			startDays[i] = project.getStartDay((int) byStartDay[i]);
+			endDays[i] = project.getEndDay((int) byStartDay[i]);
+		}
+
+		int[] overlaps = new int[byStartDay.length];
+
+		for (int i = 0; i < byStartDay.length; i++) {
+
+			// all assignments starting before the end of the first one
+			int end = i + 1;
+			while (end < startDays.length && startDays[end] <= endDays[i]) {
+				end++;
+			}
+
+			DayRangeOverlaps.computeOverlaps(startDays[i], endDays[i], startDays, endDays, i + 1, end, overlaps);
+
+			for (int j = i + 1; j < end; j++) {
+
+				int overlapInDays = overlaps[j - i - 1];
+
+				if (overlapInDays >= 1 && employeeIDs[i] != employeeIDs[j]) {
+					collector.collect(employeeIDs[i], employeeIDs[j], project.getProjectID(), overlapInDays);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package valentin.marianov.employees.employee;
+
+/**
+ * Computes the common working periods of all employees assigned to a project.
+ * <p>
+ * Every two employees who have worked at least one day together on the project
+ * are reported to the collector (only once, in no particular order of the two
+ * employees).
+ *
+ * @author Valentin
+ */
+public interface OverlapEngine {
+
+	void findPairs(ProjectAssignments project, PairCollector collector);
+
+}
@@ -0,0 +1,41 @@
+package valentin.marianov.employees.employee;
+
+/**
+ * Chooses the {@link OverlapEngine} for a project based on its density, i.e. on
+ * how many assignments every employee has and how many days they cover.
+ *
+ * @author Valentin
+ */
+public class OverlapEngines {
+
+	public static final OverlapEngine INTERVAL = new IntervalOverlapEngine();
+	public static final OverlapEngine BITSET = new BitsetOverlapEngine();
+
+	/**
+	 * Compares the estimated costs of both engines for two employees of the
+	 * project. The interval engine compares every assignment of the first with
+	 * every assignment of the second employee, whereas the bitset engine needs one
+	 * AND per 64 days worked. Therefore the bitsets are used for employees with
+	 * many short assignments and the intervals for long, continuous ones.
+	 *
+	 * @param project - the assignments of the project
+	 * @return the engine to compute the common working periods of the project
+	 *
+	 * @author Valentin
+	 */
+	public static OverlapEngine forProject(final ProjectAssignments project) {
+
+		int employeeCount = project.getEmployeeCount();
+		if (employeeCount < 2) {
+			return INTERVAL;
+		}
+
+		double assignmentsPerEmployee = (double) project.size() / employeeCount;
+		double daysPerEmployee = (double) project.getAssignedDays() / employeeCount;
+
+		double intervalCost = assignmentsPerEmployee * assignmentsPerEmployee;
+		double bitsetCost = daysPerEmployee / Long.SIZE + 1;
+
+		return bitsetCost < intervalCost ? BITSET : INTERVAL;
+	}
+}
@@ -0,0 +1,64 @@
+package valentin.marianov.employees.employee;
+
+/**
+ * The total days a pair of employees has worked together in an old and a new
+ * version of the data, see {@link DatasetDiff}. A pair, who has not worked
+ * together in one of the versions, has 0 days in it.
+ *
+ * @author Valentin
+ */
+public class PairChange {
+
+	private final int employee1ID;
+	private final int employee2ID;
+	private final int oldDays;
+	private final int newDays;
+
+	public PairChange(final int employee1ID, final int employee2ID, final int oldDays, final int newDays) {
+		this.employee1ID = employee1ID;
+		this.employee2ID = employee2ID;
+		this.oldDays = oldDays;
+		this.newDays = newDays;
+	}
+
+	/**
+	 * @return the smaller employee id
+	 */
+	public int getEmployee1ID() {
+		return this.employee1ID;
+	}
+
+	/**
+	 * @return the bigger employee id
+	 */
+	public int getEmployee2ID() {
+		return this.employee2ID;
+	}
+
+	public int getOldDays() {
+		return this.oldDays;
+	}
+
+	public int getNewDays() {
+		return this.newDays;
+	}
+
+	/**
+	 * @return true for a pair, who has worked together only in the new version
+	 */
+	public boolean isAdded() {
+		return this.oldDays == 0 && this.newDays > 0;
+	}
+
+	/**
+	 * @return true for a pair, who has worked together only in the old version
+	 */
+	public boolean isRemoved() {
+		return this.oldDays > 0 && this.newDays == 0;
+	}
+
+	@Override
+	public String toString() {
+		return this.employee1ID + "," + this.employee2ID + "," + this.oldDays + "," + this.newDays;
+	}
+}
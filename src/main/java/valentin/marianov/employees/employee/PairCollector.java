@@ -0,0 +1,15 @@
+package valentin.marianov.employees.employee;
+
+/**
+ * Receives every common working period of two employees on a project, i.e. the
+ * project they have worked on together and the overlap of their date ranges in
+ * days.
+ *
+ * @author Valentin
+ */
+@FunctionalInterface
+public interface PairCollector {
+
+	void collect(int employee1ID, int employee2ID, int projectID, int daysWorkedTogether);
+
+}
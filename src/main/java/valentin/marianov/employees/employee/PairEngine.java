@@ -0,0 +1,388 @@
+package valentin.marianov.employees.employee;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import valentin.marianov.employees.utility.FairWorkerPool;
+import valentin.marianov.employees.utility.IdDictionary;
+
+/**
+ * Finds the pairs of employees, who have worked together, with its own options
+ * instead of the static methods of {@link EmployeeProcessing}. An engine is
+ * created with a {@link Builder} and not changed afterwards, so it can be used
+ * by many threads at the same time, e.g. by all requests of a service.
+ * <p>
+ * The work of every call (reading files, finding the pairs of the projects) is
+ * split into tasks run by a {@link FairWorkerPool}, which can be shared by
+ * several engines. Every call is a job of its own, the jobs take turns, so a
+ * big analysis does not hold up the small ones.
+ * <p>
+ * The pair totals of a call stay within the memory budget of the engine: they
+ * are held in matrices as long as these fit into the budget, otherwise they are
+ * aggregated by an {@link ExternalPairAggregator}, which spills them to disk.
+ * <p>
+ * An engine never shows pop-up messages, errors are returned to the caller.
+ *
+ * @author Valentin
+ */
+public class PairEngine {
+
+	private static Logger logger = Logger.getLogger("employees-logger");
+
+	/** the default memory budget of a call, 64 MB */
+	static final long DEFAULT_MEMORY_BUDGET = DensePairTotals.DEFAULT_MAX_MATRIX_CELLS * Integer.BYTES;
+
+	/** common working periods a part collects before handing them to the aggregator */
+	private static final int BATCH_RECORDS = 256;
+
+	private final int parallelism;
+	private final long memoryBudgetInBytes;
+	private final Date asOf;
+	private final boolean lenient;
+	private final FairWorkerPool workerPool;
+
+	private PairEngine(final Builder builder) {
+		this.parallelism = builder.parallelism;
+		this.memoryBudgetInBytes = builder.memoryBudgetInBytes > 0 ? builder.memoryBudgetInBytes
+				: DEFAULT_MEMORY_BUDGET;
+		this.asOf = builder.asOf == null ? null : new Date(builder.asOf.getTime());
+		this.lenient = builder.lenient;
+		this.workerPool = builder.workerPool != null ? builder.workerPool : FairWorkerPool.getCommonPool();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	public long getMemoryBudgetInBytes() {
+		return this.memoryBudgetInBytes;
+	}
+
+	/**
+	 * @param employeeCount - the number of employees of a call
+	 * @param parts         - the number of parts the projects are split into
+	 * @return true in case the pair totals of every part are held in a matrix,
+	 *         i.e. all matrices together fit into the memory budget, otherwise
+	 *         they are spilled to disk
+	 */
+	public boolean holdsTotalsInMatrices(final int employeeCount, final int parts) {
+
+		long cells = (long) employeeCount * (employeeCount - 1) / 2;
+		return cells <= Integer.MAX_VALUE - 8 && cells * Integer.BYTES <= this.memoryBudgetInBytes / parts;
+	}
+
+	/**
+	 * @return the day the data is looked at, null for today
+	 */
+	public Date getAsOf() {
+		return this.asOf == null ? null : new Date(this.asOf.getTime());
+	}
+
+	public boolean isLenient() {
+		return this.lenient;
+	}
+
+	/**
+	 * Reads the files in parallel and merges their employees, see
+	 * {@link EmployeeProcessing#processEmployeesOfFiles(List, List, boolean)}.
+	 * Open end dates end on the as-of day and periods after it are cut off. When
+	 * lenient, rows with errors are skipped, otherwise a file with an error does
+	 * not contribute any employees.
+	 *
+	 * @param files  - lists with csv separated values in the form EmployeeID,
+	 *               ProjectID, DateFrom, DateTo
+	 * @param errors - receives the errors of all files in the order of the files,
+	 *               prefixed by the file and row, may be null
+	 * @return all employees of all files
+	 *
+	 * @author Valentin
+	 */
+	public List<Employee> readEmployees(final List<File> files, final List<String> errors) {
+
+		FairWorkerPool.Job job = this.workerPool.newJob(this.parallelism);
+		List<List<String>> errorsOfFiles = new ArrayList<List<String>>();
+		List<Future<List<Employee>>> partialEmployees = new ArrayList<>();
+
+		for (File file : files) {
+			List<String> errorsOfFile = new ArrayList<String>();
+			errorsOfFiles.add(errorsOfFile);
+			partialEmployees.add(job.submit(() -> EmployeeProcessing.processEmployeesAndTheirProjects(file, true,
+					errorsOfFile, this.asOf, this.lenient)));
+		}
+
+		List<Employee> employees = EmployeeProcessing.mergeEmployees(await(partialEmployees));
+
+		if (errors != null) {
+			for (List<String> errorsOfFile : errorsOfFiles) {
+				errors.addAll(errorsOfFile);
+			}
+		}
+		return employees;
+	}
+
+	/**
+	 * Finds the pairs with the most days worked together like
+	 * {@link EmployeeProcessing#findTopWorkingEmployeePairs(List, int)}. The
+	 * projects are split into as many parts as the parallelism, the pairs of every
+	 * part are summed up separately and merged afterwards. The memory budget is
+	 * shared by the parts. In case their matrices would exceed it, all parts hand
+	 * their common working periods to one {@link ExternalPairAggregator} instead,
+	 * see {@link #holdsTotalsInMatrices(int, int)}.
+	 *
+	 * @param employees - all employees and their projects
+	 * @param k         - the maximum number of pairs
+	 * @return array holding both employee ids (the smaller one first), project ids
+	 *         and the work period in days of every pair, the longest first
+	 *
+	 * @author Valentin
+	 */
+	public List<String[]> findTopWorkingEmployeePairs(final List<Employee> employees, final int k) {
+
+		long start = System.nanoTime();
+
+		IdDictionary employeeCodes = new IdDictionary(employees.size());
+		IdDictionary projectCodes = new IdDictionary();
+		List<ProjectAssignments> projects = ProjectAssignments.indexByProject(employees, employeeCodes,
+				projectCodes);
+
+		int parts = Math.max(Math.min(this.parallelism, projects.size()), 1);
+		boolean inMatrices = holdsTotalsInMatrices(employeeCodes.size(), parts);
+
+		List<int[]> rankedPairs = inMatrices ? rankInMatrices(projects, employeeCodes, parts, k)
+				: rankOnDisk(projects, employeeCodes, parts, k);
+		List<String[]> topPairs = EmployeeProcessing.toPairArrays(rankedPairs, employees, projectCodes);
+
+		logger.info("Found the top " + topPairs.size() + " pairs of " + employees.size() + " employees in " + parts
+				+ " parts " + (inMatrices ? "in memory" : "spilled to disk") + " in "
+				+ (System.nanoTime() - start) / 1_000_000 + " ms.");
+		return topPairs;
+	}
+
+	/**
+	 * Sums up the pairs of every part in a matrix of its own and merges the
+	 * matrices afterwards.
+	 */
+	private List<int[]> rankInMatrices(final List<ProjectAssignments> projects, final IdDictionary employeeCodes,
+			final int parts, final int k) {
+
+		FairWorkerPool.Job job = this.workerPool.newJob(this.parallelism);
+		List<Future<DensePairTotals>> partialTotals = new ArrayList<>();
+
+		for (int part = 0; part < parts; part++) {
+			int firstProject = part;
+			partialTotals.add(job.submit(() -> {
+				DensePairTotals totals = new DensePairTotals(employeeCodes.size(), Integer.MAX_VALUE);
+				for (int i = firstProject; i < projects.size(); i += parts) {
+					OverlapEngines.forProject(projects.get(i)).findPairs(projects.get(i), totals);
+				}
+				return totals;
+			}));
+		}
+
+		List<DensePairTotals> totals = await(partialTotals);
+		for (int part = 1; part < totals.size(); part++) {
+			totals.get(0).addAll(totals.get(part));
+		}
+		return EmployeeProcessing.rankTopPairs(totals.get(0)::forEach, employeeCodes, k);
+	}
+
+	/**
+	 * Hands the common working periods of all parts to one aggregator within the
+	 * memory budget, each part in batches of {@link #BATCH_RECORDS}, and ranks the
+	 * pairs while merging the runs.
+	 */
+	private List<int[]> rankOnDisk(final List<ProjectAssignments> projects, final IdDictionary employeeCodes,
+			final int parts, final int k) {
+
+		long batchBytes = (long) parts * BATCH_RECORDS * 4 * Integer.BYTES;
+
+		try (ExternalPairAggregator aggregator = new ExternalPairAggregator(
+				Math.max(this.memoryBudgetInBytes - batchBytes, 1))) {
+
+			FairWorkerPool.Job job = this.workerPool.newJob(this.parallelism);
+			List<Future<Void>> partsDone = new ArrayList<>();
+
+			for (int part = 0; part < parts; part++) {
+				int firstProject = part;
+				partsDone.add(job.submit(() -> {
+					PairBatch batch = new PairBatch(aggregator);
+					for (int i = firstProject; i < projects.size(); i += parts) {
+						OverlapEngines.forProject(projects.get(i)).findPairs(projects.get(i), batch);
+					}
+					batch.flush();
+					return null;
+				}));
+			}
+			await(partsDone);
+
+			return EmployeeProcessing.rankTopPairs(visitor -> {
+				try {
+					aggregator.merge((employee1Code, employee2Code, projectCodes, days) -> visitor
+							.visit(employee1Code, employee2Code, days));
+				} catch (IOException e) {
+					throw new UncheckedIOException("Could not read the spilled employee pairs.", e);
+				}
+			}, employeeCodes, k);
+		}
+	}
+
+	/**
+	 * @param employees - all employees and their projects
+	 * @return array holding both employee ids, project ids and the work period in
+	 *         days of the pair with the most days worked together, null in case
+	 *         there is no pair
+	 */
+	public String[] findLongestWorkingEmployeePair(final List<Employee> employees) {
+
+		List<String[]> topPairs = findTopWorkingEmployeePairs(employees, 1);
+		return topPairs.isEmpty() ? null : topPairs.get(0);
+	}
+
+	/**
+	 * Waits for the results of all tasks. An exception of a task is thrown again.
+	 */
+	private static <T> List<T> await(final List<Future<T>> futures) {
+
+		List<T> results = new ArrayList<T>(futures.size());
+		try {
+			for (Future<T> future : futures) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the workers.", e);
+
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+		return results;
+	}
+
+	/**
+	 * Collects the common working periods of a part and hands them to the shared
+	 * aggregator once the batch is full, so that the parts only synchronize once
+	 * per batch.
+	 */
+	private static class PairBatch implements PairCollector {
+
+		private final ExternalPairAggregator aggregator;
+
+		// employee codes, project and days of every period
+		private final int[] records = new int[BATCH_RECORDS * 4];
+		private int size;
+
+		PairBatch(final ExternalPairAggregator aggregator) {
+			this.aggregator = aggregator;
+		}
+
+		@Override
+		public void collect(int employee1Code, int employee2Code, int projectID, int daysWorkedTogether) {
+
+			if (this.size == this.records.length) {
+				flush();
+			}
+			this.records[this.size++] = employee1Code;
+			this.records[this.size++] = employee2Code;
+			this.records[this.size++] = projectID;
+			this.records[this.size++] = daysWorkedTogether;
+		}
+
+		void flush() {
+
+			synchronized (this.aggregator) {
+				for (int i = 0; i < this.size; i += 4) {
+					this.aggregator.collect(this.records[i], this.records[i + 1], this.records[i + 2],
+							this.records[i + 3]);
+				}
+			}
+			this.size = 0;
+		}
+	}
+
+	/**
+	 * Collects the options of a {@link PairEngine}.
+	 */
+	public static class Builder {
+
+		private int parallelism = Runtime.getRuntime().availableProcessors();
+		private long memoryBudgetInBytes;
+		private Date asOf;
+		private boolean lenient;
+		private FairWorkerPool workerPool;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param parallelism - the number of tasks of a call running at the same time
+		 *                    at most, by default the number of processors
+		 */
+		public Builder parallelism(final int parallelism) {
+			if (parallelism < 1) {
+				throw new IllegalArgumentException("The parallelism has to be at least 1, not " + parallelism + ".");
+			}
+			this.parallelism = parallelism;
+			return this;
+		}
+
+		/**
+		 * Limits the memory used for the pair totals of a call. Above it the pairs are
+		 * spilled to temporary files. The employees and the pairs returned are not
+		 * part of the budget.
+		 *
+		 * @param memoryBudgetInBytes - memory available for the pair totals of a
+		 *                            call, 0 for the default of 64 MB
+		 */
+		public Builder memoryBudget(final long memoryBudgetInBytes) {
+			this.memoryBudgetInBytes = Math.max(memoryBudgetInBytes, 0);
+			return this;
+		}
+
+		/**
+		 * @param asOf - the day the data is looked at: open end dates end on it, later
+		 *             periods are cut off. Null (the default) for today.
+		 */
+		public Builder asOf(final Date asOf) {
+			this.asOf = asOf;
+			return this;
+		}
+
+		/**
+		 * @param lenient - set to true in order to skip rows with errors instead of
+		 *                rejecting the whole file
+		 */
+		public Builder lenient(final boolean lenient) {
+			this.lenient = lenient;
+			return this;
+		}
+
+		/**
+		 * @param workerPool - the pool running the tasks, by default the common pool
+		 */
+		public Builder workerPool(final FairWorkerPool workerPool) {
+			this.workerPool = workerPool;
+			return this;
+		}
+
+		public PairEngine build() {
+			return new PairEngine(this);
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package valentin.marianov.employees.employee;
+
+import java.util.List;
+
+/**
+ * Receives the final totals of a pair of employees, i.e. all common projects and
+ * the total amount of days they have worked together on them.
+ *
+ * @author Valentin
+ */
+@FunctionalInterface
+public interface PairTotalCollector {
+
+	void collect(int employee1ID, int employee2ID, List<Integer> projectIDs, int totalDaysWorkedTogether);
+
+}
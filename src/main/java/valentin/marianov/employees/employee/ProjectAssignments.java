@@ -0,0 +1,186 @@
+package valentin.marianov.employees.employee;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import valentin.marianov.employees.utility.DateUtility;
+import valentin.marianov.employees.utility.IdDictionary;
+
+/**
+ * Holds all assignments of employees to a single project, i.e. the employee id
+ * together with the begin and end day of work. Days are stored as epoch days in
+ * primitive arrays, so that the overlap of two assignments can be computed
+ * without creating any objects.
+ * <p>
+ * Besides the assignments, simple statistics about the project (span, assigned
+ * days, number of employees) are provided. Those are used to choose the
+ * {@link OverlapEngine} best suited for the project.
+ *
+ * @author Valentin
+ */
+public class ProjectAssignments {
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	private final int projectID;
+	private int[] employeeIDs;
+	private int[] startDays;
+	private int[] endDays;
+	private int size;
+
+	private int firstDay = Integer.MAX_VALUE;
+	private int lastDay = Integer.MIN_VALUE;
+	private long assignedDays;
+
+	public ProjectAssignments(final int projectID) {
+		this.projectID = projectID;
+		this.employeeIDs = new int[INITIAL_CAPACITY];
+		this.startDays = new int[INITIAL_CAPACITY];
+		this.endDays = new int[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Groups the projects of all employees by project id. The projects are kept in
+	 * the order they first appear in.
+	 *
+	 * @param employees - all employees and their projects
+	 * @return the assignments of every project
+	 *
+	 * @author Valentin
+	 */
+	public static LinkedHashMap<Integer, ProjectAssignments> indexByProject(final List<Employee> employees) {
+
+		LinkedHashMap<Integer, ProjectAssignments> projects = new LinkedHashMap<>();
+
+		for (Employee employee : employees) {
+			for (int i = 0; i < employee.getListSize(); i++) {
+				projects.computeIfAbsent(employee.getProjectId(i), ProjectAssignments::new).add(
+						employee.getEmployeeId(), DateUtility.toEpochDay(employee.getStartDate(i)),
+						DateUtility.toEpochDay(employee.getEndDate(i)));
+			}
+		}
+		return projects;
+	}
+
+	/**
+	 * Groups the projects of all employees by project like
+	 * {@link #indexByProject(List)}, but encodes the ids on the way: the employees
+	 * are held by their codes in the employee dictionary and every project gets
+	 * the code of its id in the project dictionary as project id. The projects are
+	 * returned in the order of their codes, i.e. the order they first appear in.
+	 *
+	 * @param employees     - all employees and their projects
+	 * @param employeeCodes - receives the codes of all employee ids
+	 * @param projectCodes  - receives the codes of all project ids
+	 * @return the assignments of every project, indexed by project code
+	 *
+	 * @author Valentin
+	 */
+	public static List<ProjectAssignments> indexByProject(final List<Employee> employees,
+			final IdDictionary employeeCodes, final IdDictionary projectCodes) {
+
+		List<ProjectAssignments> projects = new ArrayList<ProjectAssignments>();
+
+		for (Employee employee : employees) {
+
+			int employeeCode = employeeCodes.encode(employee.getEmployeeId());
+
+			for (int i = 0; i < employee.getListSize(); i++) {
+
+				int projectCode = projectCodes.encode(employee.getProjectId(i));
+				if (projectCode == projects.size()) {
+					projects.add(new ProjectAssignments(projectCode));
+				}
+				projects.get(projectCode).add(employeeCode, DateUtility.toEpochDay(employee.getStartDate(i)),
+						DateUtility.toEpochDay(employee.getEndDate(i)));
+			}
+		}
+		return projects;
+	}
+
+	/**
+	 * Adds the assignment of an employee to the project.
+	 *
+	 * @param employeeID - the employee
+	 * @param startDay   - epoch day the employee started working on the project
+	 * @param endDay     - epoch day the employee stopped working on the project
+	 *                   (inclusive)
+	 */
+	public void add(final int employeeID, final int startDay, final int endDay) {
+
+		if (this.size == this.employeeIDs.length) {
+			int capacity = this.size * 2;
+			this.employeeIDs = Arrays.copyOf(this.employeeIDs, capacity);
+			this.startDays = Arrays.copyOf(this.startDays, capacity);
+			this.endDays = Arrays.copyOf(this.endDays, capacity);
+		}
+
+		this.employeeIDs[this.size] = employeeID;
+		this.startDays[this.size] = startDay;
+		this.endDays[this.size] = endDay;
+		this.size++;
+
+		if (startDay <= endDay) {
+			this.firstDay = Math.min(this.firstDay, startDay);
+			this.lastDay = Math.max(this.lastDay, endDay);
+			this.assignedDays += endDay - startDay + 1;
+		}
+	}
+
+	public int getProjectID() {
+		return this.projectID;
+	}
+
+	/**
+	 * @return the number of assignments
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	public int getEmployeeID(final int index) {
+		return this.employeeIDs[index];
+	}
+
+	public int getStartDay(final int index) {
+		return this.startDays[index];
+	}
+
+	public int getEndDay(final int index) {
+		return this.endDays[index];
+	}
+
+	/**
+	 * @return the number of days between the first start and the last end day of
+	 *         the project (inclusive), 0 for a project without valid assignments
+	 */
+	public int getSpanInDays() {
+		return this.assignedDays == 0 ? 0 : this.lastDay - this.firstDay + 1;
+	}
+
+	/**
+	 * @return the sum of the days of all assignments
+	 */
+	public long getAssignedDays() {
+		return this.assignedDays;
+	}
+
+	/**
+	 * @return the number of different employees assigned to the project
+	 */
+	public int getEmployeeCount() {
+
+		int[] employees = Arrays.copyOf(this.employeeIDs, this.size);
+		Arrays.sort(employees);
+
+		int count = 0;
+		for (int i = 0; i < employees.length; i++) {
+			if (i == 0 || employees[i] != employees[i - 1]) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
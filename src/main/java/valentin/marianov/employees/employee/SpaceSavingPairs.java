@@ -0,0 +1,211 @@
+package valentin.marianov.employees.employee;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tracks the pairs of employees with the most days worked together in a fixed
+ * amount of memory, using the (weighted) Space-Saving algorithm.
+ * <p>
+ * At most capacity pairs are counted. A pair not counted yet replaces the pair
+ * with the fewest days, taking over its days as possible error. Hence the days
+ * of a pair are never underestimated and overestimated by at most its error,
+ * which itself is at most the total days of all pairs divided by the capacity.
+ * Every pair with more days than that is guaranteed to be counted.
+ * <p>
+ * The pairs are held in primitive arrays: a min-heap ordered by days, so that
+ * the pair to replace is found at once, and an open addressing hash table from
+ * pair to heap entry. Nothing is allocated while the pairs are collected.
+ *
+ * @author Valentin
+ */
+public class SpaceSavingPairs implements PairCollector {
+
+	private static final int EMPTY = -1;
+
+	private final int capacity;
+	private int size;
+	private long totalDays;
+
+	// per entry: the pair, its days and error
+	private final long[] pairKeys;
+	private final long[] days;
+	private final long[] errors;
+
+	// min-heap of entries by days and the position of every entry in the heap
+	private final int[] heap;
+	private final int[] heapPositions;
+
+	// hash table slot -> entry, EMPTY for a free slot
+	private final int[] table;
+
+	/**
+	 * @param capacity - the number of pairs counted at most
+	 */
+	public SpaceSavingPairs(final int capacity) {
+
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity has to be at least 1, not " + capacity + ".");
+		}
+
+		this.capacity = capacity;
+		this.pairKeys = new long[capacity];
+		this.days = new long[capacity];
+		this.errors = new long[capacity];
+		this.heap = new int[capacity];
+		this.heapPositions = new int[capacity];
+		this.table = new int[Integer.highestOneBit(capacity) << 2];
+		Arrays.fill(this.table, EMPTY);
+	}
+
+	@Override
+	public void collect(int employee1ID, int employee2ID, int projectID, int daysWorkedTogether) {
+
+		long pairKey = ExternalPairAggregator.toPairKey(employee1ID, employee2ID);
+		this.totalDays += daysWorkedTogether;
+
+		int slot = findSlot(pairKey);
+		int entry = this.table[slot];
+
+		if (entry == EMPTY) {
+			if (this.size < this.capacity) {
+				entry = this.size++;
+				this.heap[entry] = entry;
+				this.heapPositions[entry] = entry;
+				this.days[entry] = 0;
+				this.errors[entry] = 0;
+				siftUp(entry);
+			} else {
+				// replace the pair with the fewest days
+				entry = this.heap[0];
+				removeFromTable(this.pairKeys[entry]);
+				this.errors[entry] = this.days[entry];
+				slot = findSlot(pairKey);
+			}
+			this.pairKeys[entry] = pairKey;
+			this.table[slot] = entry;
+		}
+
+		this.days[entry] += daysWorkedTogether;
+		siftDown(this.heapPositions[entry]);
+	}
+
+	/**
+	 * @return the sum of the days of all common working periods collected
+	 */
+	public long getTotalDays() {
+		return this.totalDays;
+	}
+
+	/**
+	 * @return the maximum error of any pair, i.e. the days of the pair with the
+	 *         fewest days in case all entries are used, otherwise 0
+	 */
+	public long getMaximumError() {
+		return this.size < this.capacity ? 0 : this.days[this.heap[0]];
+	}
+
+	/**
+	 * @param k - the maximum number of pairs
+	 * @return the pairs with the most estimated days, the most first (on equal
+	 *         days the smaller employee ids)
+	 */
+	public List<HeavyPair> findTopPairs(final int k) {
+
+		List<HeavyPair> pairs = new ArrayList<HeavyPair>(this.size);
+		for (int entry = 0; entry < this.size; entry++) {
+			pairs.add(new HeavyPair(ExternalPairAggregator.getEmployee1ID(this.pairKeys[entry]),
+					ExternalPairAggregator.getEmployee2ID(this.pairKeys[entry]), this.days[entry],
+					this.errors[entry]));
+		}
+
+		pairs.sort((pair1, pair2) -> {
+			int result = Long.compare(pair2.getEstimatedDays(), pair1.getEstimatedDays());
+			if (result == 0) {
+				result = Long.compare(ExternalPairAggregator.toPairKey(pair1.getEmployee1ID(), pair1.getEmployee2ID()),
+						ExternalPairAggregator.toPairKey(pair2.getEmployee1ID(), pair2.getEmployee2ID()));
+			}
+			return result;
+		});
+		return new ArrayList<HeavyPair>(pairs.subList(0, Math.max(Math.min(k, pairs.size()), 0)));
+	}
+
+	private int findSlot(final long pairKey) {
+
+		int mask = this.table.length - 1;
+		int slot = hash(pairKey) & mask;
+		while (this.table[slot] != EMPTY && this.pairKeys[this.table[slot]] != pairKey) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Removes the pair from the hash table and moves the following entries back,
+	 * so that no entry becomes unreachable.
+	 */
+	private void removeFromTable(final long pairKey) {
+
+		int mask = this.table.length - 1;
+		int slot = findSlot(pairKey);
+		this.table[slot] = EMPTY;
+
+		int next = (slot + 1) & mask;
+		while (this.table[next] != EMPTY) {
+
+			int home = hash(this.pairKeys[this.table[next]]) & mask;
+			// the entry may move to the free slot, if that lies between its home and its slot
+			if (((next - home) & mask) >= ((next - slot) & mask)) {
+				this.table[slot] = this.table[next];
+				this.table[next] = EMPTY;
+				slot = next;
+			}
+			next = (next + 1) & mask;
+		}
+	}
+
+	private void siftUp(int position) {
+
+		int entry = this.heap[position];
+		while (position > 0) {
+			int parent = (position - 1) / 2;
+			if (this.days[this.heap[parent]] <= this.days[entry]) {
+				break;
+			}
+			moveTo(this.heap[parent], position);
+			position = parent;
+		}
+		moveTo(entry, position);
+	}
+
+	private void siftDown(int position) {
+
+		int entry = this.heap[position];
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= this.size) {
+				break;
+			}
+			if (child + 1 < this.size && this.days[this.heap[child + 1]] < this.days[this.heap[child]]) {
+				child++;
+			}
+			if (this.days[entry] <= this.days[this.heap[child]]) {
+				break;
+			}
+			moveTo(this.heap[child], position);
+			position = child;
+		}
+		moveTo(entry, position);
+	}
+
+	private void moveTo(final int entry, final int position) {
+		this.heap[position] = entry;
+		this.heapPositions[entry] = position;
+	}
+
+	private static int hash(final long pairKey) {
+		long hash = pairKey * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+}
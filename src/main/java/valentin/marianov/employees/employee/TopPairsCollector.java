@@ -0,0 +1,75 @@
+package valentin.marianov.employees.employee;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the k pairs with the most days worked together out of all pair totals
+ * reported to it, without holding the other pairs. On equal days the pair with
+ * the smaller employee ids ranks higher. The pairs kept are only formatted when
+ * they are requested.
+ *
+ * @author Valentin
+ */
+public class TopPairsCollector implements PairTotalCollector {
+
+	private final int k;
+
+	// both employee ids, the days and the project ids, the pair with the fewest
+	// days (and the highest ids) is the head of the queue
+	private final PriorityQueue<int[]> topPairs = new PriorityQueue<>(
+			(pair1, pair2) -> EmployeeProcessing.compareRanking(pair2, pair1));
+
+	public TopPairsCollector(final int k) {
+		this.k = k;
+	}
+
+	@Override
+	public void collect(int employee1ID, int employee2ID, List<Integer> projectIDs, int totalDaysWorkedTogether) {
+
+		if (this.k <= 0) {
+			return;
+		}
+
+		// skip pairs not ranking higher than the lowest one kept before copying them
+		if (this.topPairs.size() == this.k && !EmployeeProcessing.ranksHigher(employee1ID, employee2ID,
+				totalDaysWorkedTogether, this.topPairs.peek())) {
+			return;
+		}
+
+		int[] pair = new int[3 + projectIDs.size()];
+		pair[0] = employee1ID;
+		pair[1] = employee2ID;
+		pair[2] = totalDaysWorkedTogether;
+		for (int i = 0; i < projectIDs.size(); i++) {
+			pair[3 + i] = projectIDs.get(i);
+		}
+
+		if (this.topPairs.size() == this.k) {
+			this.topPairs.poll();
+		}
+		this.topPairs.add(pair);
+	}
+
+	/**
+	 * @return array holding both employee ids, project ids and the work period in
+	 *         days of every pair, the longest first
+	 */
+	public List<String[]> toList() {
+
+		List<int[]> rankedPairs = new ArrayList<int[]>(this.topPairs);
+		rankedPairs.sort(EmployeeProcessing::compareRanking);
+
+		List<String[]> result = new ArrayList<String[]>(rankedPairs.size());
+		for (int[] pair : rankedPairs) {
+			StringBuilder projects = new StringBuilder();
+			for (int i = 3; i < pair.length; i++) {
+				projects.append(pair[i]).append(' ');
+			}
+			result.add(new String[] { String.valueOf(pair[0]), String.valueOf(pair[1]), projects.toString(),
+					String.valueOf(pair[2]) });
+		}
+		return result;
+	}
+}
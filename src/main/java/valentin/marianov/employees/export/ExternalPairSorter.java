@@ -0,0 +1,364 @@
+package valentin.marianov.employees.export;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Logger;
+
+import valentin.marianov.employees.employee.PairTotalCollector;
+
+/**
+ * Sorts the totals of employee pairs by the days worked together, the most
+ * first, within a fixed memory budget. Pairs with equal days keep the order
+ * they have been collected in.
+ * <p>
+ * The pairs are held in primitive arrays. Once they reach the budget, they are
+ * sorted and written to a temporary file (a so called run), like the records of
+ * an {@link valentin.marianov.employees.employee.ExternalPairAggregator}. When
+ * all pairs have been collected, the runs are merged (k-way merge) by their
+ * days. All temporary files are deleted when the sorter is closed.
+ *
+ * @author Valentin
+ */
+class ExternalPairSorter implements PairTotalCollector, Closeable {
+
+	private static Logger logger = Logger.getLogger("employees-logger");
+
+	/** both employee ids, the days, the project offset and the sort key */
+	private static final int PAIR_SIZE_IN_BYTES = 4 * Integer.BYTES + Long.BYTES;
+
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int MIN_MERGE_BUFFER_SIZE = 4 * 1024;
+	private static final int MAX_MERGE_BUFFER_SIZE = 64 * 1024;
+
+	private final long memoryBudgetInBytes;
+
+	private int[] employee1IDs = new int[INITIAL_CAPACITY];
+	private int[] employee2IDs = new int[INITIAL_CAPACITY];
+	private int[] days = new int[INITIAL_CAPACITY];
+	// the projects of pair i are projects[projectOffsets[i]] to projects[projectOffsets[i + 1] - 1]
+	private int[] projectOffsets = new int[INITIAL_CAPACITY + 1];
+	private int[] projects = new int[INITIAL_CAPACITY];
+	private int size;
+
+	// the number of pairs collected before the ones held in memory
+	private long firstSequence;
+
+	private final List<Path> runs = new ArrayList<>();
+
+	/**
+	 * @param memoryBudgetInBytes - the maximum amount of memory used for pairs
+	 *                            before they are spilled to disk
+	 */
+	ExternalPairSorter(final long memoryBudgetInBytes) {
+
+		if (memoryBudgetInBytes <= 0) {
+			throw new IllegalArgumentException("The memory budget must be a positive number of bytes.");
+		}
+		this.memoryBudgetInBytes = memoryBudgetInBytes;
+	}
+
+	/**
+	 * Stores the total of a pair. The pairs are written to a temporary file once
+	 * the memory budget has been reached.
+	 */
+	@Override
+	public void collect(final int employee1ID, final int employee2ID, final List<Integer> projectIDs,
+			final int totalDaysWorkedTogether) {
+
+		int offset = this.projectOffsets[this.size];
+		long usedBytes = (long) (this.size + 1) * PAIR_SIZE_IN_BYTES
+				+ (long) (offset + projectIDs.size()) * Integer.BYTES;
+
+		if (this.size > 0 && usedBytes > this.memoryBudgetInBytes) {
+			try {
+				spill();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not write employee pairs to a temporary file.", e);
+			}
+			offset = 0;
+		}
+
+		if (this.size + 1 == this.employee1IDs.length) {
+			int capacity = this.employee1IDs.length * 2;
+			this.employee1IDs = Arrays.copyOf(this.employee1IDs, capacity);
+			this.employee2IDs = Arrays.copyOf(this.employee2IDs, capacity);
+			this.days = Arrays.copyOf(this.days, capacity);
+			this.projectOffsets = Arrays.copyOf(this.projectOffsets, capacity + 1);
+		}
+		if (offset + projectIDs.size() > this.projects.length) {
+			this.projects = Arrays.copyOf(this.projects,
+					Math.max(this.projects.length * 2, offset + projectIDs.size()));
+		}
+		for (int i = 0; i < projectIDs.size(); i++) {
+			this.projects[offset + i] = projectIDs.get(i);
+		}
+
+		this.employee1IDs[this.size] = employee1ID;
+		this.employee2IDs[this.size] = employee2ID;
+		this.days[this.size] = totalDaysWorkedTogether;
+		this.projectOffsets[this.size + 1] = offset + projectIDs.size();
+		this.size++;
+	}
+
+	/**
+	 * @return the number of runs written to disk so far
+	 */
+	int getSpilledRunCount() {
+		return this.runs.size();
+	}
+
+	/**
+	 * Merges all runs together with the pairs still held in memory and reports
+	 * them to the writer, the most days first.
+	 *
+	 * @param writer - receives all pairs
+	 * @throws IOException in case a run could not be read
+	 */
+	void writeTo(final PairTotalCollector writer) throws IOException {
+
+		PriorityQueue<RunCursor> cursors = new PriorityQueue<>((cursor1, cursor2) -> {
+			int result = Integer.compare(cursor2.days, cursor1.days);
+			return result != 0 ? result : Long.compare(cursor1.sequence, cursor2.sequence);
+		});
+		List<RunCursor> openCursors = new ArrayList<>();
+
+		// share the memory budget between the read buffers of all runs
+		int bufferSize = (int) Math.max(MIN_MERGE_BUFFER_SIZE,
+				Math.min(MAX_MERGE_BUFFER_SIZE, this.memoryBudgetInBytes / (this.runs.size() + 1)));
+
+		try {
+			openCursors.add(new MemoryRunCursor(sortPairs()));
+			for (Path run : this.runs) {
+				openCursors.add(new FileRunCursor(run, bufferSize));
+			}
+
+			for (RunCursor cursor : openCursors) {
+				if (cursor.next()) {
+					cursors.add(cursor);
+				}
+			}
+
+			while (!cursors.isEmpty()) {
+
+				RunCursor cursor = cursors.poll();
+				writer.collect(cursor.employee1ID, cursor.employee2ID, cursor.projectList, cursor.days);
+
+				if (cursor.next()) {
+					cursors.add(cursor);
+				}
+			}
+
+		} finally {
+			IOException failure = null;
+			for (RunCursor cursor : openCursors) {
+				try {
+					cursor.close();
+				} catch (IOException e) {
+					if (failure == null) {
+						failure = e;
+					} else {
+						failure.addSuppressed(e);
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+
+	/**
+	 * Deletes all temporary files written so far.
+	 */
+	@Override
+	public void close() {
+
+		for (Path run : this.runs) {
+			try {
+				Files.deleteIfExists(run);
+			} catch (IOException e) {
+				logger.warning("Could not delete temporary file " + run + ": " + e.getMessage());
+			}
+		}
+		this.runs.clear();
+		this.size = 0;
+	}
+
+	/**
+	 * @return the indexes of the pairs held in memory, the most days first, on
+	 *         equal days in the order they have been collected in
+	 */
+	private int[] sortPairs() {
+
+		// negated days in the upper and index in the lower half, the most days first
+		long[] order = new long[this.size];
+		for (int i = 0; i < this.size; i++) {
+			order[i] = ((long) -this.days[i] << 32) | i;
+		}
+		Arrays.sort(order);
+
+		int[] indexes = new int[this.size];
+		for (int i = 0; i < this.size; i++) {
+			indexes[i] = (int) order[i];
+		}
+		return indexes;
+	}
+
+	/**
+	 * Sorts the pairs held in memory and writes them to a new temporary file.
+	 */
+	private void spill() throws IOException {
+
+		Path run = Files.createTempFile("employee-pairs-", ".sorted");
+		// register the run before writing, so that it is deleted even if writing fails
+		this.runs.add(run);
+
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(run), MAX_MERGE_BUFFER_SIZE))) {
+
+			out.writeInt(this.size);
+			for (int i : sortPairs()) {
+				out.writeInt(this.days[i]);
+				out.writeLong(this.firstSequence + i);
+				out.writeInt(this.employee1IDs[i]);
+				out.writeInt(this.employee2IDs[i]);
+				out.writeInt(this.projectOffsets[i + 1] - this.projectOffsets[i]);
+				for (int j = this.projectOffsets[i]; j < this.projectOffsets[i + 1]; j++) {
+					out.writeInt(this.projects[j]);
+				}
+			}
+		}
+
+		logger.info("Memory budget reached, wrote " + this.size + " pairs to sorted run #" + this.runs.size() + ".");
+		this.firstSequence += this.size;
+		this.size = 0;
+	}
+
+	/**
+	 * Reads the pairs of a single sorted run one after another.
+	 */
+	private abstract static class RunCursor implements Closeable {
+
+		protected int days;
+		protected long sequence;
+		protected int employee1ID;
+		protected int employee2ID;
+		protected final ProjectList projectList = new ProjectList();
+
+		abstract boolean next() throws IOException;
+
+		@Override
+		public void close() throws IOException {
+		}
+	}
+
+	/**
+	 * Cursor over the sorted pairs still held in memory.
+	 */
+	private class MemoryRunCursor extends RunCursor {
+
+		private final int[] indexes;
+		private int position = -1;
+
+		MemoryRunCursor(final int[] indexes) {
+			this.indexes = indexes;
+		}
+
+		@Override
+		boolean next() {
+
+			if (++this.position == this.indexes.length) {
+				return false;
+			}
+			int i = this.indexes[this.position];
+			this.days = ExternalPairSorter.this.days[i];
+			this.sequence = ExternalPairSorter.this.firstSequence + i;
+			this.employee1ID = ExternalPairSorter.this.employee1IDs[i];
+			this.employee2ID = ExternalPairSorter.this.employee2IDs[i];
+			this.projectList.set(ExternalPairSorter.this.projects, ExternalPairSorter.this.projectOffsets[i],
+					ExternalPairSorter.this.projectOffsets[i + 1]);
+			return true;
+		}
+	}
+
+	/**
+	 * Cursor over a run written to a temporary file.
+	 */
+	private static class FileRunCursor extends RunCursor {
+
+		private final DataInputStream in;
+		private int remainingPairs;
+		private int[] projects = new int[16];
+
+		FileRunCursor(final Path run, final int bufferSize) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), bufferSize));
+			this.remainingPairs = this.in.readInt();
+		}
+
+		@Override
+		boolean next() throws IOException {
+
+			if (this.remainingPairs == 0) {
+				return false;
+			}
+			this.days = this.in.readInt();
+			this.sequence = this.in.readLong();
+			this.employee1ID = this.in.readInt();
+			this.employee2ID = this.in.readInt();
+
+			int projectCount = this.in.readInt();
+			if (projectCount > this.projects.length) {
+				this.projects = new int[Math.max(projectCount, this.projects.length * 2)];
+			}
+			for (int i = 0; i < projectCount; i++) {
+				this.projects[i] = this.in.readInt();
+			}
+			this.projectList.set(this.projects, 0, projectCount);
+			this.remainingPairs--;
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.in.close();
+		}
+	}
+
+	/**
+	 * View of the projects of a single pair, reused for every pair.
+	 */
+	private static class ProjectList extends AbstractList<Integer> {
+
+		private int[] projects;
+		private int from;
+		private int to;
+
+		void set(final int[] projects, final int from, final int to) {
+			this.projects = projects;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public Integer get(final int index) {
+			return this.projects[this.from + index];
+		}
+
+		@Override
+		public int size() {
+			return this.to - this.from;
+		}
+	}
+}
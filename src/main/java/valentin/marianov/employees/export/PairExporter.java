@@ -0,0 +1,358 @@
+package valentin.marianov.employees.export;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import valentin.marianov.employees.employee.EmployeePairs;
+import valentin.marianov.employees.employee.ExternalPairAggregator;
+import valentin.marianov.employees.employee.PairTotalCollector;
+
+/**
+ * Writes all employee pairs (both employee ids, the common projects and the
+ * total days worked together) to a file, either as CSV or as JSON Lines.
+ * <p>
+ * The pairs are streamed directly from the pairs found, every record is encoded
+ * into a large direct buffer which is written to a {@link FileChannel} once it
+ * is full. Optionally the pairs are sorted by the days worked together (longest
+ * first) within a memory budget, see {@link ExternalPairSorter}, and the output
+ * is compressed with gzip.
+ *
+ * @author Valentin
+ */
+public class PairExporter {
+
+	private static Logger logger = Logger.getLogger("employees-logger");
+
+	private static final int BUFFER_SIZE = 1 << 20;
+	// longest number (including sign) plus the characters around it
+	private static final int MAX_TOKEN_SIZE = 32;
+
+	private static final byte[] CSV_HEADER = "EmployeeID1,EmployeeID2,ProjectIDs,DaysWorked\n"
+			.getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] JSON_EMPLOYEE_1 = "{\"employee1\":".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] JSON_EMPLOYEE_2 = ",\"employee2\":".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] JSON_PROJECTS = ",\"projects\":[".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] JSON_DAYS = "],\"days\":".getBytes(StandardCharsets.US_ASCII);
+
+	public enum Format {
+		CSV, JSON_LINES
+	}
+
+	private final Format format;
+	private final boolean sortByDays;
+	private final boolean gzip;
+	private final long memoryBudgetInBytes;
+
+	/**
+	 * @param format     - CSV or JSON Lines
+	 * @param sortByDays - whether to write the pairs with the most days worked
+	 *                   together first
+	 * @param gzip       - whether to compress the output with gzip
+	 */
+	public PairExporter(final Format format, final boolean sortByDays, final boolean gzip) {
+		this(format, sortByDays, gzip, 0);
+	}
+
+	/**
+	 * @param format              - CSV or JSON Lines
+	 * @param sortByDays          - whether to write the pairs with the most days
+	 *                            worked together first
+	 * @param gzip                - whether to compress the output with gzip
+	 * @param memoryBudgetInBytes - memory available for sorting the pairs before
+	 *                            they are written to temporary files, 0 for no
+	 *                            limit
+	 */
+	public PairExporter(final Format format, final boolean sortByDays, final boolean gzip,
+			final long memoryBudgetInBytes) {
+		this.format = format;
+		this.sortByDays = sortByDays;
+		this.gzip = gzip;
+		this.memoryBudgetInBytes = memoryBudgetInBytes;
+	}
+
+	/**
+	 * Exports the pairs found by
+	 * {@link valentin.marianov.employees.employee.EmployeeProcessing#findAllEmployeePairs}.
+	 * Every pair is written once, with the smaller employee id first.
+	 *
+	 * @param employeePairs - the pairs found
+	 * @param target        - the file to write
+	 * @return the number of pairs written
+	 * @throws IOException in case the file could not be written
+	 *
+	 * @author Valentin
+	 */
+	public long export(final HashMap<Integer, EmployeePairs> employeePairs, final Path target) throws IOException {
+
+		return export(collector -> {
+			for (EmployeePairs pairs : employeePairs.values()) {
+				for (int i = 0; i < pairs.getEmployee2ID().size(); i++) {
+
+					// the pairs are stored for both employees, write only one of them
+					if (pairs.getEmployee1ID() > pairs.getEmployee2ID().get(i)) {
+						continue;
+					}
+
+					int days = 0;
+					for (Integer daysWorked : pairs.getDaysWorkedTogetherOnCommonProject().get(i)) {
+						days += daysWorked;
+					}
+					collector.collect(pairs.getEmployee1ID(), pairs.getEmployee2ID().get(i),
+							pairs.getProjectID().get(i), days);
+				}
+			}
+		}, target);
+	}
+
+	/**
+	 * Exports the pairs aggregated by an {@link ExternalPairAggregator}, the pairs
+	 * are written while the runs of the aggregator are merged.
+	 *
+	 * @param aggregator - holds all pairs
+	 * @param target     - the file to write
+	 * @return the number of pairs written
+	 * @throws IOException in case a run could not be read or the file could not be
+	 *                     written
+	 *
+	 * @author Valentin
+	 */
+	public long export(final ExternalPairAggregator aggregator, final Path target) throws IOException {
+		return export(aggregator::merge, target);
+	}
+
+	private long export(final PairSource source, final Path target) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			PairWriter writer = new PairWriter(channel);
+
+			try {
+				if (this.sortByDays) {
+					try (ExternalPairSorter sorter = new ExternalPairSorter(
+							this.memoryBudgetInBytes > 0 ? this.memoryBudgetInBytes : Long.MAX_VALUE)) {
+						source.forEachPair(sorter);
+						sorter.writeTo(writer);
+					}
+				} else {
+					source.forEachPair(writer);
+				}
+
+				writer.finish();
+				logger.info("Exported " + writer.pairs + " employee pairs to " + target + ".");
+				return writer.pairs;
+
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			} finally {
+				writer.release();
+			}
+		}
+	}
+
+	/**
+	 * Reports all pairs of a store to a collector.
+	 */
+	@FunctionalInterface
+	private interface PairSource {
+		void forEachPair(PairTotalCollector collector) throws IOException;
+	}
+
+	/**
+	 * Encodes the pairs into a direct buffer and writes it to the channel, either
+	 * as is or compressed with gzip.
+	 */
+	private class PairWriter implements PairTotalCollector {
+
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		private final byte[] digits = new byte[MAX_TOKEN_SIZE];
+		private long pairs;
+
+		// compression, only used for gzip
+		private final Deflater deflater;
+		private final CRC32 crc;
+		private final ByteBuffer compressed;
+
+		PairWriter(final FileChannel channel) throws IOException {
+
+			this.channel = channel;
+
+			if (PairExporter.this.gzip) {
+				this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+				this.crc = new CRC32();
+				this.compressed = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+				// gzip header: magic number, deflate, no flags, no modification time, unknown OS
+				this.compressed.put(new byte[] { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff });
+			} else {
+				this.deflater = null;
+				this.crc = null;
+				this.compressed = null;
+			}
+
+			if (PairExporter.this.format == Format.CSV) {
+				this.buffer.put(CSV_HEADER);
+			}
+		}
+
+		@Override
+		public void collect(final int employee1ID, final int employee2ID, final List<Integer> projectIDs,
+				final int totalDaysWorkedTogether) {
+
+			try {
+				if (PairExporter.this.format == Format.CSV) {
+					putNumber(employee1ID);
+					putByte((byte) ',');
+					putNumber(employee2ID);
+					putByte((byte) ',');
+					for (int i = 0; i < projectIDs.size(); i++) {
+						if (i > 0) {
+							putByte((byte) ' ');
+						}
+						putNumber(projectIDs.get(i));
+					}
+					putByte((byte) ',');
+					putNumber(totalDaysWorkedTogether);
+				} else {
+					putBytes(JSON_EMPLOYEE_1);
+					putNumber(employee1ID);
+					putBytes(JSON_EMPLOYEE_2);
+					putNumber(employee2ID);
+					putBytes(JSON_PROJECTS);
+					for (int i = 0; i < projectIDs.size(); i++) {
+						if (i > 0) {
+							putByte((byte) ',');
+						}
+						putNumber(projectIDs.get(i));
+					}
+					putBytes(JSON_DAYS);
+					putNumber(totalDaysWorkedTogether);
+					putByte((byte) '}');
+				}
+				putByte((byte) '\n');
+				this.pairs++;
+
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		/**
+		 * Writes the remaining content of the buffer and the gzip trailer.
+		 */
+		void finish() throws IOException {
+
+			flush();
+
+			if (this.deflater != null) {
+				this.deflater.finish();
+				while (!this.deflater.finished()) {
+					this.deflater.deflate(this.compressed);
+					drainCompressed(MAX_TOKEN_SIZE);
+				}
+
+				// gzip trailer: checksum and size of the uncompressed data
+				drainCompressed(2 * Integer.BYTES);
+				this.compressed.putInt((int) this.crc.getValue());
+				this.compressed.putInt((int) this.deflater.getBytesRead());
+				drainCompressed(BUFFER_SIZE);
+			}
+		}
+
+		/**
+		 * Releases the native memory of the compression, also when the export has
+		 * failed.
+		 */
+		void release() {
+			if (this.deflater != null) {
+				this.deflater.end();
+			}
+		}
+
+		private void putNumber(final long number) throws IOException {
+
+			ensureCapacity(MAX_TOKEN_SIZE);
+
+			long value = Math.abs(number);
+			int position = this.digits.length;
+			do {
+				this.digits[--position] = (byte) ('0' + value % 10);
+				value /= 10;
+			} while (value > 0);
+
+			if (number < 0) {
+				this.digits[--position] = '-';
+			}
+			this.buffer.put(this.digits, position, this.digits.length - position);
+		}
+
+		private void putByte(final byte value) throws IOException {
+			ensureCapacity(1);
+			this.buffer.put(value);
+		}
+
+		private void putBytes(final byte[] value) throws IOException {
+			ensureCapacity(value.length);
+			this.buffer.put(value);
+		}
+
+		private void ensureCapacity(final int bytes) throws IOException {
+			if (this.buffer.remaining() < bytes) {
+				flush();
+			}
+		}
+
+		/**
+		 * Writes the encoded pairs held in the buffer to the channel.
+		 */
+		private void flush() throws IOException {
+
+			this.buffer.flip();
+
+			if (this.deflater == null) {
+				while (this.buffer.hasRemaining()) {
+					this.channel.write(this.buffer);
+				}
+			} else {
+				this.crc.update(this.buffer.duplicate());
+				// the deflater keeps a reference to its input, which must not see the buffer being cleared
+				this.deflater.setInput(this.buffer.duplicate());
+				while (!this.deflater.needsInput()) {
+					this.deflater.deflate(this.compressed);
+					drainCompressed(MAX_TOKEN_SIZE);
+				}
+			}
+
+			this.buffer.clear();
+		}
+
+		/**
+		 * Writes the compressed data to the channel in case less than the given number
+		 * of bytes are left in the buffer.
+		 */
+		private void drainCompressed(final int minRemaining) throws IOException {
+
+			if (this.compressed.remaining() >= minRemaining) {
+				return;
+			}
+
+			this.compressed.flip();
+			while (this.compressed.hasRemaining()) {
+				this.channel.write(this.compressed);
+			}
+			this.compressed.clear();
+		}
+	}
+}
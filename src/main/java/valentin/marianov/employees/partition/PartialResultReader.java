@@ -0,0 +1,108 @@
+package valentin.marianov.employees.partition;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads the pair totals of a partition written by a
+ * {@link PartialResultWriter}, one pair after another.
+ *
+ * @author Valentin
+ */
+public class PartialResultReader implements Closeable {
+
+	private final Path file;
+	private final DataInputStream in;
+
+	private long pairCount;
+	private int employee1ID;
+	private int employee2ID;
+	private int days;
+	private int[] projectIDs;
+
+	public PartialResultReader(final Path file) throws IOException {
+
+		this.file = file;
+		this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+
+		try {
+			if (this.in.readInt() != PartialResultWriter.MAGIC) {
+				throw new IOException(file + " is not a partial result file.");
+			}
+			int version = this.in.readInt();
+			if (version != PartialResultWriter.VERSION) {
+				throw new IOException(file + " has the unsupported version " + version + ".");
+			}
+		} catch (IOException e) {
+			this.in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the next pair.
+	 *
+	 * @return false in case all pairs have been read
+	 * @throws IOException in case the file is incomplete or corrupt
+	 *
+	 * @author Valentin
+	 */
+	public boolean next() throws IOException {
+
+		try {
+			byte marker = this.in.readByte();
+
+			if (marker == 0) {
+				long expectedPairCount = this.in.readLong();
+				if (expectedPairCount != this.pairCount) {
+					throw new IOException(this.file + " should hold " + expectedPairCount + " pairs, but holds "
+							+ this.pairCount + ".");
+				}
+				return false;
+			}
+
+			this.employee1ID = this.in.readInt();
+			this.employee2ID = this.in.readInt();
+			this.days = this.in.readInt();
+			this.projectIDs = new int[this.in.readInt()];
+			for (int i = 0; i < this.projectIDs.length; i++) {
+				this.projectIDs[i] = this.in.readInt();
+			}
+			this.pairCount++;
+			return true;
+
+		} catch (EOFException e) {
+			throw new IOException(this.file + " is incomplete after " + this.pairCount + " pairs.", e);
+		}
+	}
+
+	public int getEmployee1ID() {
+		return this.employee1ID;
+	}
+
+	public int getEmployee2ID() {
+		return this.employee2ID;
+	}
+
+	public int getDays() {
+		return this.days;
+	}
+
+	public int[] getProjectIDs() {
+		return this.projectIDs;
+	}
+
+	long getPairKey() {
+		return PartialResultWriter.toPairKey(this.employee1ID, this.employee2ID);
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.in.close();
+	}
+}
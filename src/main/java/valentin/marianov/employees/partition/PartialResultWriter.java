@@ -0,0 +1,97 @@
+package valentin.marianov.employees.partition;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import valentin.marianov.employees.employee.PairTotalCollector;
+
+/**
+ * Writes the pair totals of a partition to a compact binary file, which is
+ * merged with the files of the other partitions by the
+ * {@link PartitionCoordinator}.
+ * <p>
+ * The file starts with a magic number and a version, followed by one record per
+ * pair (a marker byte 1, both employee ids, the days worked together, the
+ * number of projects and the project ids) and ends with a marker byte 0 and the
+ * number of pairs, so that incomplete files are detected. The end marker is
+ * only written by {@link #finish()}, i.e. a file closed without it, e.g. after
+ * an error, is incomplete. The pairs have to be
+ * reported ordered by their employee ids, as done by
+ * {@link valentin.marianov.employees.employee.ExternalPairAggregator#merge(PairTotalCollector)}.
+ *
+ * @author Valentin
+ */
+public class PartialResultWriter implements PairTotalCollector, Closeable {
+
+	static final int MAGIC = 0x45505052;
+	static final int VERSION = 1;
+
+	private final DataOutputStream out;
+	private long pairCount;
+	private long lastPairKey = Long.MIN_VALUE;
+
+	public PartialResultWriter(final Path file) throws IOException {
+		this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+		this.out.writeInt(MAGIC);
+		this.out.writeInt(VERSION);
+	}
+
+	@Override
+	public void collect(int employee1ID, int employee2ID, List<Integer> projectIDs, int totalDaysWorkedTogether) {
+
+		long pairKey = toPairKey(employee1ID, employee2ID);
+		if (this.pairCount > 0 && pairKey <= this.lastPairKey) {
+			throw new IllegalStateException("The pairs are not ordered by their employee ids, pair " + employee1ID
+					+ "-" + employee2ID + " is reported too late.");
+		}
+
+		try {
+			this.out.writeByte(1);
+			this.out.writeInt(employee1ID);
+			this.out.writeInt(employee2ID);
+			this.out.writeInt(totalDaysWorkedTogether);
+			this.out.writeInt(projectIDs.size());
+			for (Integer projectID : projectIDs) {
+				this.out.writeInt(projectID);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		this.lastPairKey = pairKey;
+		this.pairCount++;
+	}
+
+	public long getPairCount() {
+		return this.pairCount;
+	}
+
+	/**
+	 * Writes the end marker, once all pairs have been reported successfully.
+	 *
+	 * @throws IOException in case the file could not be written
+	 */
+	public void finish() throws IOException {
+		this.out.writeByte(0);
+		this.out.writeLong(this.pairCount);
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.out.close();
+	}
+
+	/**
+	 * Orders the pairs by the first and then the second employee id.
+	 */
+	static long toPairKey(final int employee1ID, final int employee2ID) {
+		return ((long) employee1ID << 32) | (employee2ID & 0xFFFFFFFFL);
+	}
+}
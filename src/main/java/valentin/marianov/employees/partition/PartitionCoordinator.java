@@ -0,0 +1,263 @@
+package valentin.marianov.employees.partition;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Logger;
+
+import valentin.marianov.employees.Main;
+import valentin.marianov.employees.employee.Employee;
+import valentin.marianov.employees.employee.PairTotalCollector;
+import valentin.marianov.employees.employee.TopPairsCollector;
+import valentin.marianov.employees.utility.DateUtility;
+
+/**
+ * Finds the pairs of all employees by splitting the assignments into
+ * partitions by the hash of their project id and computing every partition in
+ * a separate worker JVM.
+ * <p>
+ * Two employees can only have worked together on a project, if both have been
+ * assigned to it. Therefore every partition holds all assignments needed for
+ * its projects and the total days of a pair are simply the sum of its totals in
+ * all partitions. Each worker writes its totals to a partial result file (see
+ * {@link PartialResultWriter}) ordered by the employee ids, the coordinator
+ * merges these files without holding all pairs in memory.
+ *
+ * @author Valentin
+ */
+public class PartitionCoordinator {
+
+	private static Logger logger = Logger.getLogger("employees-logger");
+
+	private final int partitions;
+	private final Path workDirectory;
+
+	/**
+	 * @param partitions    - the number of partitions and worker JVMs
+	 * @param workDirectory - directory for the partitions and partial results
+	 */
+	public PartitionCoordinator(final int partitions, final Path workDirectory) {
+
+		if (partitions < 1) {
+			throw new IllegalArgumentException("At least one partition is needed, not " + partitions + ".");
+		}
+		this.partitions = partitions;
+		this.workDirectory = workDirectory;
+	}
+
+	/**
+	 * Splits the employees into partitions, computes them in worker JVMs and
+	 * merges their results.
+	 *
+	 * @param employees - all employees
+	 * @param collector - receives the total of every pair, ordered by the employee
+	 *                  ids
+	 * @throws IOException in case a worker failed or a file could not be written
+	 *
+	 * @author Valentin
+	 */
+	public void findAllEmployeePairs(final List<Employee> employees, final PairTotalCollector collector)
+			throws IOException {
+
+		List<Path> partitionFiles = split(employees);
+		List<Path> partialResults = new ArrayList<Path>();
+
+		try {
+			partialResults = runWorkers(partitionFiles);
+			merge(partialResults, collector);
+		} finally {
+			for (Path file : partitionFiles) {
+				Files.deleteIfExists(file);
+			}
+			for (Path file : partialResults) {
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+	/**
+	 * @param employees - all employees
+	 * @param k         - the maximum number of pairs
+	 * @return the pairs with the most days worked together, the longest first
+	 * @throws IOException in case a worker failed or a file could not be written
+	 */
+	public List<String[]> findTopWorkingEmployeePairs(final List<Employee> employees, final int k)
+			throws IOException {
+
+		TopPairsCollector topPairs = new TopPairsCollector(k);
+		findAllEmployeePairs(employees, topPairs);
+		return topPairs.toList();
+	}
+
+	/**
+	 * Writes the assignments of every partition to a file in the usual input
+	 * format, with the end dates already resolved.
+	 *
+	 * @param employees - all employees
+	 * @return the partition files, one per partition
+	 * @throws IOException in case a file could not be written
+	 *
+	 * @author Valentin
+	 */
+	public List<Path> split(final List<Employee> employees) throws IOException {
+
+		List<Path> partitionFiles = new ArrayList<Path>();
+		BufferedWriter[] writers = new BufferedWriter[this.partitions];
+
+		try {
+			for (int i = 0; i < this.partitions; i++) {
+				Path file = this.workDirectory.resolve("partition-" + i + ".csv");
+				partitionFiles.add(file);
+				writers[i] = Files.newBufferedWriter(file);
+				writers[i].write("EmpID, ProjectID, DateFrom, DateTo");
+				writers[i].newLine();
+			}
+
+			for (Employee employee : employees) {
+				for (int i = 0; i < employee.getListSize(); i++) {
+
+					BufferedWriter writer = writers[partitionOf(employee.getProjectId(i), this.partitions)];
+					writer.write(employee.getEmployeeId() + ", " + employee.getProjectId(i) + ", "
+							+ LocalDate.ofEpochDay(DateUtility.toEpochDay(employee.getStartDate(i))) + ", "
+							+ LocalDate.ofEpochDay(DateUtility.toEpochDay(employee.getEndDate(i))));
+					writer.newLine();
+				}
+			}
+
+		} finally {
+			for (BufferedWriter writer : writers) {
+				if (writer != null) {
+					writer.close();
+				}
+			}
+		}
+		return partitionFiles;
+	}
+
+	/**
+	 * Starts a worker JVM for every partition and waits until all of them are
+	 * done.
+	 *
+	 * @param partitionFiles - the partitions
+	 * @return the partial result files, one per partition
+	 * @throws IOException in case a worker could not be started or failed
+	 *
+	 * @author Valentin
+	 */
+	public List<Path> runWorkers(final List<Path> partitionFiles) throws IOException {
+
+		long start = System.nanoTime();
+		String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+		List<Path> partialResults = new ArrayList<Path>();
+		List<Process> workers = new ArrayList<Process>();
+
+		try {
+			for (Path partitionFile : partitionFiles) {
+
+				Path partialResult = partitionFile.resolveSibling(partitionFile.getFileName() + ".pairs");
+				partialResults.add(partialResult);
+
+				workers.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+						Main.class.getName(), "--worker", partitionFile.toString(), partialResult.toString())
+						.inheritIO().start());
+			}
+
+			for (int i = 0; i < workers.size(); i++) {
+				int exitCode = workers.get(i).waitFor();
+				if (exitCode != 0) {
+					throw new IOException("The worker of " + partitionFiles.get(i).getFileName()
+							+ " failed with exit code " + exitCode + ".");
+				}
+			}
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the workers.", e);
+
+		} finally {
+			for (Process worker : workers) {
+				worker.destroy();
+			}
+		}
+
+		logger.info("Computed " + partitionFiles.size() + " partitions in worker JVMs in "
+				+ (System.nanoTime() - start) / 1_000_000 + " ms.");
+		return partialResults;
+	}
+
+	/**
+	 * Merges the partial result files of all partitions into the totals of every
+	 * pair. The files are read at the same time, ordered by the employee ids, so
+	 * only one pair per file is held in memory.
+	 *
+	 * @param partialResults - the partial result files, e.g. computed elsewhere
+	 * @param collector      - receives the total of every pair, ordered by the
+	 *                       employee ids, the projects in ascending order
+	 * @throws IOException in case a file could not be read or is incomplete
+	 *
+	 * @author Valentin
+	 */
+	public static void merge(final List<Path> partialResults, final PairTotalCollector collector)
+			throws IOException {
+
+		PriorityQueue<PartialResultReader> readers = new PriorityQueue<>(
+				Comparator.comparingLong(PartialResultReader::getPairKey));
+		List<PartialResultReader> openReaders = new ArrayList<PartialResultReader>();
+
+		try {
+			for (Path partialResult : partialResults) {
+				PartialResultReader reader = new PartialResultReader(partialResult);
+				openReaders.add(reader);
+				if (reader.next()) {
+					readers.add(reader);
+				}
+			}
+
+			while (!readers.isEmpty()) {
+
+				PartialResultReader reader = readers.poll();
+				long pairKey = reader.getPairKey();
+				int employee1ID = reader.getEmployee1ID();
+				int employee2ID = reader.getEmployee2ID();
+				int days = 0;
+				List<Integer> projectIDs = new ArrayList<Integer>();
+
+				// the same pair in other partitions
+				while (reader != null && reader.getPairKey() == pairKey) {
+
+					days += reader.getDays();
+					for (int projectID : reader.getProjectIDs()) {
+						projectIDs.add(projectID);
+					}
+
+					if (reader.next()) {
+						readers.add(reader);
+					}
+					reader = readers.peek() != null && readers.peek().getPairKey() == pairKey ? readers.poll() : null;
+				}
+
+				projectIDs.sort(null);
+				collector.collect(employee1ID, employee2ID, projectIDs, days);
+			}
+
+		} finally {
+			for (PartialResultReader reader : openReaders) {
+				reader.close();
+			}
+		}
+	}
+
+	/**
+	 * @return the partition of all assignments of the project
+	 */
+	static int partitionOf(final int projectID, final int partitions) {
+		return Math.floorMod(Integer.hashCode(projectID) * 0x9E3779B9, partitions);
+	}
+}
@@ -0,0 +1,79 @@
+package valentin.marianov.employees.partition;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import valentin.marianov.employees.employee.Employee;
+import valentin.marianov.employees.employee.EmployeeProcessing;
+import valentin.marianov.employees.employee.ExternalPairAggregator;
+
+/**
+ * Computes the pair totals of a single partition, i.e. of all assignments of
+ * some of the projects, and writes them to a partial result file. Usually run
+ * in a separate JVM started by the {@link PartitionCoordinator}, but the
+ * partial result files may as well be computed elsewhere and merged afterwards.
+ *
+ * @author Valentin
+ */
+public class PartitionWorker {
+
+	private static Logger logger = Logger.getLogger("employees-logger");
+
+	private PartitionWorker() {
+	}
+
+	/**
+	 * Finds all pairs of the partition and writes their totals, ordered by their
+	 * employee ids, to the partial result file. The partial result file is
+	 * deleted in case the pairs could not be written completely.
+	 *
+	 * @param partition           - list with csv separated values in the form
+	 *                            EmployeeID, ProjectID, DateFrom, DateTo
+	 * @param partialResult       - the file to write the pair totals to
+	 * @param memoryBudgetInBytes - memory available for the pairs before they are
+	 *                            written to temporary files
+	 * @return the number of pairs written
+	 * @throws IOException in case the partition contains an error or a file could
+	 *                     not be written
+	 *
+	 * @author Valentin
+	 */
+	public static long computePartialResult(final File partition, final Path partialResult,
+			final long memoryBudgetInBytes) throws IOException {
+
+		long start = System.nanoTime();
+
+		// no pop-up messages without User Interface
+		List<String> errors = new ArrayList<String>();
+		List<Employee> employees = EmployeeProcessing.processEmployeesAndTheirProjects(partition, true, errors);
+		if (!errors.isEmpty()) {
+			throw new IOException(errors.get(0));
+		}
+
+		try (ExternalPairAggregator aggregator = new ExternalPairAggregator(memoryBudgetInBytes);
+				PartialResultWriter writer = new PartialResultWriter(partialResult)) {
+
+			EmployeeProcessing.collectAllEmployeePairs(employees, aggregator);
+			aggregator.merge(writer);
+			writer.finish();
+
+			logger.info("Wrote " + writer.getPairCount() + " pairs of partition " + partition.getName() + " in "
+					+ (System.nanoTime() - start) / 1_000_000 + " ms.");
+			return writer.getPairCount();
+
+		} catch (IOException | RuntimeException e) {
+			// never leave an incomplete partial result behind
+			try {
+				Files.deleteIfExists(partialResult);
+			} catch (IOException deleteException) {
+				e.addSuppressed(deleteException);
+			}
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,465 @@
+package valentin.marianov.employees.pipeline;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.logging.Logger;
+
+import org.joda.time.IllegalFieldValueException;
+
+import valentin.marianov.employees.employee.Employee;
+import valentin.marianov.employees.employee.EmployeeProcessing;
+import valentin.marianov.employees.employee.ExternalPairAggregator;
+import valentin.marianov.employees.employee.OverlapEngines;
+import valentin.marianov.employees.employee.ProjectAssignments;
+import valentin.marianov.employees.employee.TopPairsCollector;
+
+/**
+ * Finds the pairs with the most days worked together in stages running at the
+ * same time, connected by {@link java.util.concurrent.Flow} with bounded
+ * demand, see {@link PipelineStage}:
+ * <ol>
+ * <li><b>read</b> - reads the lines of the files
+ * <li><b>parse</b> - parses a line into the ids and dates of an assignment, see
+ * {@link EmployeeProcessing#parseRow(String[], Date)}
+ * <li><b>normalize</b> - adds the assignments to their employees and merges the
+ * overlapping periods of an employee on the same project
+ * <li><b>index</b> - groups the assignments of all employees by project
+ * <li><b>pair</b> - finds the common working periods of every project
+ * <li><b>aggregate</b> - sums up the days of every pair and keeps the top pairs
+ * </ol>
+ * Reading and parsing overlap, so do pairing and aggregating. Normalizing and
+ * indexing need all assignments before they can publish anything, since the
+ * rows of an employee or a project may be anywhere in the files.
+ * <p>
+ * Unless lenient, the first error stops the pipeline and no pairs are found,
+ * otherwise rows with errors are skipped. A pipeline is run once.
+ *
+ * @author Valentin
+ */
+public class EmployeePipeline {
+
+	private static Logger logger = Logger.getLogger("employees-logger");
+
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	private final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+	private final boolean lenient;
+
+	private final ReadStage read;
+	private final ParseStage parse;
+	private final NormalizeStage normalize;
+	private final IndexStage index;
+	private final PairStage pair;
+	private final AggregateStage aggregate;
+
+	private boolean started;
+
+	/**
+	 * @param k                   - the maximum number of pairs
+	 * @param queueCapacity       - the number of items, which may wait in front of
+	 *                            every stage at most
+	 * @param memoryBudgetInBytes - memory available for the common working periods
+	 *                            before they are written to temporary files
+	 * @param lenient             - set to true in order to skip rows with errors
+	 *                            instead of stopping
+	 */
+	public EmployeePipeline(final int k, final int queueCapacity, final long memoryBudgetInBytes,
+			final boolean lenient) {
+
+		this.lenient = lenient;
+		this.read = new ReadStage(queueCapacity);
+		this.parse = new ParseStage(queueCapacity);
+		this.normalize = new NormalizeStage(queueCapacity);
+		this.index = new IndexStage(queueCapacity);
+		this.pair = new PairStage(queueCapacity);
+		this.aggregate = new AggregateStage(queueCapacity, k, memoryBudgetInBytes);
+
+		this.read.subscribe(this.parse);
+		this.parse.subscribe(this.normalize);
+		this.normalize.subscribe(this.index);
+		this.index.subscribe(this.pair);
+		this.pair.subscribe(this.aggregate);
+	}
+
+	/**
+	 * Runs all stages on the given files and waits until they have completed.
+	 *
+	 * @param files - lists with csv separated values in the form EmployeeID,
+	 *              ProjectID, DateFrom, DateTo
+	 * @return array holding both employee ids, project ids (in ascending order)
+	 *         and the work period in days of every pair, the longest first; empty
+	 *         in case of an error (unless lenient)
+	 * @throws InterruptedException in case the thread has been interrupted while
+	 *                              waiting
+	 *
+	 * @author Valentin
+	 */
+	public List<String[]> findTopWorkingEmployeePairs(final List<File> files) throws InterruptedException {
+
+		if (this.started) {
+			throw new IllegalStateException("A pipeline can only be run once.");
+		}
+		this.started = true;
+
+		long start = System.nanoTime();
+		List<ExecutorService> executors = new ArrayList<ExecutorService>();
+		for (PipelineStage<?, ?> stage : getStages()) {
+			executors.add(stage.start());
+		}
+
+		try (SubmissionPublisher<File> fileNames = new SubmissionPublisher<File>()) {
+			fileNames.subscribe(this.read);
+			for (File file : files) {
+				fileNames.submit(file);
+			}
+		}
+
+		try {
+			this.aggregate.getCompletion().get();
+			logger.info("Pipeline found " + this.aggregate.topPairs.toList().size() + " pairs in "
+					+ (System.nanoTime() - start) / 1_000_000 + " ms, " + describeStages() + ".");
+			return this.aggregate.topPairs.toList();
+
+		} catch (ExecutionException e) {
+			logger.severe("Pipeline stopped: " + e.getCause().getMessage());
+			return new ArrayList<String[]>();
+
+		} finally {
+			// the aggregate stage deletes its temporary files itself once stopped
+			for (ExecutorService executor : executors) {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * @return the stages in the order the items pass them
+	 */
+	public List<PipelineStage<?, ?>> getStages() {
+		return List.of(this.read, this.parse, this.normalize, this.index, this.pair, this.aggregate);
+	}
+
+	/**
+	 * @return the number of items waiting in front of every stage at the moment,
+	 *         by the name of the stage
+	 */
+	public LinkedHashMap<String, Integer> getQueueDepths() {
+
+		LinkedHashMap<String, Integer> queueDepths = new LinkedHashMap<>();
+		for (PipelineStage<?, ?> stage : getStages()) {
+			queueDepths.put(stage.getName(), stage.getQueueDepth());
+		}
+		return queueDepths;
+	}
+
+	/**
+	 * @return the errors found so far, prefixed by the file and row
+	 */
+	public List<String> getErrors() {
+
+		synchronized (this.errors) {
+			return new ArrayList<String>(this.errors);
+		}
+	}
+
+	private String describeStages() {
+
+		StringBuilder description = new StringBuilder("highest queue depths");
+		for (PipelineStage<?, ?> stage : getStages()) {
+			description.append(' ').append(stage.getName()).append('=').append(stage.getMaxQueueDepth()).append('/')
+					.append(stage.getCapacity());
+		}
+		return description.toString();
+	}
+
+	/**
+	 * Records an error, which stops the pipeline unless lenient.
+	 */
+	private void reportError(final File file, final int row, final String message) throws IOException {
+
+		String error = file.getPath() + (row > 0 ? ", row " + row : "") + ": " + message;
+		logger.severe(error);
+		this.errors.add(error);
+		if (!this.lenient) {
+			throw new IOException(error);
+		}
+	}
+
+	/**
+	 * A line of a file.
+	 */
+	private static class Line {
+
+		private final File file;
+		private final int row;
+		private final String text;
+
+		Line(final File file, final int row, final String text) {
+			this.file = file;
+			this.row = row;
+			this.text = text;
+		}
+	}
+
+	/**
+	 * Common working periods found on a project, every pair reported once. A
+	 * project with many periods is handed over in several batches.
+	 */
+	private static class PairBatch {
+
+		private final int projectID;
+		private final int[] employee1IDs;
+		private final int[] employee2IDs;
+		private final int[] daysWorkedTogether;
+		private final int size;
+
+		PairBatch(final int projectID, final int[] employee1IDs, final int[] employee2IDs,
+				final int[] daysWorkedTogether, final int size) {
+			this.projectID = projectID;
+			this.employee1IDs = employee1IDs;
+			this.employee2IDs = employee2IDs;
+			this.daysWorkedTogether = daysWorkedTogether;
+			this.size = size;
+		}
+	}
+
+	private class ReadStage extends PipelineStage<File, Line> {
+
+		ReadStage(final int capacity) {
+			super("read", capacity);
+		}
+
+		@Override
+		protected void process(final File file) throws Exception {
+
+			int row = 0;
+			try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+
+				for (String text = br.readLine(); text != null && !isCancelled(); text = br.readLine()) {
+					publish(new Line(file, ++row, text));
+				}
+
+			} catch (FileNotFoundException e) {
+				reportError(file, 0, "No such file " + file.getName());
+				return;
+			} catch (IOException e) {
+				reportError(file, row, "An I/O Exception occured while retrieving data from the file.");
+				return;
+			}
+
+			if (row == 0) {
+				reportError(file, 0, "The file is empty.");
+			}
+		}
+	}
+
+	/**
+	 * Publishes every row as an employee with a single project and work period.
+	 */
+	private class ParseStage extends PipelineStage<Line, Employee> {
+
+		ParseStage(final int capacity) {
+			super("parse", capacity);
+		}
+
+		@Override
+		protected void process(final Line line) throws Exception {
+
+			// should hold four values employee id, project id, start and end date
+			String[] values = line.text.split(", ");
+
+			if (line.row == 1) {
+				// skip first line with headers
+				if (EmployeeProcessing.isHeader(values)) {
+					return;
+				}
+				if (values.length != 4) {
+					reportError(line.file, line.row,
+							"The first line does not have the correct syntax, i.e. 4 comma separated values.");
+					return;
+				}
+			}
+
+			Employee row;
+			try {
+				row = EmployeeProcessing.parseRow(values, null);
+
+			} catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+				reportError(line.file, line.row, "The row does not have the correct syntax: " + line.text);
+				return;
+			} catch (IllegalFieldValueException e) {
+				reportError(line.file, line.row, e.getMessage());
+				return;
+			}
+			publish(row);
+		}
+	}
+
+	private class NormalizeStage extends PipelineStage<Employee, Employee> {
+
+		private final List<Employee> employees = new ArrayList<Employee>();
+		private final HashMap<Integer, Employee> employeesById = new HashMap<Integer, Employee>();
+
+		NormalizeStage(final int capacity) {
+			super("normalize", capacity);
+		}
+
+		@Override
+		protected void process(final Employee row) {
+
+			Employee employee = this.employeesById.get(row.getEmployeeId());
+			if (employee == null) {
+				this.employees.add(row);
+				this.employeesById.put(row.getEmployeeId(), row);
+				return;
+			}
+			employee.addProjectId(row.getProjectId(0));
+			employee.addStartDate(row.getStartDate(0));
+			employee.addEndDate(row.getEndDate(0));
+		}
+
+		@Override
+		protected void finish() throws Exception {
+
+			// merge overlapping periods of an employee on the same project before pairing
+			EmployeeProcessing.coalesceProjectsOfEmployees(this.employees);
+			for (Employee employee : this.employees) {
+				publish(employee);
+			}
+		}
+	}
+
+	private class IndexStage extends PipelineStage<Employee, ProjectAssignments> {
+
+		private final List<Employee> employees = new ArrayList<Employee>();
+
+		IndexStage(final int capacity) {
+			super("index", capacity);
+		}
+
+		@Override
+		protected void process(final Employee employee) {
+			this.employees.add(employee);
+		}
+
+		@Override
+		protected void finish() throws Exception {
+
+			for (ProjectAssignments project : ProjectAssignments.indexByProject(this.employees).values()) {
+				publish(project);
+			}
+		}
+	}
+
+	private class PairStage extends PipelineStage<ProjectAssignments, PairBatch> {
+
+		private static final int INITIAL_BATCH_CAPACITY = 16;
+		// so that the batches waiting for the aggregate stage stay small
+		private static final int MAX_BATCH_SIZE = 1024;
+
+		// the batch of the current project, handed over when published
+		private int projectID;
+		private int[] employee1IDs;
+		private int[] employee2IDs;
+		private int[] daysWorkedTogether;
+		private int size;
+
+		PairStage(final int capacity) {
+			super("pair", capacity);
+		}
+
+		@Override
+		protected void process(final ProjectAssignments project) throws Exception {
+
+			this.projectID = project.getProjectID();
+			newBatch(INITIAL_BATCH_CAPACITY);
+
+			OverlapEngines.forProject(project).findPairs(project, this::add);
+
+			if (this.size > 0) {
+				publishBatch();
+			}
+		}
+
+		private void add(final int empl1ID, final int empl2ID, final int projectID, final int overlapInDays) {
+
+			if (this.size == MAX_BATCH_SIZE) {
+				try {
+					publishBatch();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while handing over the pairs.", e);
+				}
+				newBatch(MAX_BATCH_SIZE);
+
+			} else if (this.size == this.employee1IDs.length) {
+				int capacity = Math.min(this.size * 2, MAX_BATCH_SIZE);
+				this.employee1IDs = Arrays.copyOf(this.employee1IDs, capacity);
+				this.employee2IDs = Arrays.copyOf(this.employee2IDs, capacity);
+				this.daysWorkedTogether = Arrays.copyOf(this.daysWorkedTogether, capacity);
+			}
+			this.employee1IDs[this.size] = empl1ID;
+			this.employee2IDs[this.size] = empl2ID;
+			this.daysWorkedTogether[this.size] = overlapInDays;
+			this.size++;
+		}
+
+		private void newBatch(final int capacity) {
+
+			this.employee1IDs = new int[capacity];
+			this.employee2IDs = new int[capacity];
+			this.daysWorkedTogether = new int[capacity];
+			this.size = 0;
+		}
+
+		private void publishBatch() throws InterruptedException {
+			publish(new PairBatch(this.projectID, this.employee1IDs, this.employee2IDs, this.daysWorkedTogether,
+					this.size));
+		}
+	}
+
+	private class AggregateStage extends PipelineStage<PairBatch, Void> {
+
+		private final ExternalPairAggregator aggregator;
+		private final TopPairsCollector topPairs;
+
+		AggregateStage(final int capacity, final int k, final long memoryBudgetInBytes) {
+			super("aggregate", capacity);
+			this.aggregator = new ExternalPairAggregator(memoryBudgetInBytes);
+			this.topPairs = new TopPairsCollector(k);
+		}
+
+		@Override
+		protected void process(final PairBatch batch) {
+
+			for (int i = 0; i < batch.size; i++) {
+				this.aggregator.collect(batch.employee1IDs[i], batch.employee2IDs[i], batch.projectID,
+						batch.daysWorkedTogether[i]);
+			}
+		}
+
+		@Override
+		protected void finish() throws Exception {
+			this.aggregator.merge(this.topPairs);
+		}
+
+		@Override
+		protected void release() {
+			// not while merging, only on the thread of the stage
+			this.aggregator.close();
+		}
+	}
+}
@@ -0,0 +1,300 @@
+package valentin.marianov.employees.pipeline;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A stage of the {@link EmployeePipeline}, receiving the items of the previous
+ * stage and publishing its own items to the next one. Every stage runs on a
+ * thread of its own, so all stages work at the same time.
+ * <p>
+ * The items received wait in a bounded queue. The stage never requests more
+ * items than there is room for in the queue, and it waits as long as the next
+ * stage has not requested any more items. Therefore a slow stage slows down all
+ * stages before it instead of filling up the memory. The number of items
+ * waiting shows which stage is the bottleneck: the queue in front of it is full,
+ * the queues after it are empty.
+ *
+ * @param <I> - the items received
+ * @param <O> - the items published
+ *
+ * @author Valentin
+ */
+public abstract class PipelineStage<I, O> implements Flow.Processor<I, O> {
+
+	// marks the end of the items in the queue
+	private static final Object END = new Object();
+
+	private final String name;
+	private final int capacity;
+	private final ArrayBlockingQueue<Object> queue;
+	private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition demandAvailable = this.lock.newCondition();
+
+	private Flow.Subscription upstream;
+	private Flow.Subscriber<? super O> downstream;
+	private long demand;
+	private boolean cancelled;
+
+	private volatile int maxQueueDepth;
+	private volatile long itemsProcessed;
+
+	/**
+	 * @param name     - the name of the stage, also used for its thread
+	 * @param capacity - the number of items received, which may wait at most
+	 */
+	protected PipelineStage(final String name, final int capacity) {
+		this.name = name;
+		this.capacity = capacity;
+		// one more for the end, which is not requested
+		this.queue = new ArrayBlockingQueue<>(capacity + 1);
+	}
+
+	/**
+	 * Handles an item of the previous stage, publishing any number of items by
+	 * {@link #publish(Object)}.
+	 *
+	 * @param item - the item received
+	 * @throws Exception in order to stop the pipeline
+	 */
+	protected abstract void process(I item) throws Exception;
+
+	/**
+	 * Called once all items have been received, e.g. in order to publish the
+	 * items held back until then.
+	 *
+	 * @throws Exception in order to stop the pipeline
+	 */
+	protected void finish() throws Exception {
+	}
+
+	/**
+	 * Called on the thread of the stage once it has stopped, whether completed,
+	 * failed or cancelled, e.g. in order to delete temporary files.
+	 */
+	protected void release() {
+	}
+
+	/**
+	 * Passes an item to the next stage, waiting until the next stage has requested
+	 * it. Items are dropped once the next stage has cancelled.
+	 *
+	 * @param item - the item to publish
+	 * @throws InterruptedException in case the stage has been stopped
+	 */
+	protected final void publish(final O item) throws InterruptedException {
+
+		this.lock.lock();
+		try {
+			while (this.demand == 0 && !this.cancelled) {
+				this.demandAvailable.await();
+			}
+			if (this.cancelled) {
+				return;
+			}
+			this.demand--;
+		} finally {
+			this.lock.unlock();
+		}
+		this.downstream.onNext(item);
+	}
+
+	/**
+	 * @return whether the next stage does not want any more items, e.g. since it
+	 *         has failed
+	 */
+	protected final boolean isCancelled() {
+
+		this.lock.lock();
+		try {
+			return this.cancelled;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Starts processing the items received on a thread of the stage.
+	 *
+	 * @return the executor of the stage, to be shut down after the pipeline has
+	 *         completed
+	 */
+	ExecutorService start() {
+
+		ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "pipeline-" + this.name);
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.execute(this::run);
+		return executor;
+	}
+
+	private void run() {
+
+		try {
+			while (true) {
+
+				// the next stage has failed, no need to go on
+				if (isCancelled()) {
+					this.upstream.cancel();
+					this.completion.complete(null);
+					return;
+				}
+
+				Object item = this.queue.take();
+				if (item == END) {
+					break;
+				}
+				if (item instanceof Failure) {
+					throw ((Failure) item).cause;
+				}
+
+				@SuppressWarnings("unchecked")
+				I input = (I) item;
+				process(input);
+				this.itemsProcessed++;
+				this.upstream.request(1);
+			}
+
+			finish();
+			if (this.downstream != null) {
+				this.downstream.onComplete();
+			}
+			this.completion.complete(null);
+
+		} catch (Throwable e) {
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			if (this.upstream != null) {
+				this.upstream.cancel();
+			}
+			if (this.downstream != null) {
+				this.downstream.onError(e);
+			}
+			this.completion.completeExceptionally(e);
+
+		} finally {
+			release();
+		}
+	}
+
+	@Override
+	public void onSubscribe(final Flow.Subscription subscription) {
+		this.upstream = subscription;
+		subscription.request(this.capacity);
+	}
+
+	@Override
+	public void onNext(final I item) {
+		enqueue(item);
+	}
+
+	@Override
+	public void onError(final Throwable throwable) {
+		enqueue(new Failure(throwable));
+	}
+
+	@Override
+	public void onComplete() {
+		enqueue(END);
+	}
+
+	private void enqueue(final Object item) {
+
+		// never blocks, no more items than requested are received
+		if (!this.queue.offer(item)) {
+			throw new IllegalStateException("Stage " + this.name + " received more items than requested.");
+		}
+		int depth = this.queue.size();
+		if (depth > this.maxQueueDepth) {
+			this.maxQueueDepth = depth;
+		}
+	}
+
+	@Override
+	public void subscribe(final Flow.Subscriber<? super O> subscriber) {
+
+		if (this.downstream != null) {
+			throw new IllegalStateException("Stage " + this.name + " already has a subscriber.");
+		}
+		this.downstream = subscriber;
+
+		subscriber.onSubscribe(new Flow.Subscription() {
+
+			@Override
+			public void request(final long n) {
+
+				PipelineStage.this.lock.lock();
+				try {
+					PipelineStage.this.demand += n;
+					PipelineStage.this.demandAvailable.signalAll();
+				} finally {
+					PipelineStage.this.lock.unlock();
+				}
+			}
+
+			@Override
+			public void cancel() {
+
+				PipelineStage.this.lock.lock();
+				try {
+					PipelineStage.this.cancelled = true;
+					PipelineStage.this.demandAvailable.signalAll();
+				} finally {
+					PipelineStage.this.lock.unlock();
+				}
+			}
+		});
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return the number of items received, which are waiting to be processed
+	 */
+	public int getQueueDepth() {
+		return this.queue.size();
+	}
+
+	/**
+	 * @return the highest number of items waiting at the same time so far
+	 */
+	public int getMaxQueueDepth() {
+		return this.maxQueueDepth;
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	public long getItemsProcessed() {
+		return this.itemsProcessed;
+	}
+
+	CompletableFuture<Void> getCompletion() {
+		return this.completion;
+	}
+
+	/**
+	 * An error of the previous stage, waiting in the queue behind its items.
+	 */
+	private static class Failure {
+
+		private final Throwable cause;
+
+		Failure(final Throwable cause) {
+			this.cause = cause;
+		}
+	}
+}
@@ -0,0 +1,334 @@
+package valentin.marianov.employees.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import valentin.marianov.employees.employee.CollaborationGraph.Partner;
+import valentin.marianov.employees.employee.EmployeeDataset;
+import valentin.marianov.employees.employee.EmployeeProcessing;
+import valentin.marianov.employees.employee.HeadcountTimeline;
+import valentin.marianov.employees.utility.DateUtility;
+
+/**
+ * Local HTTP server answering questions about the employee pairs of a file. The
+ * file is processed once when the server starts (and on every reload), all
+ * requests are answered from the loaded {@link EmployeeDataset}.
+ * <p>
+ * The following requests are supported, all of them return JSON:
+ * <ul>
+ * <li>GET /longest - the pair with the most days worked together
+ * <li>GET /top?k=10 - the k pairs with the most days worked together
+ * <li>GET /partners?employee=143 - all employees the given one has worked with
+ * <li>GET /collaborators?employee=143&amp;n=5 - the n employees the given one
+ * has worked with most, with the number of common projects
+ * <li>GET /strongest - the strongest collaborator of every employee
+ * <li>GET /project?id=10&amp;from=2020-01-01&amp;to=2020-12-31 - the pairs of a
+ * project within the given period
+ * <li>GET /headcount?project=10 - the peak and average number of employees
+ * working at the same time on a project (or the whole company without a
+ * project) and the periods of the peak
+ * <li>POST /reload - processes the file again
+ * </ul>
+ * A reload builds the new dataset next to the current one and replaces it once
+ * it is complete, so requests are never blocked by a reload.
+ *
+ * @author Valentin
+ */
+public class QueryServer {
+
+	private static Logger logger = Logger.getLogger("employees-logger");
+
+	private final File file;
+	private final AtomicReference<EmployeeDataset> dataset = new AtomicReference<>();
+	private final ReentrantLock reloadLock = new ReentrantLock();
+
+	private HttpServer server;
+	private ExecutorService executor;
+
+	public QueryServer(final File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Loads the dataset and starts listening on the given port of the loopback
+	 * address, so that only local clients can query the data.
+	 *
+	 * @param port - the port, 0 for any free port
+	 * @throws IOException in case the server could not be started
+	 *
+	 * @author Valentin
+	 */
+	public void start(final int port) throws IOException {
+
+		reload();
+
+		this.executor = createExecutor();
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		this.server.setExecutor(this.executor);
+
+		this.server.createContext("/longest", new QueryHandler("GET",
+				(dataset, parameters) -> toJson(dataset.findLongestWorkingEmployeePair())));
+		this.server.createContext("/top", new QueryHandler("GET", (dataset, parameters) -> toJson(
+				dataset.findTopWorkingEmployeePairs(getInt(parameters, "k", EmployeeProcessing.DEFAULT_TOP_PAIRS)))));
+		this.server.createContext("/partners", new QueryHandler("GET",
+				(dataset, parameters) -> toJson(dataset.findPartners(getInt(parameters, "employee", null)))));
+		this.server.createContext("/collaborators", new QueryHandler("GET",
+				(dataset, parameters) -> partnersToJson(dataset.getCollaborationGraph().findTopPartners(
+						getInt(parameters, "employee", null),
+						getInt(parameters, "n", EmployeeProcessing.DEFAULT_TOP_PAIRS)))));
+		this.server.createContext("/strongest", new QueryHandler("GET",
+				(dataset, parameters) -> partnersToJson(dataset.getCollaborationGraph().findStrongestCollaborators())));
+		this.server.createContext("/project", new QueryHandler("GET", (dataset, parameters) -> toJson(
+				dataset.findPairsOnProject(getInt(parameters, "id", null),
+						DateUtility.convertStringToDate(getString(parameters, "from")),
+						DateUtility.convertStringToDate(getString(parameters, "to"))))));
+		this.server.createContext("/headcount", new QueryHandler("GET", (dataset, parameters) -> {
+			if (!parameters.containsKey("project")) {
+				return toJson(null, dataset.getCompanyHeadcountTimeline());
+			}
+			int projectID = getInt(parameters, "project", null);
+			return toJson(projectID, dataset.getHeadcountTimeline(projectID));
+		}));
+		this.server.createContext("/reload", new QueryHandler("POST", (dataset, parameters) -> {
+			EmployeeDataset reloaded = reload();
+			return "{\"employees\":" + reloaded.getEmployees().size() + ",\"projects\":"
+					+ reloaded.getProjects().size() + "}";
+		}));
+
+		this.server.start();
+		logger.info("Query server listening on port " + getPort() + ".");
+	}
+
+	/**
+	 * Stops the server, waiting at most one second for running requests.
+	 */
+	public void stop() {
+		this.server.stop(1);
+		this.executor.shutdown();
+	}
+
+	public int getPort() {
+		return this.server.getAddress().getPort();
+	}
+
+	/**
+	 * Processes the file again and replaces the current dataset. In case the file
+	 * could not be processed (no employees found), the current dataset is kept.
+	 * Reloads are done one after another, requests keep using the current dataset
+	 * meanwhile.
+	 *
+	 * @return the dataset used from now on
+	 *
+	 * @author Valentin
+	 */
+	public EmployeeDataset reload() {
+
+		this.reloadLock.lock();
+		try {
+			// no pop-up messages without User Interface
+			EmployeeDataset reloaded = EmployeeDataset.load(this.file, true);
+
+			if (reloaded.getEmployees().isEmpty() && this.dataset.get() != null) {
+				logger.warning("No employees found in " + this.file.getName() + ", keeping the current data.");
+				return this.dataset.get();
+			}
+
+			this.dataset.set(reloaded);
+			return reloaded;
+
+		} finally {
+			this.reloadLock.unlock();
+		}
+	}
+
+	/**
+	 * Uses a virtual thread per request when running on a Java version supporting
+	 * them (21 or later), otherwise a new or cached platform thread.
+	 */
+	private static ExecutorService createExecutor() {
+
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			logger.info("Virtual threads are not available, using a cached thread pool.");
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/**
+	 * Answers a query from the dataset at the time the request arrived.
+	 */
+	@FunctionalInterface
+	private interface Query {
+		String answer(EmployeeDataset dataset, HashMap<String, String> parameters);
+	}
+
+	private class QueryHandler implements HttpHandler {
+
+		private final String method;
+		private final Query query;
+
+		QueryHandler(final String method, final Query query) {
+			this.method = method;
+			this.query = query;
+		}
+
+		@Override
+		public void handle(final HttpExchange exchange) throws IOException {
+
+			try {
+				if (!exchange.getRequestMethod().equalsIgnoreCase(this.method)) {
+					send(exchange, 405, "{\"error\":\"Use " + this.method + ".\"}");
+					return;
+				}
+
+				HashMap<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+				send(exchange, 200, this.query.answer(QueryServer.this.dataset.get(), parameters));
+
+			} catch (IllegalArgumentException e) {
+				send(exchange, 400, "{\"error\":\"" + String.valueOf(e.getMessage()).replace("\"", "'") + "\"}");
+			} catch (RuntimeException e) {
+				logger.severe("Could not answer " + exchange.getRequestURI() + ": " + e);
+				send(exchange, 500, "{\"error\":\"Internal error.\"}");
+			} finally {
+				exchange.close();
+			}
+		}
+
+		private void send(final HttpExchange exchange, final int status, final String body) throws IOException {
+
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+			exchange.sendResponseHeaders(status, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		}
+	}
+
+	private static HashMap<String, String> parseQuery(final String query) {
+
+		HashMap<String, String> parameters = new HashMap<>();
+		if (query == null) {
+			return parameters;
+		}
+
+		for (String parameter : query.split("&")) {
+			int separator = parameter.indexOf('=');
+			if (separator > 0) {
+				parameters.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+						URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return parameters;
+	}
+
+	private static String getString(final HashMap<String, String> parameters, final String name) {
+
+		String value = parameters.get(name);
+		if (value == null || value.isEmpty()) {
+			throw new IllegalArgumentException("Missing parameter " + name + ".");
+		}
+		return value;
+	}
+
+	private static int getInt(final HashMap<String, String> parameters, final String name,
+			final Integer defaultValue) {
+
+		if (!parameters.containsKey(name) && defaultValue != null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(getString(parameters, name));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Parameter " + name + " is not a number.");
+		}
+	}
+
+	private static String toJson(final List<String[]> pairs) {
+
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < pairs.size(); i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append(toJson(pairs.get(i)));
+		}
+		return json.append(']').toString();
+	}
+
+	private static String partnersToJson(final List<Partner> partners) {
+
+		StringBuilder json = new StringBuilder("[");
+		for (Partner partner : partners) {
+			if (json.length() > 1) {
+				json.append(',');
+			}
+			json.append("{\"employee\":").append(partner.getEmployeeID()).append(",\"partner\":")
+					.append(partner.getPartnerID()).append(",\"commonProjects\":")
+					.append(partner.getCommonProjects()).append(",\"days\":")
+					.append(partner.getDaysWorkedTogether()).append('}');
+		}
+		return json.append(']').toString();
+	}
+
+	/**
+	 * Converts the headcount of a project (or the company without a project) to
+	 * JSON, null for an unknown project.
+	 */
+	private static String toJson(final Integer projectID, final HeadcountTimeline timeline) {
+
+		if (timeline == null) {
+			return "null";
+		}
+
+		StringBuilder json = new StringBuilder("{");
+		if (projectID != null) {
+			json.append("\"project\":").append(projectID).append(',');
+		}
+		json.append("\"peak\":").append(timeline.getPeakHeadcount()).append(",\"average\":")
+				.append(String.format(Locale.ROOT, "%.2f", timeline.getAverageHeadcount()))
+				.append(",\"staffedDays\":").append(timeline.getStaffedDays()).append(",\"peakPeriods\":[");
+
+		List<int[]> peakPeriods = timeline.getPeakPeriods();
+		for (int i = 0; i < peakPeriods.size(); i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append("{\"from\":\"").append(LocalDate.ofEpochDay(peakPeriods.get(i)[0])).append("\",\"to\":\"")
+					.append(LocalDate.ofEpochDay(peakPeriods.get(i)[1])).append("\"}");
+		}
+		return json.append("]}").toString();
+	}
+
+	/**
+	 * Converts a pair (both employee ids, project ids and days) to JSON, null when
+	 * no pair is available.
+	 */
+	private static String toJson(final String[] pair) {
+
+		if (pair == null || pair[0] == null) {
+			return "null";
+		}
+		return "{\"employee1\":" + pair[0] + ",\"employee2\":" + pair[1] + ",\"projects\":["
+				+ pair[2].trim().replace(' ', ',') + "],\"days\":" + pair[3] + "}";
+	}
+}
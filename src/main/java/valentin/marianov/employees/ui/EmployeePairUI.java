@@ -6,22 +6,33 @@ import java.awt.LayoutManager;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
+import javax.swing.BoxLayout;
 import javax.swing.JButton;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
 import javax.swing.JTable;
 import javax.swing.JTextField;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
 
-import valentin.marianov.employees.employee.EmployeePairs;
+import valentin.marianov.employees.employee.Employee;
+import valentin.marianov.employees.employee.EmployeeIndex;
 import valentin.marianov.employees.employee.EmployeeProcessing;
+import valentin.marianov.employees.utility.DateUtility;
 
 /**
  * Creates a frame consisting of the following elements:
@@ -29,17 +40,42 @@ import valentin.marianov.employees.employee.EmployeeProcessing;
  * <li>label
  * <li>text field - showing the current select file
  * <li>browse button - used to browse users local directory and
+ * <li>unload button - releases the data of the selected file
+ * <li>filter fields - period, projects and number of pairs to show
+ * <li>status label - size of the loaded data and memory used
  * <li>datagrid - table displaying the employee ids, project ids and the work
- * period (in days) for the pair having worked together on common projects for
+ * period (in days) for the pairs having worked together on common projects for
  * the longest time
  * </ul>
+ * The selected file is processed only once, its assignments are kept in an
+ * {@link EmployeeIndex} until another file is selected or the data is
+ * unloaded. Applying other filters only finds and ranks the pairs again.
+ * <p>
+ * Reading the file and finding the pairs run in the background, so that the
+ * window keeps responding. Meanwhile the buttons are disabled.
  * 
  * @author Valentin
  */
 public class EmployeePairUI {
 
+	private static final int MEGABYTE = 1024 * 1024;
+
 	private static JFrame frame;
 
+	// the data of the selected file, null when no file is loaded
+	private static EmployeeIndex employeeIndex;
+
+	private static JTextField filePathTextField;
+	private static JTextField fromTextField;
+	private static JTextField toTextField;
+	private static JTextField projectsTextField;
+	private static JSpinner topPairsSpinner;
+	private static JButton browseButton;
+	private static JButton unloadButton;
+	private static JButton applyButton;
+	private static JLabel statusLabel;
+	private static DefaultTableModel tableModel;
+
 	/**
 	 * Creates and displays a window with all the needed interaction elements.
 	 * 
@@ -60,19 +96,23 @@ public class EmployeePairUI {
 
 	/**
 	 * Creates all UI elements displayed within the frame. Those include a main
-	 * panel holding two subpanels, where the one consists of a label, text field
-	 * and a browse button used to select a csv-file from the local repository. The
-	 * later holds a data grid in the form of a table used to visualize the pair
+	 * panel holding four subpanels: a label, text field and buttons used to select
+	 * a csv-file from the local repository or to unload it, the filters, the
+	 * status and a data grid in the form of a table used to visualize the pairs
 	 * with the longest period of working time on common projects.
 	 * 
 	 * @author Valentin
 	 */
 	private static void addElementsToFrame() {
 
-		// main panel will hold two child panels
+		// main panel will hold the child panels one below the other
 		JPanel mainPanel = new JPanel();
-		// child panels for browse button and a table holding the results
+		mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.Y_AXIS));
+		// child panels for browse button, filters, status and a table holding the
+		// results
 		JPanel browseFilePanel = new JPanel();
+		JPanel filterPanel = new JPanel();
+		JPanel statusPanel = new JPanel();
 		JPanel employeePairsPanel = new JPanel();
 
 		// set flow layout for the panel holding a label, text field showing the
@@ -80,26 +120,51 @@ public class EmployeePairUI {
 		LayoutManager layout = new FlowLayout();
 		browseFilePanel.setLayout(layout);
 
-		// create label, text field and a button
+		// create label, text field and buttons
 		final JLabel label = new JLabel("Selected file:");
-		JTextField filePathTextField = new JTextField(null, "", 26);
+		filePathTextField = new JTextField(null, "", 26);
 		filePathTextField.setEditable(false);
-		JButton browseButton = new JButton("Browse");
+		browseButton = new JButton("Browse");
+		unloadButton = new JButton("Unload");
 
 		// add the above elements to the first panel
 		browseFilePanel.add(label);
 		browseFilePanel.add(filePathTextField);
 		browseFilePanel.add(browseButton);
+		browseFilePanel.add(unloadButton);
+
+		// period, projects and number of pairs, empty fields do not filter
+		fromTextField = new JTextField(8);
+		toTextField = new JTextField(8);
+		projectsTextField = new JTextField(10);
+		topPairsSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 1000, 1));
+		applyButton = new JButton("Apply");
+
+		filterPanel.add(new JLabel("From:"));
+		filterPanel.add(fromTextField);
+		filterPanel.add(new JLabel("To:"));
+		filterPanel.add(toTextField);
+		filterPanel.add(new JLabel("Projects:"));
+		filterPanel.add(projectsTextField);
+		filterPanel.add(new JLabel("Top:"));
+		filterPanel.add(topPairsSpinner);
+		filterPanel.add(applyButton);
+
+		statusLabel = new JLabel();
+		statusPanel.add(statusLabel);
+		updateStatus();
 
 		// create table
-		DefaultTableModel tableModel = new DefaultTableModel();
+		tableModel = new DefaultTableModel();
 		JTable table = new JTable(tableModel);
 
 		// make it scrollable
 		JScrollPane scrollPane = new JScrollPane();
 		scrollPane.setViewportView(table);
 
-		addActionListenerForBrowseButton(browseButton, filePathTextField, tableModel);
+		addActionListenerForBrowseButton(browseButton);
+		unloadButton.addActionListener(event -> unload());
+		applyButton.addActionListener(event -> showTopPairs());
 
 		// add columns to table
 		tableModel.addColumn("Employee ID #1");
@@ -117,26 +182,25 @@ public class EmployeePairUI {
 			table.getColumnModel().getColumn(x).setCellRenderer(centerRenderer);
 		}
 
-		// add both sub-panels to main panel
+		// add all sub-panels to main panel
 		mainPanel.add(browseFilePanel);
+		mainPanel.add(filterPanel);
+		mainPanel.add(statusPanel);
 		mainPanel.add(employeePairsPanel);
 
 		frame.getContentPane().add(mainPanel, BorderLayout.CENTER);
 	}
 
 	/**
-	 * Trigged once the user has selected a file. The later is then processed and in
-	 * order to find the pair with the longest period of work on common projects (if
-	 * any is available).
+	 * Trigged once the user has selected a file. The later is then processed and
+	 * kept, the pairs with the longest period of work on common projects (if any
+	 * are available) are shown for the current filters.
 	 * 
 	 * @param browseButton
-	 * @param filePathTextField
-	 * @param tableModel
 	 * 
 	 * @author Valentin
 	 */
-	private static void addActionListenerForBrowseButton(JButton browseButton, JTextField filePathTextField,
-			DefaultTableModel tableModel) {
+	private static void addActionListenerForBrowseButton(JButton browseButton) {
 
 		browseButton.addActionListener(new ActionListener() {
 			@Override
@@ -145,30 +209,199 @@ public class EmployeePairUI {
 				int option = fileChooser.showOpenDialog(frame);
 
 				if (option == JFileChooser.APPROVE_OPTION) {
+					// release the previous file before reading the next one
+					unload();
+					load(fileChooser.getSelectedFile());
+				}
+			}
+		});
+	}
+
+	/**
+	 * Processes the file in the background and keeps its index.
+	 * 
+	 * @param file - the selected file
+	 * 
+	 * @author Valentin
+	 */
+	private static void load(final File file) {
+
+		setBusy(true);
+
+		new SwingWorker<EmployeeIndex, Void>() {
 
-					File file = fileChooser.getSelectedFile();
+			private final List<String> errors = new ArrayList<String>();
+			private int employeeCount;
+
+			@Override
+			protected EmployeeIndex doInBackground() {
+
+				// the errors are shown once done, not from the background thread
+				List<Employee> employees = EmployeeProcessing.processEmployeesAndTheirProjects(file, true,
+						this.errors);
+				this.employeeCount = employees.size();
+
+				// only the index is kept, not the employees
+				return employees.size() < 2 ? null : EmployeeIndex.build(employees);
+			}
+
+			@Override
+			protected void done() {
+
+				setBusy(false);
+				EmployeeIndex index = getResult(this);
+
+				if (!this.errors.isEmpty()) {
+					JOptionPane.showMessageDialog(frame, this.errors.get(0));
+				} else if (this.employeeCount == 1) {
+					JOptionPane.showMessageDialog(frame,
+							"Insufficient number of employees. Therefore no potential pairs can be formed.");
+				}
+
+				if (index != null) {
+					employeeIndex = index;
 					filePathTextField.setText(file.getName());
-					// remove previos results
-					tableModel.setRowCount(0);
+					updateStatus();
+					showTopPairs();
+				}
+			}
+		}.execute();
+	}
 
-					// contains all employees having worked together at a project (result may be an
-					// empty list when no such pairs have been found)
-					HashMap<Integer, EmployeePairs> employeePairs = EmployeeProcessing.findAllEmployeePairs(file,
-							false);
+	/**
+	 * Finds the pairs of the loaded file again for the current filters and shows
+	 * them in the table.
+	 * 
+	 * @author Valentin
+	 */
+	private static void showTopPairs() {
 
-					if (employeePairs.size() > 0) {
-						String[] longestTogetherWorkingPair = EmployeeProcessing
-								.findLongestWorkingEmployeePair(employeePairs);
+		// remove previous results
+		tableModel.setRowCount(0);
+
+		if (employeeIndex == null) {
+			return;
+		}
 
-						tableModel.addRow(new Object[] { longestTogetherWorkingPair[0], longestTogetherWorkingPair[1],
-								longestTogetherWorkingPair[2], longestTogetherWorkingPair[3] });
-						return;
-					}
+		Date from;
+		Date to;
+		HashSet<Integer> projectIDs = null;
 
-					filePathTextField.setText("");
+		try {
+			from = DateUtility.convertStringToDate(fromTextField.getText().trim());
+			to = DateUtility.convertStringToDate(toTextField.getText().trim());
+
+			if (!projectsTextField.getText().isBlank()) {
+				projectIDs = new HashSet<Integer>();
+				for (String projectID : projectsTextField.getText().split(",")) {
+					projectIDs.add(Integer.parseInt(projectID.trim()));
 				}
 			}
-		});
+
+		} catch (NumberFormatException e) {
+			JOptionPane.showMessageDialog(frame, "Please enter the project ids separated by commas.");
+			return;
+		} catch (IllegalArgumentException e) {
+			JOptionPane.showMessageDialog(frame, "Please enter the dates as MM/dd/yyyy, yyyyMMdd or yyyy-MM-dd.");
+			return;
+		}
+
+		EmployeeIndex index = employeeIndex;
+		HashSet<Integer> filteredProjectIDs = projectIDs;
+		int k = (Integer) topPairsSpinner.getValue();
+		setBusy(true);
+
+		new SwingWorker<List<String[]>, Void>() {
+
+			@Override
+			protected List<String[]> doInBackground() {
+				return index.findTopWorkingEmployeePairs(from, to, filteredProjectIDs, k);
+			}
+
+			@Override
+			protected void done() {
+
+				setBusy(false);
+				List<String[]> topPairs = getResult(this);
+				if (topPairs == null) {
+					return;
+				}
+
+				for (String[] pair : topPairs) {
+					tableModel.addRow(new Object[] { pair[0], pair[1], pair[2], pair[3] });
+				}
+				updateStatus();
+
+				if (topPairs.isEmpty()) {
+					JOptionPane.showMessageDialog(frame,
+							"Did not find any pair of employees working on the same project for the given filters.");
+				}
+			}
+		}.execute();
+	}
+
+	/**
+	 * Enables or disables the buttons while a file is read or the pairs are found.
+	 */
+	private static void setBusy(final boolean busy) {
+
+		browseButton.setEnabled(!busy);
+		unloadButton.setEnabled(!busy);
+		applyButton.setEnabled(!busy);
+		if (busy) {
+			statusLabel.setText("Working...");
+		} else {
+			updateStatus();
+		}
+	}
+
+	/**
+	 * @return the result of a completed background task, null in case it has
+	 *         failed, which is shown to the user
+	 */
+	private static <T> T getResult(final SwingWorker<T, Void> worker) {
+
+		try {
+			return worker.get();
+		} catch (ExecutionException e) {
+			JOptionPane.showMessageDialog(frame, "An error occured: " + e.getCause().getMessage());
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	/**
+	 * Releases the data of the loaded file.
+	 * 
+	 * @author Valentin
+	 */
+	private static void unload() {
+
+		employeeIndex = null;
+		filePathTextField.setText("");
+		tableModel.setRowCount(0);
+		updateStatus();
+	}
+
+	/**
+	 * Shows the size of the loaded data and the memory used by the whole program.
+	 */
+	private static void updateStatus() {
+
+		Runtime runtime = Runtime.getRuntime();
+		String memory = "memory used " + (runtime.totalMemory() - runtime.freeMemory()) / MEGABYTE + " of "
+				+ runtime.maxMemory() / MEGABYTE + " MB";
+
+		if (employeeIndex == null) {
+			statusLabel.setText("No file loaded, " + memory + ".");
+			return;
+		}
+		statusLabel.setText(employeeIndex.getEmployeeCount() + " employees, " + employeeIndex.getProjectCount()
+				+ " projects, " + employeeIndex.getAssignmentCount() + " assignments (about "
+				+ String.format("%.1f", (double) employeeIndex.getEstimatedSizeInBytes() / MEGABYTE) + " MB), "
+				+ memory + ".");
 	}
 
 };
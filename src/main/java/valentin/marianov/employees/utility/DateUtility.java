@@ -1,5 +1,6 @@
 package valentin.marianov.employees.utility;
 
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -135,4 +136,18 @@ public class DateUtility {
 		}
 
 	}
+
+	/**
+	 * Converts a date to the number of days since 1970-01-01 in the default time
+	 * zone. Two dates on the same calendar day result in the same value, so that
+	 * the overlap of two date ranges can be computed by simply subtracting days.
+	 * 
+	 * @param date - the date to convert
+	 * @return the epoch day of the date
+	 * 
+	 * @author Valentin
+	 */
+	public static int toEpochDay(final Date date) {
+		return (int) date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+	}
 }
@@ -0,0 +1,234 @@
+package valentin.marianov.employees.utility;
+
+import java.util.Arrays;
+
+/**
+ * Compressed set of days (epoch days), e.g. all days an employee has worked on a
+ * project.
+ * <p>
+ * Similar to the containers of a roaring bitmap, the days are stored in one of
+ * two forms, whichever needs less memory:
+ * <ul>
+ * <li>run container - sorted, non overlapping ranges of days (start and end day)
+ * <li>bitmap container - one bit per day, aligned to multiples of 64 days
+ * </ul>
+ * The number of common days of two sets is computed with
+ * {@link #andCardinality(DayBitset, DayBitset)}, i.e. by intersecting the runs or
+ * by a bitwise AND of the bitmaps followed by a population count.
+ *
+ * @author Valentin
+ */
+public class DayBitset {
+
+	private final int firstDay;
+	private final int lastDay;
+	private final int cardinality;
+
+	// run container
+	private final int[] runStarts;
+	private final int[] runEnds;
+
+	// bitmap container, the first word holds the days starting at firstWord * 64
+	private final long firstWord;
+	private final long[] words;
+
+	private DayBitset(final int[] runStarts, final int[] runEnds, final int runCount, final boolean asBitmap) {
+
+		int days = 0;
+		for (int i = 0; i < runCount; i++) {
+			days += runEnds[i] - runStarts[i] + 1;
+		}
+
+		this.cardinality = days;
+		this.firstDay = runCount == 0 ? 0 : runStarts[0];
+		this.lastDay = runCount == 0 ? -1 : runEnds[runCount - 1];
+
+		if (asBitmap) {
+			this.runStarts = null;
+			this.runEnds = null;
+			this.firstWord = Math.floorDiv(this.firstDay, 64);
+			this.words = new long[(int) (Math.floorDiv(this.lastDay, 64) - this.firstWord + 1)];
+
+			for (int i = 0; i < runCount; i++) {
+				setRange(runStarts[i], runEnds[i]);
+			}
+		} else {
+			this.runStarts = Arrays.copyOf(runStarts, runCount);
+			this.runEnds = Arrays.copyOf(runEnds, runCount);
+			this.firstWord = 0;
+			this.words = null;
+		}
+	}
+
+	/**
+	 * Creates the set of all days within the given ranges. The ranges have to be
+	 * sorted by their start day, they may overlap each other. Ranges ending before
+	 * they start are ignored.
+	 *
+	 * @param startDays - the first day of every range
+	 * @param endDays   - the last day of every range (inclusive)
+	 * @param from      - index of the first range to add
+	 * @param to        - index after the last range to add
+	 * @return the set of days
+	 *
+	 * @author Valentin
+	 */
+	public static DayBitset of(final int[] startDays, final int[] endDays, final int from, final int to) {
+
+		int[] runStarts = new int[to - from];
+		int[] runEnds = new int[to - from];
+		int runCount = 0;
+
+		for (int i = from; i < to; i++) {
+
+			if (endDays[i] < startDays[i]) {
+				continue;
+			}
+
+			// overlapping or adjacent ranges form a single run
+			if (runCount > 0 && startDays[i] <= runEnds[runCount - 1] + 1) {
+				runEnds[runCount - 1] = Math.max(runEnds[runCount - 1], endDays[i]);
+			} else {
+				runStarts[runCount] = startDays[i];
+				runEnds[runCount] = endDays[i];
+				runCount++;
+			}
+		}
+
+		// two integers per run versus one long per 64 days
+		long bitmapWords = runCount == 0 ? 0
+				: Math.floorDiv(runEnds[runCount - 1], 64) - Math.floorDiv(runStarts[0], 64) + 1;
+
+		return new DayBitset(runStarts, runEnds, runCount, bitmapWords < runCount);
+	}
+
+	/**
+	 * @return the number of days in the set
+	 */
+	public int cardinality() {
+		return this.cardinality;
+	}
+
+	public int getFirstDay() {
+		return this.firstDay;
+	}
+
+	public int getLastDay() {
+		return this.lastDay;
+	}
+
+	public boolean isBitmap() {
+		return this.words != null;
+	}
+
+	/**
+	 * Computes the number of days contained in both sets.
+	 *
+	 * @param a - the first set of days
+	 * @param b - the second set of days
+	 * @return the number of common days
+	 *
+	 * @author Valentin
+	 */
+	public static int andCardinality(final DayBitset a, final DayBitset b) {
+
+		if (a.cardinality == 0 || b.cardinality == 0 || a.lastDay < b.firstDay || b.lastDay < a.firstDay) {
+			return 0;
+		}
+
+		if (a.isBitmap() && b.isBitmap()) {
+
+			long from = Math.max(a.firstWord, b.firstWord);
+			long to = Math.min(a.firstWord + a.words.length, b.firstWord + b.words.length);
+			int days = 0;
+
+			for (long word = from; word < to; word++) {
+				days += Long.bitCount(a.words[(int) (word - a.firstWord)] & b.words[(int) (word - b.firstWord)]);
+			}
+			return days;
+
+		} else if (a.isBitmap()) {
+			return b.countRunsIn(a);
+		} else if (b.isBitmap()) {
+			return a.countRunsIn(b);
+		}
+
+		// both are run containers, intersect the sorted runs
+		int days = 0;
+		int i = 0;
+		int j = 0;
+
+		while (i < a.runStarts.length && j < b.runStarts.length) {
+
+			int overlap = Math.min(a.runEnds[i], b.runEnds[j]) - Math.max(a.runStarts[i], b.runStarts[j]) + 1;
+			if (overlap > 0) {
+				days += overlap;
+			}
+
+			// continue with the run ending first
+			if (a.runEnds[i] < b.runEnds[j]) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return days;
+	}
+
+	/**
+	 * Counts the days of the runs of this (run) container set in the given bitmap.
+	 */
+	private int countRunsIn(final DayBitset bitmap) {
+
+		int days = 0;
+		for (int i = 0; i < this.runStarts.length; i++) {
+
+			int from = Math.max(this.runStarts[i], bitmap.firstDay);
+			int to = Math.min(this.runEnds[i], bitmap.lastDay);
+			if (from <= to) {
+				days += bitmap.countRange(from, to);
+			}
+		}
+		return days;
+	}
+
+	/**
+	 * Counts the bits of the bitmap within the days [from, to].
+	 */
+	private int countRange(final int from, final int to) {
+
+		int fromWord = (int) (Math.floorDiv(from, 64) - this.firstWord);
+		int toWord = (int) (Math.floorDiv(to, 64) - this.firstWord);
+		long fromMask = -1L << Math.floorMod(from, 64);
+		long toMask = -1L >>> (63 - Math.floorMod(to, 64));
+
+		if (fromWord == toWord) {
+			return Long.bitCount(this.words[fromWord] & fromMask & toMask);
+		}
+
+		int days = Long.bitCount(this.words[fromWord] & fromMask) + Long.bitCount(this.words[toWord] & toMask);
+		for (int word = fromWord + 1; word < toWord; word++) {
+			days += Long.bitCount(this.words[word]);
+		}
+		return days;
+	}
+
+	private void setRange(final int from, final int to) {
+
+		int fromWord = (int) (Math.floorDiv(from, 64) - this.firstWord);
+		int toWord = (int) (Math.floorDiv(to, 64) - this.firstWord);
+		long fromMask = -1L << Math.floorMod(from, 64);
+		long toMask = -1L >>> (63 - Math.floorMod(to, 64));
+
+		if (fromWord == toWord) {
+			this.words[fromWord] |= fromMask & toMask;
+			return;
+		}
+
+		this.words[fromWord] |= fromMask;
+		for (int word = fromWord + 1; word < toWord; word++) {
+			this.words[word] = -1L;
+		}
+		this.words[toWord] |= toMask;
+	}
+}
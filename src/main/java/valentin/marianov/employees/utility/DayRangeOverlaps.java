@@ -0,0 +1,98 @@
+package valentin.marianov.employees.utility;
+
+import java.util.logging.Logger;
+
+/**
+ * Computes the overlap in days of one date range with many others at once, the
+ * date ranges given as epoch days (see {@link DateUtility#toEpochDay}). Like
+ * {@link DateUtility#computeOverlapOfDateRages}, the overlap includes the end
+ * day, i.e. it is <code>max(0, min(ends) - max(starts) + 1)</code>.
+ * <p>
+ * When the JVM has been started with
+ * <code>--add-modules jdk.incubator.vector</code>, several date ranges are
+ * computed by a single SIMD instruction using the Vector API. Otherwise, or when
+ * the system property <code>employees.vector</code> is set to false, they are
+ * computed one after another.
+ *
+ * @author Valentin
+ */
+public class DayRangeOverlaps {
+
+	private static Logger logger = Logger.getLogger("employees-logger");
+
+	private static final boolean VECTOR_AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector")
+			.isPresent();
+	private static final boolean VECTORIZED = VECTOR_AVAILABLE
+			&& !"false".equalsIgnoreCase(System.getProperty("employees.vector"));
+
+	static {
+		logger.fine(() -> "Overlaps of date ranges are computed " + (VECTORIZED ? "by the Vector API." : "one by one."));
+	}
+
+	private DayRangeOverlaps() {
+	}
+
+	/**
+	 * @return whether the Vector API can be used, i.e. its module is available
+	 */
+	public static boolean isVectorAvailable() {
+		return VECTOR_AVAILABLE;
+	}
+
+	/**
+	 * @return whether {@link #computeOverlaps} uses the Vector API
+	 */
+	public static boolean isVectorized() {
+		return VECTORIZED;
+	}
+
+	/**
+	 * Computes the overlap of a date range with the date ranges
+	 * <code>from</code> (inclusive) to <code>to</code> (exclusive).
+	 *
+	 * @param startDay  - first day of the date range
+	 * @param endDay    - last day of the date range (inclusive)
+	 * @param startDays - first days of the other date ranges
+	 * @param endDays   - last days of the other date ranges (inclusive)
+	 * @param from      - index of the first other date range
+	 * @param to        - index after the last other date range
+	 * @param overlaps  - receives the overlap in days with every other date range,
+	 *                  0 when they do not overlap, starting at index 0
+	 *
+	 * @author Valentin
+	 */
+	public static void computeOverlaps(final int startDay, final int endDay, final int[] startDays,
+			final int[] endDays, final int from, final int to, final int[] overlaps) {
+
+		if (VECTORIZED) {
+			VectorDayRangeOverlaps.computeOverlaps(startDay, endDay, startDays, endDays, from, to, overlaps);
+		} else {
+			computeOverlapsScalar(startDay, endDay, startDays, endDays, from, to, overlaps);
+		}
+	}
+
+	/**
+	 * Same as {@link #computeOverlaps}, always one date range after another.
+	 */
+	public static void computeOverlapsScalar(final int startDay, final int endDay, final int[] startDays,
+			final int[] endDays, final int from, final int to, final int[] overlaps) {
+
+		for (int i = from; i < to; i++) {
+			overlaps[i - from] = Math.max(0, Math.min(endDay, endDays[i]) - Math.max(startDay, startDays[i]) + 1);
+		}
+	}
+
+	/**
+	 * Same as {@link #computeOverlaps}, always by the Vector API.
+	 *
+	 * @throws IllegalStateException in case the Vector API is not available
+	 */
+	public static void computeOverlapsVectorized(final int startDay, final int endDay, final int[] startDays,
+			final int[] endDays, final int from, final int to, final int[] overlaps) {
+
+		if (!VECTOR_AVAILABLE) {
+			throw new IllegalStateException("Start the JVM with --add-modules jdk.incubator.vector.");
+		}
+		VectorDayRangeOverlaps.computeOverlaps(startDay, endDay, startDays, endDays, from, to, overlaps);
+	}
+}
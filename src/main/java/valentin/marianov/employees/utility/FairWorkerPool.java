@@ -0,0 +1,186 @@
+package valentin.marianov.employees.utility;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded pool of worker threads shared by several jobs, e.g. all analyses
+ * running at the same time in a service. The number of threads is fixed, so
+ * the CPU used by all jobs together is predictable.
+ * <p>
+ * Every job has its own queue of tasks. The workers take the tasks of the jobs
+ * in turns (round robin), therefore a job with many tasks does not delay the
+ * tasks of the other jobs. Besides, a job may be limited to a number of tasks
+ * running at the same time.
+ *
+ * @author Valentin
+ */
+public class FairWorkerPool {
+
+	private static FairWorkerPool commonPool;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition jobsReady = this.lock.newCondition();
+
+	// jobs with tasks waiting, which may run another task
+	private final ArrayDeque<Job> readyJobs = new ArrayDeque<>();
+	private final Thread[] workers;
+	private boolean shutdown;
+
+	/**
+	 * @param threads - the number of worker threads
+	 * @param name    - prefix of the names of the worker threads
+	 */
+	public FairWorkerPool(final int threads, final String name) {
+
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is needed, not " + threads + ".");
+		}
+
+		this.workers = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			this.workers[i] = new Thread(this::work, name + "-" + i);
+			this.workers[i].setDaemon(true);
+			this.workers[i].start();
+		}
+	}
+
+	/**
+	 * @return the pool shared by everyone not providing his/her own, with one
+	 *         thread per processor
+	 */
+	public static synchronized FairWorkerPool getCommonPool() {
+
+		if (commonPool == null) {
+			commonPool = new FairWorkerPool(Runtime.getRuntime().availableProcessors(), "employees-worker");
+		}
+		return commonPool;
+	}
+
+	public int getThreadCount() {
+		return this.workers.length;
+	}
+
+	/**
+	 * @param maxParallelism - the number of tasks of the job running at the same
+	 *                       time at most
+	 * @return a new job, whose tasks are run in turns with the tasks of the other
+	 *         jobs
+	 */
+	public Job newJob(final int maxParallelism) {
+		return new Job(Math.max(maxParallelism, 1));
+	}
+
+	/**
+	 * Stops the workers once all tasks submitted have been run. No more tasks are
+	 * accepted.
+	 */
+	public void shutdown() {
+
+		this.lock.lock();
+		try {
+			this.shutdown = true;
+			this.jobsReady.signalAll();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	private void work() {
+
+		while (true) {
+
+			Job job;
+			FutureTask<?> task;
+
+			this.lock.lock();
+			try {
+				while (this.readyJobs.isEmpty()) {
+					if (this.shutdown) {
+						return;
+					}
+					this.jobsReady.awaitUninterruptibly();
+				}
+
+				job = this.readyJobs.poll();
+				job.ready = false;
+				task = job.tasks.poll();
+				job.running++;
+				job.scheduleIfReady();
+
+			} finally {
+				this.lock.unlock();
+			}
+
+			try {
+				task.run();
+			} finally {
+				this.lock.lock();
+				try {
+					job.running--;
+					job.scheduleIfReady();
+				} finally {
+					this.lock.unlock();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The tasks of a single analysis.
+	 */
+	public class Job {
+
+		private final int maxParallelism;
+		private final ArrayDeque<FutureTask<?>> tasks = new ArrayDeque<>();
+		private int running;
+		private boolean ready;
+
+		private Job(final int maxParallelism) {
+			this.maxParallelism = maxParallelism;
+		}
+
+		/**
+		 * @param task - the task to run
+		 * @return the result of the task, once it has been run
+		 */
+		public <T> Future<T> submit(final Callable<T> task) {
+
+			FutureTask<T> futureTask = new FutureTask<T>(task);
+
+			FairWorkerPool.this.lock.lock();
+			try {
+				if (FairWorkerPool.this.shutdown) {
+					throw new RejectedExecutionException("The worker pool has been shut down.");
+				}
+				this.tasks.add(futureTask);
+				scheduleIfReady();
+			} finally {
+				FairWorkerPool.this.lock.unlock();
+			}
+			return futureTask;
+		}
+
+		/**
+		 * Puts the job at the end of the ready jobs, in case it has tasks waiting
+		 * and may run another one. Called while holding the lock.
+		 */
+		private void scheduleIfReady() {
+
+			boolean canRun = !this.tasks.isEmpty() && this.running < this.maxParallelism;
+			if (canRun && !this.ready) {
+				this.ready = true;
+				FairWorkerPool.this.readyJobs.add(this);
+				FairWorkerPool.this.jobsReady.signal();
+			} else if (!canRun && this.ready) {
+				this.ready = false;
+				FairWorkerPool.this.readyJobs.remove(this);
+			}
+		}
+	}
+}
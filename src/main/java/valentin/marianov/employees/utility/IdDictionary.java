@@ -0,0 +1,129 @@
+package valentin.marianov.employees.utility;
+
+import java.util.Arrays;
+
+/**
+ * Maps ids (e.g. employee or project ids) to dense codes 0..n-1 in the order
+ * they are first seen, so that data about them can be held in plain arrays
+ * indexed by code instead of maps keyed by boxed ids.
+ * <p>
+ * The ids are kept in an open addressing hash table of primitive ints, encoding
+ * does not create any objects. Decoding is a single array access.
+ *
+ * @author Valentin
+ */
+public class IdDictionary {
+
+	private static final int EMPTY = -1;
+
+	// hash table slot -> code, EMPTY for a free slot
+	private int[] slots;
+	// code -> id
+	private int[] ids;
+	private int size;
+
+	public IdDictionary() {
+		this(16);
+	}
+
+	/**
+	 * @param expectedSize - the number of different ids expected
+	 */
+	public IdDictionary(final int expectedSize) {
+		this.slots = new int[tableSizeFor(expectedSize)];
+		Arrays.fill(this.slots, EMPTY);
+		this.ids = new int[Math.max(expectedSize, 4)];
+	}
+
+	/**
+	 * @param id - the id
+	 * @return the code of the id, a new code in case the id has not been seen
+	 *         before
+	 */
+	public int encode(final int id) {
+
+		int mask = this.slots.length - 1;
+		int slot = hash(id) & mask;
+
+		while (this.slots[slot] != EMPTY) {
+			if (this.ids[this.slots[slot]] == id) {
+				return this.slots[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		int code = this.size++;
+		if (code == this.ids.length) {
+			this.ids = Arrays.copyOf(this.ids, code * 2);
+		}
+		this.ids[code] = id;
+		this.slots[slot] = code;
+
+		// keep the table at most half full
+		if (this.size * 2 > this.slots.length) {
+			rehash();
+		}
+		return code;
+	}
+
+	/**
+	 * @param id - the id
+	 * @return the code of the id, -1 in case the id has not been seen before
+	 */
+	public int lookup(final int id) {
+
+		int mask = this.slots.length - 1;
+		int slot = hash(id) & mask;
+
+		while (this.slots[slot] != EMPTY) {
+			if (this.ids[this.slots[slot]] == id) {
+				return this.slots[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return EMPTY;
+	}
+
+	/**
+	 * @param code - a code returned by {@link #encode(int)}
+	 * @return the id of the code
+	 */
+	public int decode(final int code) {
+		return this.ids[code];
+	}
+
+	/**
+	 * @return the number of different ids, i.e. the next code
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	private void rehash() {
+
+		int[] newSlots = new int[this.slots.length * 2];
+		Arrays.fill(newSlots, EMPTY);
+		int mask = newSlots.length - 1;
+
+		for (int code = 0; code < this.size; code++) {
+			int slot = hash(this.ids[code]) & mask;
+			while (newSlots[slot] != EMPTY) {
+				slot = (slot + 1) & mask;
+			}
+			newSlots[slot] = code;
+		}
+		this.slots = newSlots;
+	}
+
+	/**
+	 * Spreads consecutive ids over the table.
+	 */
+	private static int hash(final int id) {
+		int hash = id * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	private static int tableSizeFor(final int expectedSize) {
+		return Math.max(Integer.highestOneBit(Math.max(expectedSize, 8) - 1) << 2, 16);
+	}
+}
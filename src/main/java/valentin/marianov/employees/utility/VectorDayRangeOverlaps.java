@@ -0,0 +1,37 @@
+package valentin.marianov.employees.utility;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Computes the overlaps of {@link DayRangeOverlaps} by the Vector API. The
+ * class must only be loaded, when the module jdk.incubator.vector is available.
+ *
+ * @author Valentin
+ */
+class VectorDayRangeOverlaps {
+
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+	private VectorDayRangeOverlaps() {
+	}
+
+	static void computeOverlaps(final int startDay, final int endDay, final int[] startDays, final int[] endDays,
+			final int from, final int to, final int[] overlaps) {
+
+		int i = from;
+		int upperBound = from + SPECIES.loopBound(to - from);
+
+		// a whole lane of date ranges at once
+		for (; i < upperBound; i += SPECIES.length()) {
+			IntVector starts = IntVector.fromArray(SPECIES, startDays, i);
+			IntVector ends = IntVector.fromArray(SPECIES, endDays, i);
+			ends.min(endDay).sub(starts.max(startDay)).add(1).max(0).intoArray(overlaps, i - from);
+		}
+
+		// the rest not filling a lane
+		for (; i < to; i++) {
+			overlaps[i - from] = Math.max(0, Math.min(endDay, endDays[i]) - Math.max(startDay, startDays[i]) + 1);
+		}
+	}
+}
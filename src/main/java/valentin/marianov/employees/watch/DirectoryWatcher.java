@@ -0,0 +1,443 @@
+package valentin.marianov.employees.watch;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import valentin.marianov.employees.employee.Employee;
+import valentin.marianov.employees.employee.EmployeeProcessing;
+import valentin.marianov.employees.employee.OverlapEngines;
+import valentin.marianov.employees.employee.ProjectAssignments;
+import valentin.marianov.employees.employee.TopPairsCollector;
+
+/**
+ * Watches a directory for new or changed employee files and keeps the pairs
+ * with the most days worked together up to date.
+ * <p>
+ * Every file is processed once, when it has not changed (size and modification
+ * time) for the debounce period, i.e. when it has been written completely. The
+ * employees of every file are kept by project together with the days every pair
+ * has worked together on every project. After a change only the new or changed
+ * file is read again and only the pairs of its projects (the old ones and the
+ * new ones) are found again: their old days are subtracted from the totals of
+ * the pairs and their new days are added. The top pairs are then ranked from the
+ * totals and written to the result file, the projects of a pair in ascending
+ * order.
+ *
+ * @author Valentin
+ */
+public class DirectoryWatcher {
+
+	private static Logger logger = Logger.getLogger("employees-logger");
+
+	private final Path directory;
+	private final Path resultFile;
+	private final int topPairs;
+	private final long debounceMillis;
+
+	// files processed so far together with their projects
+	private final LinkedHashMap<Path, ProcessedFile> processedFiles = new LinkedHashMap<>();
+	// the employees of every project (only with their periods on it) by file
+	private final HashMap<Integer, LinkedHashMap<Path, List<Employee>>> projectEmployees = new HashMap<>();
+	// the days of every pair on every project, by pair key
+	private final HashMap<Integer, HashMap<Long, Integer>> projectPairDays = new HashMap<>();
+	// the total days and common projects of every pair, by pair key
+	private final HashMap<Long, PairTotal> pairTotals = new HashMap<>();
+	// projects of the files changed since the result has been written
+	private final Set<Integer> changedProjects = new HashSet<>();
+	// files changed since they have been processed, not yet complete
+	private final HashMap<Path, PendingFile> pendingFiles = new HashMap<>();
+
+	private volatile boolean running = true;
+	private volatile int filesRead;
+
+	/**
+	 * @param directory      - the directory to watch
+	 * @param resultFile     - the file to write the pairs with the most days to,
+	 *                       may be inside the watched directory
+	 * @param topPairs       - the number of pairs to write
+	 * @param debounceMillis - time a file must not change before it is processed
+	 */
+	public DirectoryWatcher(final Path directory, final Path resultFile, final int topPairs,
+			final long debounceMillis) {
+		// the same form as the files found, so that the result file is recognized
+		this.directory = directory.toAbsolutePath().normalize();
+		this.resultFile = resultFile.toAbsolutePath().normalize();
+		this.topPairs = topPairs;
+		this.debounceMillis = debounceMillis;
+	}
+
+	/**
+	 * Processes all files already in the directory and keeps watching it until
+	 * {@link #stop()} is called.
+	 *
+	 * @throws IOException in case the directory cannot be watched
+	 *
+	 * @author Valentin
+	 */
+	public void run() throws IOException {
+
+		try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+
+			this.directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+			logger.info("Watching " + this.directory + " for employee files.");
+			scheduleAllFiles();
+
+			while (this.running) {
+
+				WatchKey key = watchService.poll(this.debounceMillis, TimeUnit.MILLISECONDS);
+
+				if (key != null) {
+					for (WatchEvent<?> event : key.pollEvents()) {
+						if (event.kind() == OVERFLOW) {
+							scheduleAllFiles();
+						} else {
+							schedule(this.directory.resolve((Path) event.context()));
+						}
+					}
+					key.reset();
+				}
+
+				if (processCompleteFiles()) {
+					writeResult();
+				}
+			}
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Stops watching the directory.
+	 */
+	public void stop() {
+		this.running = false;
+	}
+
+	/**
+	 * @return the number of times a file has been read
+	 */
+	public int getFilesRead() {
+		return this.filesRead;
+	}
+
+	private void scheduleAllFiles() throws IOException {
+
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+			for (Path file : files) {
+				schedule(file);
+			}
+		}
+		// files deleted meanwhile
+		for (Path file : this.processedFiles.keySet()) {
+			schedule(file);
+		}
+	}
+
+	private void schedule(final Path file) {
+
+		Path normalizedFile = file.toAbsolutePath().normalize();
+		String name = normalizedFile.getFileName().toString();
+
+		// skip the result and temporary files
+		if (normalizedFile.equals(this.resultFile) || normalizedFile.equals(getTemporaryResultFile())
+				|| name.startsWith(".")) {
+			return;
+		}
+		this.pendingFiles.computeIfAbsent(normalizedFile, PendingFile::new);
+	}
+
+	/**
+	 * Reads all pending files, which have not changed for the debounce period.
+	 *
+	 * @return true in case the employees of a file have changed
+	 */
+	private boolean processCompleteFiles() {
+
+		boolean changed = false;
+		long now = System.nanoTime();
+
+		for (Iterator<PendingFile> iterator = this.pendingFiles.values().iterator(); iterator.hasNext();) {
+
+			PendingFile pending = iterator.next();
+			BasicFileAttributes attributes = readAttributes(pending.file);
+
+			// the file has been deleted
+			if (attributes == null) {
+				iterator.remove();
+				if (removeFile(pending.file)) {
+					logger.info("Employee file " + pending.file.getFileName() + " has been removed.");
+					changed = true;
+				}
+				continue;
+			}
+
+			if (!attributes.isRegularFile()) {
+				iterator.remove();
+				continue;
+			}
+
+			long modified = attributes.lastModifiedTime().toMillis();
+
+			// still being written
+			if (attributes.size() != pending.size || modified != pending.modified) {
+				pending.size = attributes.size();
+				pending.modified = modified;
+				pending.lastChange = now;
+				continue;
+			}
+
+			if (TimeUnit.NANOSECONDS.toMillis(now - pending.lastChange) < this.debounceMillis) {
+				continue;
+			}
+
+			iterator.remove();
+			ProcessedFile processed = this.processedFiles.get(pending.file);
+
+			// already processed in this state
+			if (processed != null && processed.size == pending.size && processed.modified == pending.modified) {
+				continue;
+			}
+
+			// no pop-up messages without User Interface
+			List<Employee> employees = EmployeeProcessing.processEmployeesAndTheirProjects(pending.file.toFile(), true);
+			this.filesRead++;
+
+			removeFile(pending.file);
+			LinkedHashMap<Integer, List<Employee>> employeesByProject = splitByProject(employees);
+			for (Entry<Integer, List<Employee>> project : employeesByProject.entrySet()) {
+				this.projectEmployees.computeIfAbsent(project.getKey(), projectID -> new LinkedHashMap<>())
+						.put(pending.file, project.getValue());
+				this.changedProjects.add(project.getKey());
+			}
+			this.processedFiles.put(pending.file,
+					new ProcessedFile(pending.size, pending.modified, employeesByProject.keySet()));
+			logger.info("Processed employee file " + pending.file.getFileName() + " with " + employees.size()
+					+ " employees.");
+			changed = true;
+		}
+		return changed;
+	}
+
+	/**
+	 * Removes the employees of a processed file from its projects.
+	 *
+	 * @return true in case the file has been processed before
+	 */
+	private boolean removeFile(final Path file) {
+
+		ProcessedFile processed = this.processedFiles.remove(file);
+		if (processed == null) {
+			return false;
+		}
+
+		for (Integer projectID : processed.projects) {
+			LinkedHashMap<Path, List<Employee>> employeesByFile = this.projectEmployees.get(projectID);
+			employeesByFile.remove(file);
+			if (employeesByFile.isEmpty()) {
+				this.projectEmployees.remove(projectID);
+			}
+			this.changedProjects.add(projectID);
+		}
+		return true;
+	}
+
+	/**
+	 * @return the employees of every project, each one only with its periods on
+	 *         the project
+	 */
+	private static LinkedHashMap<Integer, List<Employee>> splitByProject(final List<Employee> employees) {
+
+		LinkedHashMap<Integer, LinkedHashMap<Integer, Employee>> employeesByProject = new LinkedHashMap<>();
+		for (Employee employee : employees) {
+			for (int i = 0; i < employee.getListSize(); i++) {
+
+				Employee projectEmployee = employeesByProject
+						.computeIfAbsent(employee.getProjectId(i), projectID -> new LinkedHashMap<>())
+						.computeIfAbsent(employee.getEmployeeId(), Employee::new);
+				projectEmployee.addProjectId(employee.getProjectId(i));
+				projectEmployee.addStartDate(employee.getStartDate(i));
+				projectEmployee.addEndDate(employee.getEndDate(i));
+			}
+		}
+
+		LinkedHashMap<Integer, List<Employee>> result = new LinkedHashMap<>();
+		for (Entry<Integer, LinkedHashMap<Integer, Employee>> project : employeesByProject.entrySet()) {
+			result.put(project.getKey(), new ArrayList<Employee>(project.getValue().values()));
+		}
+		return result;
+	}
+
+	/**
+	 * Replaces the days of the pairs on a changed project in the totals: the old
+	 * days are subtracted, the pairs are found again on the employees of all files
+	 * on the project and their days are added.
+	 */
+	private void updateProject(final Integer projectID) {
+
+		HashMap<Long, Integer> oldPairDays = this.projectPairDays.remove(projectID);
+		if (oldPairDays != null) {
+			for (Entry<Long, Integer> pair : oldPairDays.entrySet()) {
+				PairTotal total = this.pairTotals.get(pair.getKey());
+				total.days -= pair.getValue();
+				total.projects.remove(projectID);
+				if (total.projects.isEmpty()) {
+					this.pairTotals.remove(pair.getKey());
+				}
+			}
+		}
+
+		LinkedHashMap<Path, List<Employee>> employeesByFile = this.projectEmployees.get(projectID);
+		if (employeesByFile == null) {
+			return;
+		}
+
+		// an employee may be in several files, the periods are coalesced
+		List<Employee> employees = EmployeeProcessing.mergeEmployees(new ArrayList<>(employeesByFile.values()));
+		ProjectAssignments project = ProjectAssignments.indexByProject(employees).get(projectID);
+
+		HashMap<Long, Integer> pairDays = new HashMap<>();
+		OverlapEngines.forProject(project).findPairs(project, (employee1ID, employee2ID, id, days) -> pairDays
+				.merge(toPairKey(employee1ID, employee2ID), days, Integer::sum));
+		if (pairDays.isEmpty()) {
+			return;
+		}
+		this.projectPairDays.put(projectID, pairDays);
+
+		for (Entry<Long, Integer> pair : pairDays.entrySet()) {
+			PairTotal total = this.pairTotals.computeIfAbsent(pair.getKey(), key -> new PairTotal());
+			total.days += pair.getValue();
+			// keep the projects in ascending order
+			int index = Collections.binarySearch(total.projects, projectID);
+			total.projects.add(-index - 1, projectID);
+		}
+	}
+
+	/**
+	 * Updates the totals of the changed projects, ranks the pairs from the totals
+	 * and replaces the result file.
+	 */
+	private void writeResult() {
+
+		for (Integer projectID : this.changedProjects) {
+			updateProject(projectID);
+		}
+		this.changedProjects.clear();
+
+		TopPairsCollector topPairs = new TopPairsCollector(this.topPairs);
+		for (Entry<Long, PairTotal> pair : this.pairTotals.entrySet()) {
+			long pairKey = pair.getKey();
+			topPairs.collect((int) (pairKey >> 32), (int) pairKey, pair.getValue().projects, pair.getValue().days);
+		}
+
+		List<String> lines = new ArrayList<>();
+		lines.add("EmployeeID1,EmployeeID2,ProjectIDs,DaysWorked");
+		for (String[] pair : topPairs.toList()) {
+			lines.add(pair[0] + "," + pair[1] + "," + pair[2].trim() + "," + pair[3]);
+		}
+
+		try {
+			// replace the result at once, so that readers never see a partial file
+			Path temporaryFile = getTemporaryResultFile();
+			Files.write(temporaryFile, lines);
+			Files.move(temporaryFile, this.resultFile, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			logger.info("Wrote " + (lines.size() - 1) + " pairs to " + this.resultFile + ".");
+
+		} catch (IOException e) {
+			logger.severe("Could not write the result file " + this.resultFile + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * @return the key of a pair, the smaller employee id in the upper half
+	 */
+	private static long toPairKey(final int employee1ID, final int employee2ID) {
+		return ((long) Math.min(employee1ID, employee2ID) << 32)
+				| (Math.max(employee1ID, employee2ID) & 0xFFFFFFFFL);
+	}
+
+	private Path getTemporaryResultFile() {
+		return this.resultFile.resolveSibling("." + this.resultFile.getFileName() + ".tmp");
+	}
+
+	private static BasicFileAttributes readAttributes(final Path file) {
+
+		try {
+			return Files.readAttributes(file, BasicFileAttributes.class);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			logger.warning("Could not read the attributes of " + file + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * A file changed since it has been processed, with its size and modification
+	 * time when last checked.
+	 */
+	private static class PendingFile {
+
+		private final Path file;
+		private long size = -1;
+		private long modified = -1;
+		private long lastChange = System.nanoTime();
+
+		PendingFile(final Path file) {
+			this.file = file;
+		}
+	}
+
+	/**
+	 * A processed file with its size and modification time at that time and the
+	 * projects in it.
+	 */
+	private static class ProcessedFile {
+
+		private final long size;
+		private final long modified;
+		private final Set<Integer> projects;
+
+		ProcessedFile(final long size, final long modified, final Set<Integer> projects) {
+			this.size = size;
+			this.modified = modified;
+			this.projects = projects;
+		}
+	}
+
+	/**
+	 * The total days of a pair and its common projects in ascending order.
+	 */
+	private static class PairTotal {
+
+		private int days;
+		private final List<Integer> projects = new ArrayList<>();
+	}
+
+}
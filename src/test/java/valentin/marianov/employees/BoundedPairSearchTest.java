@@ -0,0 +1,94 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static valentin.marianov.employees.TestData.FILE_NAMES;
+import static valentin.marianov.employees.TestData.readEmployees;
+import static valentin.marianov.employees.TestData.toStrings;
+import static valentin.marianov.employees.TestData.writeRandomEmployees;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import valentin.marianov.employees.employee.BoundedPairSearch;
+import valentin.marianov.employees.employee.Employee;
+import valentin.marianov.employees.employee.EmployeeProcessing;
+
+/**
+ * Test class for the branch and bound search for the pairs with the most days,
+ * i.e. the result has to be the same as computing the days of all pairs.
+ *
+ * @author Valentin
+ */
+public class BoundedPairSearchTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void testSameAsAllPairs() {
+
+		for (String fileName : FILE_NAMES) {
+
+			List<Employee> employees = readEmployees(fileName);
+
+			for (int k : new int[] { 1, 2, 3, Integer.MAX_VALUE }) {
+				assertEquals(toStrings(EmployeeProcessing.findTopWorkingEmployeePairs(employees, k)),
+						toStrings(BoundedPairSearch.findTopWorkingEmployeePairs(employees, k).getTopPairs()),
+						fileName);
+			}
+		}
+	}
+
+	@Test
+	public void testPruning() throws IOException {
+
+		List<Employee> employees = EmployeeProcessing
+				.processEmployeesAndTheirProjects(new File("./test-files/employees-with-multiple-overlaps.txt"), true);
+
+		// project 3 with employees 1, 2, 4 and 5 is visited first, pair 1,2 (1633
+		// days) is found on it and no employee has enough days left afterwards
+		BoundedPairSearch search = BoundedPairSearch.findTopWorkingEmployeePairs(employees, 1);
+		assertEquals(List.of("1,2,1 3 ,1633"), toStrings(search.getTopPairs()));
+		assertEquals(5, search.getEvaluated());
+		assertEquals(1, search.getPruned());
+		assertEquals(0, search.getWithoutCommonDays());
+		assertEquals(3, search.getSkippedProjects());
+
+		// all pairs are needed
+		search = BoundedPairSearch.findTopWorkingEmployeePairs(employees, Integer.MAX_VALUE);
+		assertEquals(8, search.getEvaluated());
+		assertEquals(0, search.getPruned());
+		assertEquals(0, search.getSkippedProjects());
+	}
+
+	@Test
+	public void testRandomEmployees() throws IOException {
+
+		Random random = new Random(7);
+		Path file = this.directory.resolve("employees.txt");
+		writeRandomEmployees(file, random, 2000, 300, 30);
+		List<Employee> employees = EmployeeProcessing.processEmployeesAndTheirProjects(file.toFile(), true);
+
+		for (int k : new int[] { 1, 10, 100 }) {
+			BoundedPairSearch search = BoundedPairSearch.findTopWorkingEmployeePairs(employees, k);
+			assertEquals(toStrings(EmployeeProcessing.findTopWorkingEmployeePairs(employees, k)),
+					toStrings(search.getTopPairs()));
+			assertTrue(search.getPruned() > 0);
+			assertTrue(search.getSkippedProjects() > 0);
+		}
+
+		// the days of far fewer pairs are computed than there are pairs
+		int allPairs = EmployeeProcessing.findTopWorkingEmployeePairs(employees, Integer.MAX_VALUE).size();
+		for (int k : new int[] { 1, 10 }) {
+			long evaluated = BoundedPairSearch.findTopWorkingEmployeePairs(employees, k).getEvaluated();
+			assertTrue(evaluated < allPairs, evaluated + " of " + allPairs + " pairs computed");
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static valentin.marianov.employees.TestData.toStrings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import valentin.marianov.employees.employee.CollaborationGraph;
+import valentin.marianov.employees.employee.CollaborationGraph.Partner;
+import valentin.marianov.employees.employee.EmployeeDataset;
+
+/**
+ * Test class for the graph of employees, who have worked together.
+ *
+ * @author Valentin
+ */
+public class CollaborationGraphTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void testTopPartnersMatchPairs() {
+
+		EmployeeDataset dataset = EmployeeDataset
+				.load(new File("./test-files/employees-with-overlaps-and-different-date-formats.txt"), true);
+		CollaborationGraph graph = dataset.getCollaborationGraph();
+
+		assertEquals(dataset.getEmployeePairs().size(), graph.getEmployeeCount());
+
+		for (Integer employeeID : dataset.getEmployeePairs().keySet()) {
+
+			List<String[]> partners = dataset.findPartners(employeeID);
+			List<Partner> topPartners = graph.findTopPartners(employeeID, Integer.MAX_VALUE);
+
+			assertEquals(partners.size(), graph.getDegree(employeeID));
+			List<String> expected = toStrings(partners, partner -> partner[1] + ":" + partner[3]);
+			List<String> found = toStrings(topPartners,
+					partner -> partner.getPartnerID() + ":" + partner.getDaysWorkedTogether());
+			expected.sort(null);
+			found.sort(null);
+			assertEquals(expected, found);
+
+			// the strongest partners first, on equal days the smaller id
+			for (int i = 1; i < topPartners.size(); i++) {
+				Partner previous = topPartners.get(i - 1);
+				Partner current = topPartners.get(i);
+				assertTrue(previous.getDaysWorkedTogether() > current.getDaysWorkedTogether()
+						|| previous.getDaysWorkedTogether() == current.getDaysWorkedTogether()
+								&& previous.getPartnerID() < current.getPartnerID());
+			}
+		}
+	}
+
+	@Test
+	public void testPartnersWithEqualDaysSortedByID() throws IOException {
+
+		Path file = this.directory.resolve("equal-days.txt");
+		Files.write(file, List.of("EmpId, ProjectId, DateFrom, DateTo", "1, 1, 2020-01-01, 2020-01-31",
+				"20, 1, 2020-01-01, 2020-01-31", "3, 1, 2020-01-01, 2020-01-31", "5, 1, 2020-01-01, 2020-01-31"));
+
+		CollaborationGraph graph = EmployeeDataset.load(file.toFile(), true).getCollaborationGraph();
+
+		assertEquals(List.of("3:31", "5:31", "20:31"), toStrings(graph.findTopPartners(1, Integer.MAX_VALUE),
+				partner -> partner.getPartnerID() + ":" + partner.getDaysWorkedTogether()));
+	}
+
+	@Test
+	public void testStrongestCollaboratorsAndDegrees() {
+
+		CollaborationGraph graph = EmployeeDataset
+				.load(new File("./test-files/employees-with-multiple-overlaps.txt"), true).getCollaborationGraph();
+
+		List<Partner> strongest = graph.findStrongestCollaborators();
+		assertEquals(graph.getEmployeeCount(), strongest.size());
+		for (Partner partner : strongest) {
+			assertEquals(partner.getPartnerID(), graph.findTopPartners(partner.getEmployeeID(), 1).get(0).getPartnerID());
+		}
+
+		Partner third = graph.findTopPartners(3, 1).get(0);
+		assertEquals(1, third.getPartnerID());
+		assertEquals(368, third.getDaysWorkedTogether());
+		assertEquals(2, third.getCommonProjects());
+
+		int[] distribution = graph.getDegreeDistribution();
+		int employees = 0;
+		for (int count : distribution) {
+			employees += count;
+		}
+		assertEquals(graph.getEmployeeCount(), employees);
+		assertEquals(0, graph.getDegree(999));
+	}
+}
@@ -0,0 +1,161 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static valentin.marianov.employees.TestData.randomRow;
+import static valentin.marianov.employees.TestData.toStrings;
+import static valentin.marianov.employees.TestData.writeRandomEmployees;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import valentin.marianov.employees.employee.DatasetDiff;
+import valentin.marianov.employees.employee.Employee;
+import valentin.marianov.employees.employee.EmployeeProcessing;
+import valentin.marianov.employees.employee.PairChange;
+
+/**
+ * Test class for comparing two versions of the data, i.e. the pairs changed
+ * have to be the same as when finding all pairs of both versions again.
+ *
+ * @author Valentin
+ */
+public class DatasetDiffTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void testChangedRows() throws IOException {
+
+		List<String> lines = new ArrayList<>(
+				Files.readAllLines(Path.of("./test-files/employees-with-multiple-overlaps.txt")));
+		// employee 3 leaves project 1, employee 5 starts later on project 4 and
+		// employee 6 joins project 2
+		lines.remove("3, 1, 01/01/2012, 06/02/2012");
+		lines.set(lines.indexOf("5, 4, 01/04/2017, 2017-09-09"), "5, 4, 01/06/2017, 2017-09-09");
+		lines.add("6, 2, 01/01/2016, 12/31/2016");
+
+		List<Employee> oldEmployees = EmployeeProcessing
+				.processEmployeesAndTheirProjects(new File("./test-files/employees-with-multiple-overlaps.txt"), true);
+		List<Employee> newEmployees = read(lines, "new.txt");
+
+		DatasetDiff diff = DatasetDiff.compare(oldEmployees, newEmployees, null);
+
+		assertEquals(List.of("3,6,0,366", "1,6,0,336"), toStrings(diff.getAddedPairs(), PairChange::toString));
+		assertEquals(List.of("2,3,2,0"), toStrings(diff.getRemovedPairs(), PairChange::toString));
+		assertEquals(List.of("4,5,879,877", "1,3,368,367"), toStrings(diff.getChangedPairs(), PairChange::toString));
+		// a changed row is removed from the old and added to the new version
+		assertEquals(4, diff.getChangedRows());
+		assertEquals(3, diff.getAffectedProjects());
+
+		// the longest pair has not been touched
+		assertEquals("1,2,1633,1633", diff.getOldLongestPair().toString());
+		assertEquals("1,2,1633,1633", diff.getNewLongestPair().toString());
+		assertFalse(diff.isLongestPairChanged());
+
+		// the same data in both versions
+		DatasetDiff noDiff = DatasetDiff.compare(oldEmployees, oldEmployees, new int[] { 1, 2, 1633 });
+		assertEquals(0, noDiff.getChanges().size());
+		assertEquals(0, noDiff.getAffectedProjects());
+		assertFalse(noDiff.isLongestPairChanged());
+	}
+
+	@Test
+	public void testLongestPairLosesDays() throws IOException {
+
+		List<String> lines = new ArrayList<>(
+				Files.readAllLines(Path.of("./test-files/employees-with-multiple-overlaps.txt")));
+		// employees 1 and 2 are no longer working together on project 1
+		lines.remove("1, 1, 06/02/2012, 10/30/2014");
+
+		DatasetDiff diff = DatasetDiff.compare(
+				EmployeeProcessing.processEmployeesAndTheirProjects(
+						new File("./test-files/employees-with-multiple-overlaps.txt"), true),
+				read(lines, "new.txt"), new int[] { 2, 1, 1633 });
+
+		assertEquals("1,2,1633,752", diff.getOldLongestPair().toString());
+		assertEquals("2,4,969,969", diff.getNewLongestPair().toString());
+		assertTrue(diff.isLongestPairChanged());
+	}
+
+	@Test
+	public void testRandomChanges() throws IOException {
+
+		Random random = new Random(42);
+		Path oldFile = this.directory.resolve("old.txt");
+		writeRandomEmployees(oldFile, random, 300, 40, 15);
+		List<String> oldLines = Files.readAllLines(oldFile);
+
+		for (int run = 0; run < 10; run++) {
+
+			List<String> newLines = new ArrayList<>(oldLines);
+			for (int i = 0; i < 5; i++) {
+				int row = 1 + random.nextInt(newLines.size() - 1);
+				switch (random.nextInt(3)) {
+				case 0:
+					newLines.remove(row);
+					break;
+				case 1:
+					newLines.set(row, randomRow(random, 40, 15));
+					break;
+				default:
+					newLines.add(randomRow(random, 40, 15));
+				}
+			}
+
+			List<Employee> oldEmployees = read(oldLines, "old-" + run + ".txt");
+			List<Employee> newEmployees = read(newLines, "new-" + run + ".txt");
+			HashMap<String, Integer> oldTotals = findAllPairTotals(oldEmployees);
+			HashMap<String, Integer> newTotals = findAllPairTotals(newEmployees);
+
+			TreeSet<String> expected = new TreeSet<>();
+			TreeSet<String> pairs = new TreeSet<>(oldTotals.keySet());
+			pairs.addAll(newTotals.keySet());
+			for (String pair : pairs) {
+				int oldDays = oldTotals.getOrDefault(pair, 0);
+				int newDays = newTotals.getOrDefault(pair, 0);
+				if (oldDays != newDays) {
+					expected.add(pair + "," + oldDays + "," + newDays);
+				}
+			}
+
+			DatasetDiff diff = DatasetDiff.compare(oldEmployees, newEmployees, null);
+			assertEquals(expected, new TreeSet<>(toStrings(diff.getChanges(), PairChange::toString)));
+
+			String[] longest = EmployeeProcessing.findTopWorkingEmployeePairs(newEmployees, 1).get(0);
+			assertEquals(longest[0] + "," + longest[1] + "," + longest[3],
+					diff.getNewLongestPair().getEmployee1ID() + "," + diff.getNewLongestPair().getEmployee2ID() + ","
+							+ diff.getNewLongestPair().getNewDays());
+
+			oldLines = newLines;
+		}
+	}
+
+	private List<Employee> read(List<String> lines, String fileName) throws IOException {
+
+		Path file = this.directory.resolve(fileName);
+		Files.write(file, lines);
+		return EmployeeProcessing.processEmployeesAndTheirProjects(file.toFile(), true);
+	}
+
+	private static HashMap<String, Integer> findAllPairTotals(List<Employee> employees) {
+
+		HashMap<String, Integer> totals = new HashMap<>();
+		for (String[] pair : EmployeeProcessing.findTopWorkingEmployeePairs(employees, Integer.MAX_VALUE)) {
+			totals.put(pair[0] + "," + pair[1], Integer.parseInt(pair[3]));
+		}
+		return totals;
+	}
+}
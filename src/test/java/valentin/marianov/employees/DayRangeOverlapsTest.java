@@ -0,0 +1,114 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import valentin.marianov.employees.utility.DateUtility;
+import valentin.marianov.employees.utility.DayRangeOverlaps;
+
+/**
+ * Test class for computing the overlaps of many date ranges at once, i.e. both
+ * the vectorized and the scalar computation have to result in the same days as
+ * {@link DateUtility#computeOverlapOfDateRages}.
+ *
+ * @author Valentin
+ */
+public class DayRangeOverlapsTest {
+
+	private static final LocalDate FIRST_DAY = LocalDate.of(2016, 1, 1);
+
+	@Test
+	public void testScalarMatchesDateUtility() {
+		assertMatchesDateUtility(false);
+	}
+
+	@Test
+	public void testVectorizedMatchesDateUtility() {
+
+		// surefire adds the module, run elsewhere the test is skipped
+		assumeTrue(DayRangeOverlaps.isVectorAvailable());
+		assertMatchesDateUtility(true);
+	}
+
+	@Test
+	public void testVectorizedMatchesScalar() {
+
+		assumeTrue(DayRangeOverlaps.isVectorAvailable());
+		Random random = new Random(17);
+
+		// every length from an empty range up to several lanes and a rest
+		for (int length = 0; length < 70; length++) {
+
+			int[] startDays = new int[length + 3];
+			int[] endDays = new int[length + 3];
+			for (int i = 0; i < startDays.length; i++) {
+				startDays[i] = 17000 + random.nextInt(1000);
+				endDays[i] = startDays[i] + random.nextInt(500);
+			}
+
+			int startDay = 17000 + random.nextInt(1000);
+			int endDay = startDay + random.nextInt(500);
+			int[] scalar = new int[length];
+			int[] vectorized = new int[length];
+
+			DayRangeOverlaps.computeOverlapsScalar(startDay, endDay, startDays, endDays, 2, 2 + length, scalar);
+			DayRangeOverlaps.computeOverlapsVectorized(startDay, endDay, startDays, endDays, 2, 2 + length,
+					vectorized);
+
+			assertArrayEquals(scalar, vectorized, "length " + length);
+		}
+	}
+
+	private void assertMatchesDateUtility(final boolean vectorized) {
+
+		Random random = new Random(vectorized ? 19 : 23);
+
+		for (int round = 0; round < 40; round++) {
+
+			// daylight saving time changes within the ranges on purpose
+			int count = 1 + random.nextInt(40);
+			Date[] startDates = new Date[count];
+			Date[] endDates = new Date[count];
+			int[] startDays = new int[count];
+			int[] endDays = new int[count];
+
+			for (int i = 0; i < count; i++) {
+				LocalDate start = FIRST_DAY.plusDays(random.nextInt(1500));
+				startDates[i] = toDate(start);
+				endDates[i] = toDate(start.plusDays(random.nextInt(400)));
+				startDays[i] = DateUtility.toEpochDay(startDates[i]);
+				endDays[i] = DateUtility.toEpochDay(endDates[i]);
+			}
+
+			LocalDate start = FIRST_DAY.plusDays(random.nextInt(1500));
+			Date startDate = toDate(start);
+			Date endDate = toDate(start.plusDays(random.nextInt(400)));
+
+			int[] overlaps = new int[count];
+			if (vectorized) {
+				DayRangeOverlaps.computeOverlapsVectorized(DateUtility.toEpochDay(startDate),
+						DateUtility.toEpochDay(endDate), startDays, endDays, 0, count, overlaps);
+			} else {
+				DayRangeOverlaps.computeOverlapsScalar(DateUtility.toEpochDay(startDate),
+						DateUtility.toEpochDay(endDate), startDays, endDays, 0, count, overlaps);
+			}
+
+			for (int i = 0; i < count; i++) {
+				assertEquals(DateUtility.computeOverlapOfDateRages(startDate, endDate, startDates[i], endDates[i]),
+						overlaps[i], startDate + " - " + endDate + " and " + startDates[i] + " - " + endDates[i]);
+			}
+		}
+	}
+
+	private Date toDate(LocalDate date) {
+		return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+	}
+}
@@ -0,0 +1,121 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static valentin.marianov.employees.TestData.FILE_NAMES;
+import static valentin.marianov.employees.TestData.readEmployees;
+import static valentin.marianov.employees.TestData.toStrings;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import valentin.marianov.employees.employee.DensePairTotals;
+import valentin.marianov.employees.employee.Employee;
+import valentin.marianov.employees.employee.EmployeeDataset;
+import valentin.marianov.employees.employee.EmployeeProcessing;
+import valentin.marianov.employees.utility.IdDictionary;
+
+/**
+ * Test class for finding the pairs on dense codes instead of ids, i.e. the
+ * result has to be exactly the same as the one found on the ids.
+ *
+ * @author Valentin
+ */
+public class DenseEncodingTest {
+
+	@Test
+	public void testIdDictionary() {
+
+		IdDictionary dictionary = new IdDictionary();
+		Random random = new Random(5);
+		int[] ids = random.ints(10_000, -1_000_000, 1_000_000).distinct().toArray();
+
+		for (int i = 0; i < ids.length; i++) {
+			assertEquals(i, dictionary.encode(ids[i]));
+		}
+		for (int i = 0; i < ids.length; i++) {
+			assertEquals(i, dictionary.encode(ids[i]));
+			assertEquals(i, dictionary.lookup(ids[i]));
+			assertEquals(ids[i], dictionary.decode(i));
+		}
+		assertEquals(ids.length, dictionary.size());
+		assertEquals(-1, dictionary.lookup(2_000_000));
+	}
+
+	@Test
+	public void testMatrixMatchesHashTable() {
+
+		Random random = new Random(9);
+		DensePairTotals matrix = new DensePairTotals(300);
+		DensePairTotals hashTable = new DensePairTotals(300, 0);
+
+		for (int i = 0; i < 20_000; i++) {
+			int first = random.nextInt(300);
+			int second = random.nextInt(300);
+			if (first != second) {
+				int days = 1 + random.nextInt(100);
+				matrix.collect(first, second, 0, days);
+				hashTable.collect(second, first, 0, days);
+			}
+		}
+
+		assertTrue(matrix.isMatrix());
+		assertFalse(hashTable.isMatrix());
+
+		List<String> matrixPairs = new ArrayList<>();
+		List<String> hashTablePairs = new ArrayList<>();
+		matrix.forEach((first, second, days) -> matrixPairs.add(first + "," + second + "," + days));
+		hashTable.forEach((first, second, days) -> hashTablePairs.add(first + "," + second + "," + days));
+		matrixPairs.sort(null);
+		hashTablePairs.sort(null);
+
+		assertEquals(matrixPairs, hashTablePairs);
+		assertEquals(matrix.get(17, 42), hashTable.get(42, 17));
+	}
+
+	@Test
+	public void testTopPairsOfTestFiles() {
+
+		for (String fileName : FILE_NAMES) {
+
+			List<Employee> employees = readEmployees(fileName);
+
+			assertEquals(toStrings(new EmployeeDataset(employees).findTopWorkingEmployeePairs(Integer.MAX_VALUE)),
+					toStrings(EmployeeProcessing.findTopWorkingEmployeePairs(employees, Integer.MAX_VALUE)),
+					fileName);
+		}
+	}
+
+	@Test
+	public void testTopPairsOfRandomEmployees() {
+
+		Random random = new Random(13);
+		List<Employee> employees = new ArrayList<>();
+
+		for (int i = 0; i < 300; i++) {
+			Employee employee = new Employee(random.nextInt(100_000));
+			for (int j = 0; j < 1 + random.nextInt(6); j++) {
+				LocalDate start = LocalDate.of(2015, 1, 1).plusDays(random.nextInt(2000));
+				employee.addProjectId(1000 + random.nextInt(25));
+				employee.addStartDate(toDate(start));
+				employee.addEndDate(toDate(start.plusDays(random.nextInt(500))));
+			}
+			employees.add(employee);
+		}
+		List<Employee> uniqueEmployees = EmployeeProcessing.mergeEmployees(List.of(employees));
+
+		assertEquals(toStrings(new EmployeeDataset(uniqueEmployees).findTopWorkingEmployeePairs(50)),
+				toStrings(EmployeeProcessing.findTopWorkingEmployeePairs(uniqueEmployees, 50)));
+	}
+
+	private Date toDate(LocalDate date) {
+		return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+	}
+}
@@ -0,0 +1,143 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import valentin.marianov.employees.watch.DirectoryWatcher;
+
+/**
+ * Test class for keeping the pairs of all files in a watched directory up to
+ * date.
+ *
+ * @author Valentin
+ */
+public class DirectoryWatcherTest {
+
+	private static final String HEADER = "EmpId, ProjectId, DateFrom, DateTo";
+
+	@TempDir
+	Path tempDirectory;
+
+	private Path directory;
+	private Path resultFile;
+	private DirectoryWatcher watcher;
+	private Thread watcherThread;
+
+	@BeforeEach
+	public void startWatcher() throws IOException {
+
+		this.directory = Files.createDirectory(this.tempDirectory.resolve("employees"));
+		this.resultFile = this.tempDirectory.resolve("top-pairs.csv");
+
+		Files.write(this.directory.resolve("first.txt"),
+				Arrays.asList(HEADER, "1, 1, 2020-01-01, 2020-01-10", "2, 1, 2020-01-01, 2020-01-10"));
+
+		start();
+	}
+
+	private void start() {
+
+		this.watcher = new DirectoryWatcher(this.directory, this.resultFile, 10, 100);
+		this.watcherThread = new Thread(() -> {
+			try {
+				this.watcher.run();
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		this.watcherThread.start();
+	}
+
+	@AfterEach
+	public void stopWatcher() throws InterruptedException {
+		this.watcher.stop();
+		this.watcherThread.join();
+	}
+
+	@Test
+	public void testNewFileUpdatesResult() throws Exception {
+
+		assertEquals(Arrays.asList("EmployeeID1,EmployeeID2,ProjectIDs,DaysWorked", "1,2,1,10"), awaitResult(2));
+
+		Files.write(this.directory.resolve("second.txt"),
+				Arrays.asList(HEADER, "1, 2, 2020-02-01, 2020-02-20", "3, 2, 2020-02-01, 2020-02-20"));
+
+		assertEquals(Arrays.asList("EmployeeID1,EmployeeID2,ProjectIDs,DaysWorked", "1,3,2,20", "1,2,1,10"),
+				awaitResult(3));
+		// the first file is not read again
+		assertEquals(2, this.watcher.getFilesRead());
+	}
+
+	@Test
+	public void testRemovedFileUpdatesResult() throws Exception {
+
+		Files.write(this.directory.resolve("second.txt"),
+				Arrays.asList(HEADER, "1, 2, 2020-02-01, 2020-02-20", "3, 2, 2020-02-01, 2020-02-20"));
+		awaitResult(3);
+
+		Files.delete(this.directory.resolve("second.txt"));
+
+		assertEquals(Arrays.asList("EmployeeID1,EmployeeID2,ProjectIDs,DaysWorked", "1,2,1,10"), awaitResult(2));
+	}
+
+	@Test
+	public void testChangedFileReplacesItsDays() throws Exception {
+
+		// the second file adds employees to the project of the first file
+		Files.write(this.directory.resolve("second.txt"),
+				Arrays.asList(HEADER, "3, 1, 2020-01-05, 2020-01-10", "4, 1, 2020-01-05, 2020-01-10"));
+		assertEquals(Arrays.asList("EmployeeID1,EmployeeID2,ProjectIDs,DaysWorked", "1,2,1,10", "1,3,1,6", "1,4,1,6",
+				"2,3,1,6", "2,4,1,6", "3,4,1,6"), awaitResult(7));
+
+		Files.write(this.directory.resolve("second.txt"), Arrays.asList(HEADER, "3, 1, 2020-01-01, 2020-01-03"));
+
+		assertEquals(Arrays.asList("EmployeeID1,EmployeeID2,ProjectIDs,DaysWorked", "1,2,1,10", "1,3,1,3", "2,3,1,3"),
+				awaitResult(4));
+		assertEquals(3, this.watcher.getFilesRead());
+	}
+
+	@Test
+	public void testResultFileInWatchedDirectory() throws Exception {
+
+		stopWatcher();
+
+		// the result file given relative to the working directory, the files found
+		// are absolute
+		this.resultFile = Path.of("").toAbsolutePath().relativize(this.directory.resolve("top-pairs.csv"));
+		start();
+
+		assertEquals(Arrays.asList("EmployeeID1,EmployeeID2,ProjectIDs,DaysWorked", "1,2,1,10"), awaitResult(2));
+		Thread.sleep(1000);
+
+		// the result file is not read as employee file
+		assertEquals(1, this.watcher.getFilesRead());
+	}
+
+	/**
+	 * Waits until the result file holds the given number of lines.
+	 */
+	private List<String> awaitResult(int lines) throws Exception {
+
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (System.currentTimeMillis() < deadline) {
+			if (Files.exists(this.resultFile)) {
+				List<String> result = Files.readAllLines(this.resultFile);
+				if (result.size() == lines) {
+					return result;
+				}
+			}
+			Thread.sleep(50);
+		}
+		return Files.exists(this.resultFile) ? Files.readAllLines(this.resultFile) : null;
+	}
+}
@@ -0,0 +1,68 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static valentin.marianov.employees.TestData.FILE_NAMES;
+import static valentin.marianov.employees.TestData.readEmployees;
+import static valentin.marianov.employees.TestData.toStrings;
+
+import java.io.File;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import valentin.marianov.employees.employee.Employee;
+import valentin.marianov.employees.employee.EmployeeDataset;
+import valentin.marianov.employees.employee.EmployeeIndex;
+import valentin.marianov.employees.employee.EmployeeProcessing;
+import valentin.marianov.employees.utility.DateUtility;
+
+/**
+ * Test class for finding the pairs again on the kept index for other filters,
+ * i.e. the result has to be the same as processing the file again.
+ *
+ * @author Valentin
+ */
+public class EmployeeIndexTest {
+
+	@Test
+	public void testWithoutFilters() {
+
+		for (String fileName : FILE_NAMES) {
+
+			List<Employee> employees = readEmployees(fileName);
+			EmployeeIndex index = EmployeeIndex.build(employees);
+
+			for (int k : new int[] { 1, 3, Integer.MAX_VALUE }) {
+				assertEquals(toStrings(EmployeeProcessing.findTopWorkingEmployeePairs(employees, k)),
+						toStrings(index.findTopWorkingEmployeePairs(null, null, null, k)), fileName);
+			}
+		}
+	}
+
+	@Test
+	public void testPeriodAndProjects() {
+
+		EmployeeDataset dataset = EmployeeDataset
+				.load(new File("./test-files/employees-with-multiple-overlaps.txt"), true);
+		EmployeeIndex index = EmployeeIndex.build(dataset.getEmployees());
+
+		Date from = DateUtility.convertStringToDate("2012-06-01");
+		Date to = DateUtility.convertStringToDate("2012-06-07");
+
+		assertEquals(toStrings(dataset.findPairsOnProject(1, from, to)),
+				toStrings(index.findTopWorkingEmployeePairs(from, to, Set.of(1), Integer.MAX_VALUE)));
+
+		// projects 2 and 4 only: employees 1 and 3 on project 2, 4 and 5 on project 4
+		assertEquals(List.of("1,3,2 ,367", "4,5,4 ,2"),
+				toStrings(index.findTopWorkingEmployeePairs(null, null, Set.of(2, 4), 10)));
+		assertEquals(0, index.findTopWorkingEmployeePairs(null, null, Set.of(99), 10).size());
+
+		assertEquals(5, index.getEmployeeCount());
+		assertEquals(4, index.getProjectCount());
+		assertEquals(11, index.getAssignmentCount());
+		assertTrue(index.getEstimatedSizeInBytes() > 0);
+	}
+}
@@ -0,0 +1,123 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import valentin.marianov.employees.employee.EmployeeProcessing;
+import valentin.marianov.employees.employee.ExternalPairAggregator;
+
+/**
+ * Test class for the aggregation of employee pairs within a memory budget, i.e.
+ * when the pairs are written to temporary files and merged afterwards.
+ *
+ * @author Valentin
+ */
+public class ExternalPairAggregationTest {
+
+	/** 64 records per run */
+	private static final long RUN_BUDGET = 64 * 16;
+
+	@TempDir
+	Path tempDirectory;
+
+	@Test
+	public void testSpilledRunsMatchInMemoryTotals() throws IOException {
+
+		Random random = new Random(42);
+		HashMap<String, Integer> expectedTotals = new HashMap<>();
+		HashMap<String, Integer> actualTotals = new HashMap<>();
+
+		try (ExternalPairAggregator aggregator = new ExternalPairAggregator(RUN_BUDGET, this.tempDirectory)) {
+
+			for (int i = 0; i < 2000; i++) {
+				int empl1 = random.nextInt(40);
+				int empl2 = random.nextInt(40);
+				int days = 1 + random.nextInt(100);
+
+				aggregator.collect(empl1, empl2, random.nextInt(10), days);
+				expectedTotals.merge(Math.min(empl1, empl2) + "-" + Math.max(empl1, empl2), days, Integer::sum);
+			}
+
+			assertTrue(aggregator.getSpilledRunCount() > 1);
+
+			aggregator.merge((empl1, empl2, projects, days) -> {
+				assertTrue(empl1 <= empl2);
+				assertEquals(null, actualTotals.put(empl1 + "-" + empl2, days));
+			});
+		}
+
+		assertEquals(expectedTotals, actualTotals);
+		assertEquals(0, countTemporaryFiles());
+	}
+
+	@Test
+	public void testTemporaryFilesDeletedOnFailure() throws IOException {
+
+		try (ExternalPairAggregator aggregator = new ExternalPairAggregator(RUN_BUDGET, this.tempDirectory)) {
+
+			for (int i = 0; i < 500; i++) {
+				aggregator.collect(i % 7, i % 11, i % 3, 1);
+			}
+
+			assertThrows(IllegalStateException.class, () -> aggregator.merge((empl1, empl2, projects, days) -> {
+				throw new IllegalStateException();
+			}));
+		}
+
+		assertEquals(0, countTemporaryFiles());
+	}
+
+	@Test
+	public void testBudgetSmallerThanRecord() throws IOException {
+
+		try (ExternalPairAggregator aggregator = new ExternalPairAggregator(1, this.tempDirectory)) {
+
+			for (int i = 0; i < 3; i++) {
+				aggregator.collect(1, 2, i, 10);
+			}
+
+			// one record in memory, the others in a run each
+			assertEquals(2, aggregator.getSpilledRunCount());
+			aggregator.merge((empl1, empl2, projects, days) -> assertEquals(30, days));
+		}
+
+		assertEquals(0, countTemporaryFiles());
+	}
+
+	@Test
+	public void testLongestPairWithMemoryBudget() {
+
+		assertArrayEquals(new String[] { "1", "2", "1 3 ", "1633" }, EmployeeProcessing
+				.findLongestWorkingEmployeePair(getFile("employees-with-multiple-overlaps.txt"), 1, true));
+
+		assertArrayEquals(new String[] { "18", "19", "55 69 ", "14" }, EmployeeProcessing
+				.findLongestWorkingEmployeePair(getFile("employees-with-overlap.txt"), 1, true));
+
+		assertArrayEquals(new String[] { null, null, null, "0" },
+				EmployeeProcessing.findLongestWorkingEmployeePair(getFile("no-overlap.txt"), 1, true));
+	}
+
+	private long countTemporaryFiles() throws IOException {
+
+		try (Stream<Path> files = Files.list(this.tempDirectory)) {
+			return files.count();
+		}
+	}
+
+	private File getFile(String fileName) {
+		return new File("./test-files/" + fileName);
+	}
+}
@@ -0,0 +1,113 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import valentin.marianov.employees.employee.EmployeeDataset;
+import valentin.marianov.employees.employee.HeadcountTimeline;
+import valentin.marianov.employees.employee.ProjectAssignments;
+
+/**
+ * Test class for the number of employees working at the same time, i.e. the
+ * difference arrays have to count the same employees as looking at every day.
+ *
+ * @author Valentin
+ */
+public class HeadcountTimelineTest {
+
+	@Test
+	public void testProjectOfTestFile() {
+
+		EmployeeDataset dataset = EmployeeDataset
+				.load(new File("./test-files/employees-with-multiple-overlaps.txt"), true);
+		HeadcountTimeline timeline = dataset.getHeadcountTimeline(1);
+
+		// employees 1, 2 and 3 only on the last day of employee 3
+		assertEquals(3, timeline.getPeakHeadcount());
+		assertEquals(1, timeline.getPeakPeriods().size());
+		assertArrayEquals(new int[] { day(2012, 6, 2), day(2012, 6, 2) }, timeline.getPeakPeriods().get(0));
+		assertEquals(day(2012, 1, 1), timeline.getFirstDay());
+		assertEquals(day(2016, 12, 25), timeline.getLastDay());
+		assertEquals(2, timeline.getHeadcount(day(2012, 6, 1)));
+		assertEquals(0, timeline.getHeadcount(day(2011, 12, 31)));
+		assertEquals(1821, timeline.getStaffedDays());
+		assertEquals(2704.0 / 1821, timeline.getAverageHeadcount(), 1e-9);
+	}
+
+	@Test
+	public void testMatchesCountingEveryDay() {
+
+		Random random = new Random(29);
+		List<ProjectAssignments> projects = new ArrayList<>();
+
+		for (int projectID = 0; projectID < 30; projectID++) {
+
+			// periods of an employee on the same project do not overlap
+			ProjectAssignments project = new ProjectAssignments(projectID);
+			for (int employeeID = 0; employeeID < 1 + random.nextInt(20); employeeID++) {
+				int day = 17000 + random.nextInt(200);
+				for (int i = 0; i < 1 + random.nextInt(4); i++) {
+					int endDay = day + random.nextInt(60);
+					project.add(employeeID, day, endDay);
+					day = endDay + 1 + random.nextInt(30);
+				}
+			}
+			projects.add(project);
+
+			HeadcountTimeline timeline = HeadcountTimeline.ofProject(project);
+			int peak = 0;
+			for (int day = 16990; day < 17600; day++) {
+				int headcount = 0;
+				for (int i = 0; i < project.size(); i++) {
+					headcount += project.getStartDay(i) <= day && day <= project.getEndDay(i) ? 1 : 0;
+				}
+				assertEquals(headcount, timeline.getHeadcount(day), "project " + projectID + ", day " + day);
+				peak = Math.max(peak, headcount);
+			}
+			assertEquals(peak, timeline.getPeakHeadcount());
+			for (int[] period : timeline.getPeakPeriods()) {
+				assertEquals(peak, timeline.getHeadcount(period[0]));
+				assertEquals(peak, timeline.getHeadcount(period[1]));
+			}
+		}
+
+		// the same employee ids on different projects are the same employees
+		HeadcountTimeline company = HeadcountTimeline.ofCompany(projects);
+		for (int day = 16990; day < 17600; day++) {
+			HashSet<Integer> working = new HashSet<>();
+			for (ProjectAssignments project : projects) {
+				for (int i = 0; i < project.size(); i++) {
+					if (project.getStartDay(i) <= day && day <= project.getEndDay(i)) {
+						working.add(project.getEmployeeID(i));
+					}
+				}
+			}
+			assertEquals(working.size(), company.getHeadcount(day), "day " + day);
+		}
+		assertTrue(company.getPeakHeadcount() <= 20);
+	}
+
+	@Test
+	public void testEmptyProject() {
+
+		HeadcountTimeline timeline = HeadcountTimeline.ofProject(new ProjectAssignments(1));
+
+		assertEquals(0, timeline.getPeakHeadcount());
+		assertEquals(0, timeline.getPeakPeriods().size());
+		assertEquals(0, timeline.getAverageHeadcount());
+	}
+
+	private int day(int year, int month, int dayOfMonth) {
+		return (int) LocalDate.of(year, month, dayOfMonth).toEpochDay();
+	}
+}
@@ -0,0 +1,148 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static valentin.marianov.employees.TestData.writeRandomEmployees;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import valentin.marianov.employees.employee.Employee;
+import valentin.marianov.employees.employee.EmployeeProcessing;
+import valentin.marianov.employees.employee.HeavyPair;
+import valentin.marianov.employees.employee.SpaceSavingPairs;
+
+/**
+ * Test class for the approximate search for the pairs with the most days.
+ *
+ * @author Valentin
+ */
+public class HeavyPairsTest {
+
+	@TempDir
+	Path tempDirectory;
+
+	@Test
+	public void testEnoughCapacityIsExact() {
+
+		List<Employee> employees = EmployeeProcessing.processEmployeesAndTheirProjects(
+				new File("./test-files/employees-with-overlaps-and-different-date-formats.txt"), true);
+
+		List<String[]> exactPairs = EmployeeProcessing.findTopWorkingEmployeePairs(employees, 5);
+		List<HeavyPair> heavyPairs = EmployeeProcessing.findHeavyPairs(employees, 1000, 5, false);
+
+		assertEquals(exactPairs.size(), heavyPairs.size());
+		for (int i = 0; i < exactPairs.size(); i++) {
+			assertEquals(exactPairs.get(i)[0] + "," + exactPairs.get(i)[1] + "," + exactPairs.get(i)[3],
+					heavyPairs.get(i).getEmployee1ID() + "," + heavyPairs.get(i).getEmployee2ID() + ","
+							+ heavyPairs.get(i).getEstimatedDays());
+			assertEquals(0, heavyPairs.get(i).getMaximumError());
+		}
+	}
+
+	@Test
+	public void testErrorBounds() {
+
+		Random random = new Random(21);
+		int capacity = 50;
+		SpaceSavingPairs sketch = new SpaceSavingPairs(capacity);
+		HashMap<Long, Long> exactDays = new HashMap<>();
+
+		for (int i = 0; i < 100_000; i++) {
+
+			// a few pairs working together a lot, many pairs only now and then
+			int employee1 = random.nextInt(10) < 3 ? random.nextInt(5) : random.nextInt(1000);
+			int employee2 = employee1 < 5 && random.nextBoolean() ? employee1 + 5 : random.nextInt(1000);
+			if (employee1 == employee2) {
+				continue;
+			}
+			int days = 1 + random.nextInt(30);
+
+			sketch.collect(employee1, employee2, 0, days);
+			exactDays.merge(key(employee1, employee2), (long) days, Long::sum);
+		}
+
+		List<HeavyPair> heavyPairs = sketch.findTopPairs(capacity);
+		Set<Long> found = new HashSet<>();
+		for (HeavyPair pair : heavyPairs) {
+			long exact = exactDays.get(key(pair.getEmployee1ID(), pair.getEmployee2ID()));
+			assertTrue(pair.getLowerBound() <= exact && exact <= pair.getEstimatedDays());
+			found.add(key(pair.getEmployee1ID(), pair.getEmployee2ID()));
+		}
+
+		// every pair with more days than the total divided by the capacity is found
+		for (Entry<Long, Long> pair : exactDays.entrySet()) {
+			if (pair.getValue() > sketch.getTotalDays() / capacity) {
+				assertTrue(found.contains(pair.getKey()));
+			}
+		}
+	}
+
+	@Test
+	public void testVerifiedPairsHaveExactDays() {
+
+		List<Employee> employees = EmployeeProcessing.processEmployeesAndTheirProjects(
+				new File("./test-files/employees-with-overlaps-and-different-date-formats.txt"), true);
+
+		List<HeavyPair> heavyPairs = EmployeeProcessing.findHeavyPairs(employees, 3, 3, true);
+		String[] longestPair = EmployeeProcessing.findTopWorkingEmployeePairs(employees, 1).get(0);
+
+		assertTrue(heavyPairs.get(0).isVerified());
+		for (HeavyPair pair : heavyPairs) {
+			assertTrue(pair.getLowerBound() <= pair.getExactDays() && pair.getExactDays() <= pair.getEstimatedDays());
+		}
+		assertEquals(longestPair[0] + "," + longestPair[1] + "," + longestPair[3], heavyPairs.get(0).getEmployee1ID()
+				+ "," + heavyPairs.get(0).getEmployee2ID() + "," + heavyPairs.get(0).getExactDays());
+	}
+
+	@Test
+	public void testVerifiedPairsRankedBelowKByEstimate() throws IOException {
+
+		Random random = new Random(5);
+		Path file = this.tempDirectory.resolve("employees.txt");
+		writeRandomEmployees(file, random, 500, 60, 10);
+		List<Employee> employees = EmployeeProcessing.processEmployeesAndTheirProjects(file.toFile(), true);
+
+		int capacity = 40;
+		int k = 5;
+		HashMap<Long, Long> exactDays = new HashMap<>();
+		for (String[] pair : EmployeeProcessing.findTopWorkingEmployeePairs(employees, Integer.MAX_VALUE)) {
+			exactDays.put(key(Integer.parseInt(pair[0]), Integer.parseInt(pair[1])), Long.parseLong(pair[3]));
+		}
+
+		// the k pairs with the most exact days out of all pairs counted
+		List<String> expected = new ArrayList<>();
+		List<HeavyPair> counted = EmployeeProcessing.findHeavyPairs(employees, capacity, capacity, false);
+		counted.sort((pair1, pair2) -> {
+			long key1 = key(pair1.getEmployee1ID(), pair1.getEmployee2ID());
+			long key2 = key(pair2.getEmployee1ID(), pair2.getEmployee2ID());
+			int result = Long.compare(exactDays.get(key2), exactDays.get(key1));
+			return result != 0 ? result : Long.compare(key1, key2);
+		});
+		for (HeavyPair pair : counted.subList(0, k)) {
+			expected.add(pair.getEmployee1ID() + "," + pair.getEmployee2ID() + ","
+					+ exactDays.get(key(pair.getEmployee1ID(), pair.getEmployee2ID())));
+		}
+
+		List<String> verified = new ArrayList<>();
+		for (HeavyPair pair : EmployeeProcessing.findHeavyPairs(employees, capacity, k, true)) {
+			verified.add(pair.getEmployee1ID() + "," + pair.getEmployee2ID() + "," + pair.getExactDays());
+		}
+		assertEquals(expected, verified);
+	}
+
+	private long key(int employee1, int employee2) {
+		return ((long) Math.min(employee1, employee2) << 32) | Math.max(employee1, employee2);
+	}
+}
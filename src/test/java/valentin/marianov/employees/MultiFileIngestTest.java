@@ -0,0 +1,77 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static valentin.marianov.employees.TestData.toStrings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import valentin.marianov.employees.employee.EmployeeDataset;
+import valentin.marianov.employees.employee.EmployeeProcessing;
+
+/**
+ * Test class for reading several files in parallel and merging their
+ * employees.
+ *
+ * @author Valentin
+ */
+public class MultiFileIngestTest {
+
+	private static final String HEADER = "EmpId, ProjectId, DateFrom, DateTo";
+
+	@TempDir
+	Path tempDirectory;
+
+	@Test
+	public void testShardedFilesGiveSamePairsAsSingleFile() throws IOException {
+
+		File input = new File("./test-files/employees-with-multiple-overlaps.txt");
+		List<String> rows = Files.readAllLines(input.toPath());
+
+		// the same employees appear in both shards
+		List<String> firstShard = new ArrayList<>(rows.subList(0, 6));
+		List<String> secondShard = new ArrayList<>(rows.subList(6, rows.size()));
+		secondShard.add(0, HEADER);
+		Files.write(this.tempDirectory.resolve("employees-1.txt"), firstShard);
+		Files.write(this.tempDirectory.resolve("employees-2.txt"), secondShard);
+
+		List<File> files = Main.resolveInputFiles(this.tempDirectory.resolve("employees-*.txt").toString());
+		List<String> errors = new ArrayList<>();
+		EmployeeDataset sharded = new EmployeeDataset(EmployeeProcessing.processEmployeesOfFiles(files, errors, true));
+		EmployeeDataset single = EmployeeDataset.load(input, true);
+
+		assertEquals(2, files.size());
+		assertTrue(errors.isEmpty());
+		assertEquals(single.getEmployees().size(), sharded.getEmployees().size());
+		assertEquals(toStrings(single.findTopWorkingEmployeePairs(Integer.MAX_VALUE)),
+				toStrings(sharded.findTopWorkingEmployeePairs(Integer.MAX_VALUE)));
+	}
+
+	@Test
+	public void testErrorsKeepFileAndRow() throws IOException {
+
+		Path valid = this.tempDirectory.resolve("valid.txt");
+		Path invalid = this.tempDirectory.resolve("invalid.txt");
+		Files.write(valid, Arrays.asList(HEADER, "1, 1, 2020-01-01, 2020-01-10", "2, 1, 2020-01-05, 2020-01-20"));
+		Files.write(invalid, Arrays.asList(HEADER, "3, 1, 2020-01-01, 2020-01-10", "4, 1"));
+
+		List<String> errors = new ArrayList<>();
+		EmployeeDataset dataset = new EmployeeDataset(
+				EmployeeProcessing.processEmployeesOfFiles(Arrays.asList(valid.toFile(), invalid.toFile()), errors, true));
+
+		assertEquals(1, errors.size());
+		assertTrue(errors.get(0).startsWith(invalid.toFile().getPath() + ", row 3: "), errors.get(0));
+		// the invalid file is skipped, the valid one is still used
+		assertEquals(2, dataset.getEmployees().size());
+		assertEquals("6", dataset.findLongestWorkingEmployeePair()[3]);
+	}
+}
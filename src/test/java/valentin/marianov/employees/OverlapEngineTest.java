@@ -0,0 +1,164 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import valentin.marianov.employees.employee.OverlapEngine;
+import valentin.marianov.employees.employee.OverlapEngines;
+import valentin.marianov.employees.employee.ProjectAssignments;
+import valentin.marianov.employees.utility.DayBitset;
+
+/**
+ * Test class for the engines computing the common working periods of the
+ * employees of a project, i.e. the bitset engine has to find exactly the same
+ * days as the interval engine.
+ *
+ * @author Valentin
+ */
+public class OverlapEngineTest {
+
+	@Test
+	public void testBitsetEngineMatchesIntervalEngine() {
+
+		Random random = new Random(7);
+
+		for (int projectID = 0; projectID < 200; projectID++) {
+
+			// from a few long to many short assignments per employee
+			int maxAssignments = 1 + random.nextInt(20);
+			int maxLength = 1 + random.nextInt(400);
+			ProjectAssignments project = createProject(random, projectID, 2 + random.nextInt(30), maxAssignments,
+					maxLength);
+
+			assertEquals(findTotals(OverlapEngines.INTERVAL, project), findTotals(OverlapEngines.BITSET, project));
+		}
+	}
+
+	@Test
+	public void testEngineSelection() {
+
+		Random random = new Random(11);
+
+		// continuous assignments of several years
+		ProjectAssignments longAssignments = new ProjectAssignments(1);
+		for (int employeeID = 0; employeeID < 50; employeeID++) {
+			int startDay = 18000 + random.nextInt(100);
+			longAssignments.add(employeeID, startDay, startDay + 1000 + random.nextInt(1000));
+		}
+
+		// employees coming back to the project for a few days every other week
+		ProjectAssignments shortAssignments = createProject(random, 2, 50, 40, 5);
+
+		assertSame(OverlapEngines.INTERVAL, OverlapEngines.forProject(longAssignments));
+		assertSame(OverlapEngines.BITSET, OverlapEngines.forProject(shortAssignments));
+	}
+
+	@Test
+	public void testDayBitsetCardinality() {
+
+		Random random = new Random(3);
+
+		for (int i = 0; i < 500; i++) {
+
+			int[][] first = createRanges(random);
+			int[][] second = createRanges(random);
+			DayBitset firstDays = DayBitset.of(first[0], first[1], 0, first[0].length);
+			DayBitset secondDays = DayBitset.of(second[0], second[1], 0, second[0].length);
+
+			boolean[] firstSet = toSet(first);
+			boolean[] secondSet = toSet(second);
+			int expectedCardinality = 0;
+			int expectedCommonDays = 0;
+
+			for (int day = 0; day < firstSet.length; day++) {
+				expectedCardinality += firstSet[day] ? 1 : 0;
+				expectedCommonDays += firstSet[day] && secondSet[day] ? 1 : 0;
+			}
+
+			assertEquals(expectedCardinality, firstDays.cardinality());
+			assertEquals(expectedCommonDays, DayBitset.andCardinality(firstDays, secondDays));
+			assertEquals(expectedCommonDays, DayBitset.andCardinality(secondDays, firstDays));
+		}
+	}
+
+	@Test
+	public void testDayBitsetContainers() {
+
+		// a single long range is stored as run, many short ones as bitmap
+		assertFalse(DayBitset.of(new int[] { -100 }, new int[] { 5000 }, 0, 1).isBitmap());
+		assertTrue(DayBitset.of(new int[] { 1, 4, 7, 10 }, new int[] { 2, 5, 8, 11 }, 0, 4).isBitmap());
+
+		// adjacent and overlapping ranges form a single run
+		DayBitset days = DayBitset.of(new int[] { 10, 15, 16 }, new int[] { 14, 20, 18 }, 0, 3);
+		assertEquals(11, days.cardinality());
+		assertEquals(10, days.getFirstDay());
+		assertEquals(20, days.getLastDay());
+	}
+
+	/**
+	 * Creates a project, where every employee has up to the given number of
+	 * assignments, which do not overlap each other.
+	 */
+	private ProjectAssignments createProject(Random random, int projectID, int employees, int maxAssignments,
+			int maxLength) {
+
+		ProjectAssignments project = new ProjectAssignments(projectID);
+
+		for (int employeeID = 0; employeeID < employees; employeeID++) {
+
+			int day = 18000 + random.nextInt(200) - 100;
+			int assignments = 1 + random.nextInt(maxAssignments);
+
+			for (int i = 0; i < assignments; i++) {
+				int length = 1 + random.nextInt(maxLength);
+				project.add(employeeID * 7, day, day + length - 1);
+				day += length + random.nextInt(20);
+			}
+		}
+		return project;
+	}
+
+	private HashMap<String, Integer> findTotals(OverlapEngine engine, ProjectAssignments project) {
+
+		HashMap<String, Integer> totals = new HashMap<>();
+		engine.findPairs(project, (empl1, empl2, projectID, days) -> totals
+				.merge(Math.min(empl1, empl2) + "-" + Math.max(empl1, empl2), days, Integer::sum));
+		return totals;
+	}
+
+	/**
+	 * Creates up to 30 ranges sorted by their start day within the days 0 to 999.
+	 */
+	private int[][] createRanges(Random random) {
+
+		int count = random.nextInt(30);
+		int[] startDays = new int[count];
+		int[] endDays = new int[count];
+		int day = 0;
+
+		for (int i = 0; i < count; i++) {
+			day += random.nextInt(30);
+			startDays[i] = Math.min(day, 999);
+			endDays[i] = Math.min(day + random.nextInt(60), 999);
+		}
+		return new int[][] { startDays, endDays };
+	}
+
+	private boolean[] toSet(int[][] ranges) {
+
+		boolean[] set = new boolean[1000];
+		for (int i = 0; i < ranges[0].length; i++) {
+			for (int day = ranges[0][i]; day <= ranges[1][i]; day++) {
+				set[day] = true;
+			}
+		}
+		return set;
+	}
+}
@@ -0,0 +1,193 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static valentin.marianov.employees.TestData.FILE_NAMES;
+import static valentin.marianov.employees.TestData.getFile;
+import static valentin.marianov.employees.TestData.toStrings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import valentin.marianov.employees.employee.Employee;
+import valentin.marianov.employees.employee.EmployeeProcessing;
+import valentin.marianov.employees.employee.PairEngine;
+import valentin.marianov.employees.utility.FairWorkerPool;
+
+/**
+ * Test class for the engine with its own options and the worker pool shared by
+ * its calls.
+ *
+ * @author Valentin
+ */
+public class PairEngineTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void testSameResultAsStaticMethods() {
+
+		for (String fileName : FILE_NAMES) {
+
+			File file = getFile(fileName);
+			List<Employee> employees = EmployeeProcessing.processEmployeesAndTheirProjects(file, true);
+
+			for (int parallelism : new int[] { 1, 2, 3 }) {
+				// a tiny budget spills the pairs to disk instead of the matrices
+				for (long memoryBudget : new long[] { 0, 16 }) {
+
+					PairEngine engine = PairEngine.builder().parallelism(parallelism).memoryBudget(memoryBudget)
+							.build();
+					List<Employee> engineEmployees = engine.readEmployees(List.of(file), null);
+
+					assertEquals(toStrings(EmployeeProcessing.findTopWorkingEmployeePairs(employees, 20)),
+							toStrings(engine.findTopWorkingEmployeePairs(engineEmployees, 20)), fileName);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMemoryBudgetSharedByParts() {
+
+		// 100 employees have 4950 pairs, i.e. a matrix of 19800 bytes
+		PairEngine engine = PairEngine.builder().memoryBudget(40_000).build();
+		assertEquals(40_000, engine.getMemoryBudgetInBytes());
+		assertTrue(engine.holdsTotalsInMatrices(100, 1));
+		assertTrue(engine.holdsTotalsInMatrices(100, 2));
+		assertFalse(engine.holdsTotalsInMatrices(100, 3));
+		assertFalse(engine.holdsTotalsInMatrices(1000, 1));
+
+		// the default budget is shared by the parts as well
+		PairEngine defaultEngine = PairEngine.builder().build();
+		assertTrue(defaultEngine.holdsTotalsInMatrices(5000, 1));
+		assertFalse(defaultEngine.holdsTotalsInMatrices(5000, 2));
+	}
+
+	@Test
+	public void testConcurrentCalls() throws Exception {
+
+		List<Employee> employees = EmployeeProcessing
+				.processEmployeesAndTheirProjects(new File("./test-files/employees-with-multiple-overlaps.txt"), true);
+		List<String> expected = toStrings(EmployeeProcessing.findTopWorkingEmployeePairs(employees, 5));
+
+		FairWorkerPool pool = new FairWorkerPool(2, "test-worker");
+		PairEngine engine = PairEngine.builder().parallelism(2).workerPool(pool).build();
+
+		List<Thread> threads = new ArrayList<>();
+		List<String> failures = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			Thread thread = new Thread(() -> {
+				for (int j = 0; j < 50; j++) {
+					List<String> found = toStrings(engine.findTopWorkingEmployeePairs(employees, 5));
+					if (!found.equals(expected)) {
+						synchronized (failures) {
+							failures.add(found.toString());
+						}
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		pool.shutdown();
+
+		assertEquals(new ArrayList<String>(), failures);
+	}
+
+	@Test
+	public void testAsOfDate() throws IOException {
+
+		Path file = write("as-of.txt", "EmpId, ProjectId, DateFrom, DateTo", "1, 1, 2020-01-01, NULL",
+				"2, 1, 2020-01-05, 2020-03-01", "3, 1, 2020-02-01, NULL");
+		Path clipped = write("clipped.txt", "EmpId, ProjectId, DateFrom, DateTo", "1, 1, 2020-01-01, 2020-01-20",
+				"2, 1, 2020-01-05, 2020-01-20");
+
+		PairEngine engine = PairEngine.builder().asOf(toDate(LocalDate.of(2020, 1, 20))).build();
+		List<Employee> employees = engine.readEmployees(List.of(file.toFile()), null);
+
+		// employee 3 starts after the as-of date
+		assertEquals(2, employees.size());
+		assertEquals(toStrings(EmployeeProcessing.findTopWorkingEmployeePairs(
+				EmployeeProcessing.processEmployeesAndTheirProjects(clipped.toFile(), true), 10)),
+				toStrings(engine.findTopWorkingEmployeePairs(employees, 10)));
+	}
+
+	@Test
+	public void testLenient() throws IOException {
+
+		Path file = write("errors.txt", "EmpId, ProjectId, DateFrom, DateTo", "1, 1, 2020-01-01, 2020-02-01",
+				"x, 1, 2020-01-01, 2020-02-01", "2, 1, 2020-01-10, 2020-03-01", "3, 1, 2020-01-10");
+
+		List<String> errors = new ArrayList<>();
+		List<Employee> employees = PairEngine.builder().lenient(true).build()
+				.readEmployees(List.of(file.toFile()), errors);
+
+		assertEquals(2, employees.size());
+		assertEquals(2, errors.size());
+		assertTrue(errors.get(0).contains("row 3"), errors.get(0));
+		assertEquals("1", PairEngine.builder().build().findLongestWorkingEmployeePair(employees)[0]);
+
+		errors.clear();
+		assertEquals(0, PairEngine.builder().build().readEmployees(List.of(file.toFile()), errors).size());
+		assertEquals(1, errors.size());
+		assertNull(PairEngine.builder().build().findLongestWorkingEmployeePair(new ArrayList<Employee>()));
+	}
+
+	@Test
+	public void testWorkerPoolTakesJobsInTurns() throws Exception {
+
+		FairWorkerPool pool = new FairWorkerPool(2, "test-worker");
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		AtomicInteger completed = new AtomicInteger();
+
+		FairWorkerPool.Job bigJob = pool.newJob(1);
+		List<Future<Integer>> bigTasks = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			bigTasks.add(bigJob.submit(() -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				Thread.sleep(20);
+				running.decrementAndGet();
+				return completed.incrementAndGet();
+			}));
+		}
+
+		// the small job gets the second thread at once, it does not wait for the big
+		// one
+		Future<Integer> smallTask = pool.newJob(4).submit(completed::get);
+
+		assertTrue(smallTask.get() < 5, "small job waited for " + smallTask.get() + " tasks");
+		for (Future<Integer> bigTask : bigTasks) {
+			bigTask.get();
+		}
+		assertEquals(1, maxRunning.get());
+		pool.shutdown();
+	}
+
+	private Path write(String name, String... lines) throws IOException {
+		return Files.write(this.directory.resolve(name), List.of(lines));
+	}
+
+	private Date toDate(LocalDate date) {
+		return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+	}
+}
@@ -0,0 +1,111 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import valentin.marianov.employees.employee.EmployeePairs;
+import valentin.marianov.employees.employee.EmployeeProcessing;
+import valentin.marianov.employees.employee.ExternalPairAggregator;
+import valentin.marianov.employees.export.PairExporter;
+
+/**
+ * Test class for exporting all employee pairs to CSV and JSON Lines files.
+ *
+ * @author Valentin
+ */
+public class PairExportTest {
+
+	@TempDir
+	Path tempDirectory;
+
+	@Test
+	public void testSortedCsvExport() throws IOException {
+
+		Path output = this.tempDirectory.resolve("pairs.csv");
+		HashMap<Integer, EmployeePairs> employeePairs = EmployeeProcessing
+				.findAllEmployeePairs(getFile("employees-with-multiple-overlaps.txt"), true);
+
+		long pairs = new PairExporter(PairExporter.Format.CSV, true, false).export(employeePairs, output);
+
+		List<String> lines = Files.readAllLines(output);
+		assertEquals(pairs + 1, lines.size());
+		assertEquals("EmployeeID1,EmployeeID2,ProjectIDs,DaysWorked", lines.get(0));
+		assertEquals("1,2,1 3,1633", lines.get(1));
+	}
+
+	@Test
+	public void testSortedExportWithinMemoryBudget() throws IOException {
+
+		Path inMemory = this.tempDirectory.resolve("in-memory.csv");
+		Path spilled = this.tempDirectory.resolve("spilled.csv");
+		HashMap<Integer, EmployeePairs> employeePairs = EmployeeProcessing
+				.findAllEmployeePairs(getFile("employees-with-overlaps-and-different-date-formats.txt"), true);
+
+		new PairExporter(PairExporter.Format.CSV, true, false).export(employeePairs, inMemory);
+		// a budget of about two pairs, the others are sorted in runs on disk
+		new PairExporter(PairExporter.Format.CSV, true, false, 64).export(employeePairs, spilled);
+
+		assertEquals(Files.readAllLines(inMemory), Files.readAllLines(spilled));
+	}
+
+	@Test
+	public void testGzipJsonLinesExport() throws IOException {
+
+		Path output = this.tempDirectory.resolve("pairs.jsonl.gz");
+		HashMap<Integer, EmployeePairs> employeePairs = EmployeeProcessing
+				.findAllEmployeePairs(getFile("employees-with-overlap.txt"), true);
+
+		long pairs = new PairExporter(PairExporter.Format.JSON_LINES, true, true).export(employeePairs, output);
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new GZIPInputStream(Files.newInputStream(output)), StandardCharsets.US_ASCII))) {
+
+			List<String> lines = reader.lines().collect(Collectors.toList());
+			assertEquals(pairs, lines.size());
+			assertEquals("{\"employee1\":18,\"employee2\":19,\"projects\":[69,55],\"days\":14}", lines.get(0));
+		}
+	}
+
+	@Test
+	public void testExportFromAggregatorMatchesExportFromPairs() throws IOException {
+
+		File input = getFile("employees-with-overlaps-and-different-date-formats.txt");
+		Path fromPairs = this.tempDirectory.resolve("from-pairs.csv");
+		Path fromAggregator = this.tempDirectory.resolve("from-aggregator.csv");
+
+		new PairExporter(PairExporter.Format.CSV, false, false)
+				.export(EmployeeProcessing.findAllEmployeePairs(input, true), fromPairs);
+
+		try (ExternalPairAggregator aggregator = new ExternalPairAggregator(1, this.tempDirectory)) {
+			EmployeeProcessing.collectAllEmployeePairs(input, aggregator, true);
+			new PairExporter(PairExporter.Format.CSV, false, false).export(aggregator, fromAggregator);
+		}
+
+		// the aggregator reports the projects of a pair in ascending order
+		assertEquals(readPairsWithoutProjects(fromPairs), readPairsWithoutProjects(fromAggregator));
+	}
+
+	private Set<String> readPairsWithoutProjects(Path file) throws IOException {
+		return Files.readAllLines(file).stream().map(line -> line.replaceAll("^([^,]*,[^,]*),[^,]*,", "$1,,"))
+				.collect(Collectors.toSet());
+	}
+
+	private File getFile(String fileName) {
+		return new File("./test-files/" + fileName);
+	}
+}
@@ -5,12 +5,15 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
 
 import org.junit.jupiter.api.Test;
 
+import valentin.marianov.employees.employee.Employee;
 import valentin.marianov.employees.employee.EmployeePairs;
 import valentin.marianov.employees.employee.EmployeeProcessing;
+import valentin.marianov.employees.utility.DateUtility;
 
 /**
  * Test class for testing different possible scenarions, e.g.
@@ -183,6 +186,53 @@ public class PairOfEmployeesTest {
 
 	}
 
+	@Test
+	public void testEmployeesWithOverlappingPeriodsOnSameProject() {
+
+		HashMap<Integer, EmployeePairs> employeePairs = EmployeeProcessing
+				.findAllEmployeePairs(getFile("employees-with-overlapping-periods-on-same-project.txt"), true);
+
+		String[] longestTogetherWorkingPair = null;
+
+		if (employeePairs.size() > 0) {
+			longestTogetherWorkingPair = EmployeeProcessing.findLongestWorkingEmployeePair(employeePairs);
+		}
+
+		// the three periods of employee 1 on project 10 are counted as one from 01/01 to 02/20
+		assertNotEquals(0, employeePairs.size());
+		assertEquals(4, longestTogetherWorkingPair.length);
+		assertEquals("1", longestTogetherWorkingPair[0]);
+		assertEquals("2", longestTogetherWorkingPair[1]);
+		assertEquals("10 20 ", longestTogetherWorkingPair[2]);
+		assertEquals("53", longestTogetherWorkingPair[3]);
+
+	}
+
+	@Test
+	public void testCoalesceProjectsOfEmployee() {
+
+		Employee employee = new Employee(1);
+		addProject(employee, 10, "2020-01-01", "2020-01-31");
+		addProject(employee, 20, "2020-05-01", "2020-05-10");
+		addProject(employee, 10, "2020-01-15", "2020-02-15");
+		addProject(employee, 10, "2020-02-16", "2020-02-20");
+		addProject(employee, 10, "2020-03-01", "2020-03-10");
+
+		assertEquals(2, employee.coalesceProjects());
+		assertEquals(3, employee.getListSize());
+		assertEquals(Arrays.asList(10, 10, 20), employee.getProjects());
+		assertEquals(DateUtility.convertStringToDate("2020-02-20"), employee.getEndDate(0));
+		assertEquals(DateUtility.convertStringToDate("2020-03-01"), employee.getStartDate(1));
+		assertEquals(0, employee.coalesceProjects());
+	}
+
+	private void addProject(Employee employee, int projectId, String startDate, String endDate) {
+
+		employee.addProjectId(projectId);
+		employee.addStartDate(DateUtility.convertStringToDate(startDate));
+		employee.addEndDate(DateUtility.convertStringToDate(endDate));
+	}
+
 	private File getFile(String fileName) {
 
 		String customImageOne = "./test-files/" + fileName;
@@ -0,0 +1,102 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static valentin.marianov.employees.TestData.readEmployees;
+import static valentin.marianov.employees.TestData.toSortedStrings;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import valentin.marianov.employees.employee.Employee;
+import valentin.marianov.employees.employee.EmployeeDataset;
+import valentin.marianov.employees.employee.TopPairsCollector;
+import valentin.marianov.employees.partition.PartialResultReader;
+import valentin.marianov.employees.partition.PartialResultWriter;
+import valentin.marianov.employees.partition.PartitionCoordinator;
+import valentin.marianov.employees.partition.PartitionWorker;
+
+/**
+ * Test class for computing the pairs in partitions by project.
+ *
+ * @author Valentin
+ */
+public class PartitionTest {
+
+	@TempDir
+	Path tempDirectory;
+
+	@Test
+	public void testWorkerJvmsGiveSamePairsAsSingleJvm() throws IOException {
+
+		List<Employee> employees = readEmployees("employees-with-multiple-overlaps.txt");
+
+		List<String[]> partitioned = new PartitionCoordinator(3, this.tempDirectory)
+				.findTopWorkingEmployeePairs(employees, Integer.MAX_VALUE);
+
+		assertEquals(toSortedStrings(new EmployeeDataset(employees).findTopWorkingEmployeePairs(Integer.MAX_VALUE)),
+				toSortedStrings(partitioned));
+	}
+
+	@Test
+	public void testMergePartialResultsComputedElsewhere() throws IOException {
+
+		List<Employee> employees = readEmployees("employees-with-overlaps-and-different-date-formats.txt");
+		List<Path> partialResults = computePartialResults(employees, 4);
+
+		TopPairsCollector merged = new TopPairsCollector(Integer.MAX_VALUE);
+		PartitionCoordinator.merge(partialResults, merged);
+
+		assertEquals(toSortedStrings(new EmployeeDataset(employees).findTopWorkingEmployeePairs(Integer.MAX_VALUE)),
+				toSortedStrings(merged.toList()));
+	}
+
+	@Test
+	public void testIncompletePartialResultIsRejected() throws IOException {
+
+		List<Path> partialResults = computePartialResults(readEmployees("employees-with-multiple-overlaps.txt"), 1);
+		byte[] content = Files.readAllBytes(partialResults.get(0));
+		Files.write(partialResults.get(0), Arrays.copyOf(content, content.length - 5));
+
+		assertThrows(IOException.class,
+				() -> PartitionCoordinator.merge(partialResults, new TopPairsCollector(1)));
+	}
+
+	@Test
+	public void testPartialResultOfFailedWorkerIsRejected() throws IOException {
+
+		// a worker failing after some pairs closes the file without its end marker
+		Path partialResult = this.tempDirectory.resolve("failed.pairs");
+		try (PartialResultWriter writer = new PartialResultWriter(partialResult)) {
+			writer.collect(1, 2, List.of(1, 3), 1633);
+			writer.collect(2, 4, List.of(3), 969);
+		}
+
+		try (PartialResultReader reader = new PartialResultReader(partialResult)) {
+			assertTrue(reader.next());
+			assertTrue(reader.next());
+			assertThrows(IOException.class, () -> reader.next());
+		}
+		assertThrows(IOException.class,
+				() -> PartitionCoordinator.merge(List.of(partialResult), new TopPairsCollector(1)));
+	}
+
+	private List<Path> computePartialResults(List<Employee> employees, int partitions) throws IOException {
+
+		List<Path> partialResults = new ArrayList<>();
+		for (Path partition : new PartitionCoordinator(partitions, this.tempDirectory).split(employees)) {
+			Path partialResult = partition.resolveSibling(partition.getFileName() + ".pairs");
+			PartitionWorker.computePartialResult(partition.toFile(), partialResult, 1 << 20);
+			partialResults.add(partialResult);
+		}
+		return partialResults;
+	}
+}
@@ -0,0 +1,135 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static valentin.marianov.employees.TestData.FILE_NAMES;
+import static valentin.marianov.employees.TestData.getFile;
+import static valentin.marianov.employees.TestData.toSortedStrings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import valentin.marianov.employees.employee.EmployeeProcessing;
+import valentin.marianov.employees.pipeline.EmployeePipeline;
+import valentin.marianov.employees.pipeline.PipelineStage;
+
+/**
+ * Test class for finding the pairs in stages connected by Flow, i.e. the
+ * result has to be the same as the one found in one go.
+ *
+ * @author Valentin
+ */
+public class PipelineTest {
+
+	private static final long MEMORY_BUDGET = 1024 * 1024;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void testTestFiles() throws Exception {
+
+		List<String> fileNames = new ArrayList<>(List.of(FILE_NAMES));
+		fileNames.add("no-overlap.txt");
+
+		for (String fileName : fileNames) {
+
+			File file = getFile(fileName);
+			EmployeePipeline pipeline = new EmployeePipeline(20, 2, MEMORY_BUDGET, false);
+
+			assertEquals(toSortedStrings(EmployeeProcessing.findTopWorkingEmployeePairs(
+					EmployeeProcessing.processEmployeesAndTheirProjects(file, true), 20)),
+					toSortedStrings(pipeline.findTopWorkingEmployeePairs(List.of(file))), fileName);
+			assertEquals(new ArrayList<String>(), pipeline.getErrors());
+		}
+	}
+
+	@Test
+	public void testSeveralFilesWithSmallQueues() throws Exception {
+
+		Random random = new Random(21);
+		List<File> files = new ArrayList<File>();
+
+		for (int i = 0; i < 3; i++) {
+			List<String> lines = new ArrayList<String>();
+			lines.add("EmpID, ProjectID, DateFrom, DateTo");
+			for (int j = 0; j < 2000; j++) {
+				int startYear = 2010 + random.nextInt(8);
+				lines.add(random.nextInt(400) + ", " + random.nextInt(30) + ", " + startYear + "-0"
+						+ (1 + random.nextInt(9)) + "-1" + random.nextInt(10) + ", "
+						+ (startYear + random.nextInt(3)) + "-1" + random.nextInt(3) + "-2" + random.nextInt(9));
+			}
+			files.add(Files.write(this.directory.resolve("employees-" + i + ".txt"), lines).toFile());
+		}
+
+		// a queue of a single item makes every stage wait for the next one
+		EmployeePipeline pipeline = new EmployeePipeline(50, 1, MEMORY_BUDGET, false);
+		List<String[]> pairs = pipeline.findTopWorkingEmployeePairs(files);
+
+		assertEquals(50, pairs.size());
+		assertEquals(toSortedStrings(EmployeeProcessing
+				.findTopWorkingEmployeePairs(EmployeeProcessing.processEmployeesOfFiles(files, null, true), 50)),
+				toSortedStrings(pairs));
+
+		assertEquals(List.of("read", "parse", "normalize", "index", "pair", "aggregate"),
+				new ArrayList<String>(pipeline.getQueueDepths().keySet()));
+		for (PipelineStage<?, ?> stage : pipeline.getStages()) {
+			assertEquals(0, stage.getQueueDepth(), stage.getName());
+			assertTrue(stage.getMaxQueueDepth() <= 2, stage.getName());
+		}
+		assertEquals(6003, pipeline.getStages().get(1).getItemsProcessed());
+	}
+
+	@Test
+	public void testProjectWithManyPairsInSeveralBatches() throws Exception {
+
+		// 100 employees on the same project have 4950 pairs
+		List<String> lines = new ArrayList<String>();
+		lines.add("EmpID, ProjectID, DateFrom, DateTo");
+		for (int i = 1; i <= 100; i++) {
+			lines.add(i + ", 1, 2020-01-01, 2020-01-" + (10 + i % 20));
+		}
+		File file = Files.write(this.directory.resolve("one-project.txt"), lines).toFile();
+
+		EmployeePipeline pipeline = new EmployeePipeline(20, 2, MEMORY_BUDGET, false);
+		assertEquals(toSortedStrings(EmployeeProcessing
+				.findTopWorkingEmployeePairs(EmployeeProcessing.processEmployeesAndTheirProjects(file, true), 20)),
+				toSortedStrings(pipeline.findTopWorkingEmployeePairs(List.of(file))));
+
+		// at most 1024 periods a batch
+		assertEquals(5, pipeline.getStages().get(5).getItemsProcessed());
+	}
+
+	@Test
+	public void testErrors() throws Exception {
+
+		File file = Files.write(this.directory.resolve("errors.txt"),
+				List.of("EmpID, ProjectID, DateFrom, DateTo", "1, 1, 2020-01-01, 2020-02-01",
+						"x, 1, 2020-01-01, 2020-02-01", "2, 1, 2020-01-10, 2020-03-01"))
+				.toFile();
+
+		EmployeePipeline lenient = new EmployeePipeline(10, 4, MEMORY_BUDGET, true);
+		List<String[]> pairs = lenient.findTopWorkingEmployeePairs(List.of(file));
+
+		assertEquals(1, pairs.size());
+		assertEquals("23", pairs.get(0)[3]);
+		assertEquals(List.of(file.getPath() + ", row 3: The row does not have the correct syntax: "
+				+ "x, 1, 2020-01-01, 2020-02-01"), lenient.getErrors());
+
+		// the missing file may be reported as well, before the pipeline has stopped
+		EmployeePipeline strict = new EmployeePipeline(10, 4, MEMORY_BUDGET, false);
+		assertEquals(0, strict.findTopWorkingEmployeePairs(List.of(file, new File("missing.txt"))).size());
+		assertTrue(strict.getErrors().contains(lenient.getErrors().get(0)), strict.getErrors().toString());
+
+		assertThrows(IllegalStateException.class, () -> strict.findTopWorkingEmployeePairs(List.of(file)));
+	}
+}
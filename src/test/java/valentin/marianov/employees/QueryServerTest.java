@@ -0,0 +1,94 @@
+package valentin.marianov.employees;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import valentin.marianov.employees.server.QueryServer;
+
+/**
+ * Test class for the queries answered by the HTTP server.
+ *
+ * @author Valentin
+ */
+public class QueryServerTest {
+
+	private QueryServer server;
+	private HttpClient client = HttpClient.newHttpClient();
+
+	@BeforeEach
+	public void startServer() throws IOException {
+		this.server = new QueryServer(new File("./test-files/employees-with-multiple-overlaps.txt"));
+		this.server.start(0);
+	}
+
+	@AfterEach
+	public void stopServer() {
+		this.server.stop();
+	}
+
+	@Test
+	public void testLongestPair() throws Exception {
+
+		HttpResponse<String> response = send("GET", "/longest");
+
+		assertEquals(200, response.statusCode());
+		assertEquals("{\"employee1\":1,\"employee2\":2,\"projects\":[1,3],\"days\":1633}", response.body());
+	}
+
+	@Test
+	public void testTopPairs() throws Exception {
+
+		HttpResponse<String> response = send("GET", "/top?k=2");
+
+		assertEquals(200, response.statusCode());
+		assertEquals("[{\"employee1\":1,\"employee2\":2,\"projects\":[1,3],\"days\":1633},"
+				+ "{\"employee1\":2,\"employee2\":4,\"projects\":[3],\"days\":969}]", response.body());
+	}
+
+	@Test
+	public void testPartnersAndProjectPeriod() throws Exception {
+
+		assertEquals("[{\"employee1\":3,\"employee2\":1,\"projects\":[1,2],\"days\":368},"
+				+ "{\"employee1\":3,\"employee2\":2,\"projects\":[1],\"days\":2}]",
+				send("GET", "/partners?employee=3").body());
+
+		assertEquals("[{\"employee\":3,\"partner\":1,\"commonProjects\":2,\"days\":368}]",
+				send("GET", "/collaborators?employee=3&n=1").body());
+
+		// employees 1, 2 and 3 on project 1, cut to the first week of June 2012
+		assertEquals("[{\"employee1\":1,\"employee2\":2,\"projects\":[1],\"days\":6},"
+				+ "{\"employee1\":2,\"employee2\":3,\"projects\":[1],\"days\":2},"
+				+ "{\"employee1\":1,\"employee2\":3,\"projects\":[1],\"days\":1}]",
+				send("GET", "/project?id=1&from=2012-06-01&to=2012-06-07").body());
+
+		assertEquals("{\"project\":1,\"peak\":3,\"average\":1.48,\"staffedDays\":1821,"
+				+ "\"peakPeriods\":[{\"from\":\"2012-06-02\",\"to\":\"2012-06-02\"}]}",
+				send("GET", "/headcount?project=1").body());
+	}
+
+	@Test
+	public void testInvalidRequests() throws Exception {
+
+		assertEquals(400, send("GET", "/partners?employee=abc").statusCode());
+		assertEquals(400, send("GET", "/project?id=1&from=2012-06-01").statusCode());
+		assertEquals(405, send("GET", "/reload").statusCode());
+		assertEquals(200, send("POST", "/reload").statusCode());
+	}
+
+	private HttpResponse<String> send(String method, String path) throws Exception {
+
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + this.server.getPort() + path))
+				.method(method, HttpRequest.BodyPublishers.noBody()).build();
+		return this.client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+}
@@ -0,0 +1,96 @@
+package valentin.marianov.employees;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import valentin.marianov.employees.employee.Employee;
+import valentin.marianov.employees.employee.EmployeeProcessing;
+
+/**
+ * The test files and helpers for comparing the pairs found by the different
+ * searches, shared by the test classes.
+ *
+ * @author Valentin
+ */
+final class TestData {
+
+	/**
+	 * The test files with pairs, who have worked together.
+	 */
+	static final String[] FILE_NAMES = { "employees-with-multiple-overlaps.txt", "employees-with-overlap.txt",
+			"employees-with-overlaps-and-different-date-formats.txt",
+			"employees-with-overlapping-periods-on-same-project.txt" };
+
+	private TestData() {
+	}
+
+	static File getFile(String fileName) {
+		return new File("./test-files/" + fileName);
+	}
+
+	static List<Employee> readEmployees(String fileName) {
+		return EmployeeProcessing.processEmployeesAndTheirProjects(getFile(fileName), true);
+	}
+
+	/**
+	 * Writes a header and random rows to the file. Most periods are short, every
+	 * tenth may last up to a few years.
+	 */
+	static void writeRandomEmployees(Path file, Random random, int rows, int employees, int projects)
+			throws IOException {
+
+		List<String> lines = new ArrayList<>();
+		lines.add("EmpId, ProjectId, DateFrom, DateTo");
+		for (int i = 0; i < rows; i++) {
+			lines.add(randomRow(random, employees, projects));
+		}
+		Files.write(file, lines);
+	}
+
+	/**
+	 * A random row in the form EmployeeID, ProjectID, DateFrom, DateTo.
+	 */
+	static String randomRow(Random random, int employees, int projects) {
+
+		LocalDate start = LocalDate.of(2010, 1, 1).plusDays(random.nextInt(4000));
+		LocalDate end = start.plusDays(random.nextInt(random.nextInt(10) == 0 ? 2000 : 100));
+		return (1 + random.nextInt(employees)) + ", " + (1 + random.nextInt(projects)) + ", " + start + ", " + end;
+	}
+
+	/**
+	 * The pairs in the form id1,id2,projects,days.
+	 */
+	static List<String> toStrings(List<String[]> pairs) {
+		return toStrings(pairs, pair -> String.join(",", pair));
+	}
+
+	/**
+	 * The pairs in the form id1,id2,projects,days with the projects in ascending
+	 * order, e.g. for the pairs merged from partitions.
+	 */
+	static List<String> toSortedStrings(List<String[]> pairs) {
+
+		return toStrings(pairs, pair -> {
+			String[] projects = pair[2].trim().split(" ");
+			Arrays.sort(projects);
+			return pair[0] + "," + pair[1] + "," + String.join(" ", projects) + "," + pair[3];
+		});
+	}
+
+	static <T> List<String> toStrings(List<T> values, Function<? super T, String> format) {
+
+		List<String> strings = new ArrayList<>();
+		for (T value : values) {
+			strings.add(format.apply(value));
+		}
+		return strings;
+	}
+}